@@ -0,0 +1,60 @@
+package com.upss.benchmarks;
+
+import com.upss.core.BasicSanitizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BasicSanitizer#isClean} and {@link BasicSanitizer#sanitize} over
+ * 64 B to 1 MB of clean ({@code matchesPerKb = 0}) and dirty input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=off")
+public class BasicSanitizerBenchmark {
+
+    @Param({"64", "1024", "16384", "262144", "1048576"})
+    public int sizeBytes;
+
+    @Param({"ASCII", "MIXED"})
+    public BenchmarkInputs.Script script;
+
+    @Param({"0", "1", "16"})
+    public int matchesPerKb;
+
+    private BasicSanitizer sanitizer;
+    private String input;
+
+    @Setup
+    public void setUp() {
+        sanitizer = new BasicSanitizer();
+        input = BenchmarkInputs.generate(sizeBytes, script, matchesPerKb, BenchmarkInputs.INJECTION_TOKENS, 42);
+        if (sanitizer.isClean(input) != (matchesPerKb == 0) && sizeBytes >= 1024) {
+            throw new IllegalStateException("Generated input does not have the requested cleanliness");
+        }
+    }
+
+    @Benchmark
+    public boolean isClean() {
+        return sanitizer.isClean(input);
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return sanitizer.sanitize(input);
+    }
+}
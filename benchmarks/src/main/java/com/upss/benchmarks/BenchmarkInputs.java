@@ -0,0 +1,73 @@
+package com.upss.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic benchmark inputs: whitespace-separated words up to a UTF-8
+ * size, ASCII or mixed-script, with a given number of "dirty" tokens per KB
+ * spread through them. Clean words never contain a sanitizer pattern or a
+ * path-traversal sequence, and patterns cannot span the spaces between words,
+ * so a density of {@code 0} always gives a clean input.
+ */
+public final class BenchmarkInputs {
+    public enum Script {
+        ASCII,
+        MIXED
+    }
+
+    /** Strings {@code BasicSanitizer} looks for. */
+    public static final String[] INJECTION_TOKENS = {
+            "SELECT * FROM users", "DROP TABLE prompts", "exec(cmd)", "javascript:alert(1)",
+            "eval(payload)", "os.system('id')", "__import__('os')", "subprocess.Popen", "/bin/bash -c"
+    };
+
+    /** Sequences {@code ValidatorMiddleware} rejects for critical prompts. */
+    public static final String[] TRAVERSAL_TOKENS = {"../../etc/passwd", "//attacker.example", "..\\..\\boot.ini"};
+
+    private static final String[] ASCII_WORDS = {
+            "the", "prompt", "user", "please", "summarize", "following", "text", "into", "three", "short",
+            "bullet", "points", "about", "weather", "report", "travel", "plans", "budget", "meeting", "notes",
+            "quarterly", "results", "customer", "feedback", "translate", "friendly", "tone", "avoid", "jargon",
+            "keep", "under", "words", "and", "with", "for", "a", "of", "to", "in", "on"
+    };
+
+    private static final String[] MIXED_WORDS = {
+            "the", "prompt", "summarize", "report", "meeting", "notes", "customer", "feedback",
+            "привет", "данные", "отчёт", "пользователь", "今日は", "要約", "してください", "天気",
+            "مرحبا", "تقرير", "Grüße", "Straße", "naïve", "café", "ελληνικά", "שלום", "नमस्ते",
+            "😀", "🚀", "🇩🇪"
+    };
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Builds an input of at least {@code sizeBytes} UTF-8 bytes (one word
+     * more at most) holding about {@code tokensPerKb} tokens per 1024 bytes.
+     */
+    public static String generate(int sizeBytes, Script script, int tokensPerKb, String[] tokens, long seed) {
+        Random random = new Random(seed);
+        String[] words = script == Script.ASCII ? ASCII_WORDS : MIXED_WORDS;
+        StringBuilder text = new StringBuilder(sizeBytes);
+        long bytes = 0;
+        double tokenEvery = tokensPerKb == 0 ? Double.MAX_VALUE : 1024.0 / tokensPerKb;
+        double nextToken = tokenEvery * random.nextDouble();
+        while (bytes < sizeBytes) {
+            String word;
+            if (bytes >= nextToken) {
+                word = tokens[random.nextInt(tokens.length)];
+                nextToken += tokenEvery;
+            } else {
+                word = words[random.nextInt(words.length)];
+            }
+            if (text.length() > 0) {
+                text.append(' ');
+                bytes++;
+            }
+            text.append(word);
+            bytes += word.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package com.upss.benchmarks;
+
+import com.upss.core.BasicSanitizer;
+import com.upss.corpus.CorpusEntry;
+import com.upss.corpus.CorpusFiles;
+import com.upss.corpus.CorpusGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link BasicSanitizer#isClean} over every entry of one category of a
+ * corpus, one pass per operation. The corpus is 2,000 generated entries
+ * (seed 42) unless {@code -p corpus=path.jsonl[.gz]} names a corpus file,
+ * so results stay comparable with the load generator and other tools.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=off")
+public class CorpusBenchmark {
+
+    @Param({"CLEAN", "OBFUSCATED", "PATHOLOGICAL"})
+    public CorpusGenerator.Category category;
+
+    @Param({""})
+    public String corpus;
+
+    private BasicSanitizer sanitizer;
+    private String[] inputs;
+
+    @Setup
+    public void setUp() throws IOException {
+        sanitizer = new BasicSanitizer();
+        try (Stream<CorpusEntry> entries = corpus.isEmpty()
+                ? new CorpusGenerator(42).withWeight(CorpusGenerator.Category.SCALED, 0).stream(2000)
+                : CorpusFiles.read(Paths.get(corpus))) {
+            inputs = entries.filter(entry -> entry.getCategory() == category)
+                    .map(CorpusEntry::getText)
+                    .collect(Collectors.toList())
+                    .toArray(new String[0]);
+        }
+        if (inputs.length == 0) {
+            throw new IllegalStateException("Corpus has no " + category + " entries");
+        }
+    }
+
+    @Benchmark
+    public int isClean() {
+        int clean = 0;
+        for (String input : inputs) {
+            if (sanitizer.isClean(input)) {
+                clean++;
+            }
+        }
+        return clean;
+    }
+}
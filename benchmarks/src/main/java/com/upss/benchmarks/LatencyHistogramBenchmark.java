@@ -0,0 +1,53 @@
+package com.upss.benchmarks;
+
+import com.upss.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link LatencyHistogram#record}, the operation the pipeline
+ * metrics pay per middleware per request, alone and with four threads
+ * recording into the same histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram(TimeUnit.MINUTES.toNanos(1), 2);
+
+    @State(Scope.Thread)
+    public static class Values {
+        long value = 1_000;
+
+        long next() {
+            // Spread over a few hundred buckets like real stage latencies
+            value = value * 6364136223846793005L + 1442695040888963407L;
+            return 1_000 + ((value >>> 40) & 0xFFFFF);
+        }
+    }
+
+    @Benchmark
+    public void record(Values values) {
+        histogram.record(values.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Values values) {
+        histogram.record(values.next());
+    }
+}
@@ -0,0 +1,121 @@
+package com.upss.benchmarks;
+
+import com.upss.audit.AuditLogOptions;
+import com.upss.core.LightweightAuditor;
+import com.upss.middleware.PipelineResult;
+import com.upss.middleware.SecurityPipeline;
+import com.upss.middleware.impl.AuditorMiddleware;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A fully built {@link SecurityPipeline} (validator, sanitizer, auditor)
+ * executing a {@link TrafficMix} from every benchmark thread at once, with the
+ * audit log in a temporary directory. Run it with {@code -t 1}, {@code -t 2},
+ * ... or through {@link PipelineScalingRunner} to see how throughput scales
+ * and where shared locks in the pipeline stop it.
+ *
+ * <p>{@code auditLog} picks the audit path: {@code file} appends each entry
+ * to a single file under a lock, {@code async} hands entries to the
+ * background writer of a segmented log.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=off")
+public class PipelineBenchmark {
+    private static final int REQUESTS = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        @Param({"0", "10", "50"})
+        public int maliciousPercent;
+
+        @Param({"mixed"})
+        public String sizeMix;
+
+        @Param({"mixed"})
+        public String riskMix;
+
+        @Param({"file", "async"})
+        public String auditLog;
+
+        Path directory;
+        LightweightAuditor auditor;
+        SecurityPipeline pipeline;
+        List<TrafficMix.Request> requests;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("upss-pipeline-bench");
+            String logPath = directory.resolve("prompts.log").toString();
+            auditor = "async".equals(auditLog)
+                    ? new LightweightAuditor(logPath, new AuditLogOptions().segmentBytes(64L * 1024 * 1024)
+                    .asyncQueue(AuditLogOptions.DEFAULT_QUEUE_CAPACITY))
+                    : new LightweightAuditor(logPath);
+            pipeline = new SecurityPipeline()
+                    .withContext("user", "bench-user")
+                    .withContext("sessionId", "bench-session")
+                    .use(new ValidatorMiddleware())
+                    .use(new SanitizerMiddleware())
+                    .use(new AuditorMiddleware(auditor));
+            requests = new TrafficMix(maliciousPercent, sizeMix, riskMix).generate(REQUESTS, 42);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            auditor.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Each thread walks the shared request list from its own random offset.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextInt(REQUESTS);
+        }
+
+        TrafficMix.Request next(List<TrafficMix.Request> requests) {
+            TrafficMix.Request request = requests.get(next);
+            next = next + 1 == requests.size() ? 0 : next + 1;
+            return request;
+        }
+    }
+
+    @Benchmark
+    public PipelineResult execute(Pipeline state, Cursor cursor) {
+        TrafficMix.Request request = cursor.next(state.requests);
+        return state.pipeline.execute(request.getPrompt(), request.getInput());
+    }
+}
@@ -0,0 +1,120 @@
+package com.upss.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link PipelineBenchmark} at 1, 2, 4, ... up to {@code --max-threads}
+ * threads (all cores by default) and prints one scalability curve per
+ * parameter combination: throughput, speedup over one thread and parallel
+ * efficiency. Rows are appended to {@code --out} (default
+ * {@code pipeline-scaling.csv}) with the date, so curves can be tracked
+ * across runs. {@code -p name=v1,v2} overrides benchmark parameters, e.g.
+ * {@code -p maliciousPercent=25 -p sizeMix=large}.
+ */
+public final class PipelineScalingRunner {
+
+    private PipelineScalingRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        Path out = Paths.get("pipeline-scaling.csv");
+        Map<String, String[]> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max-threads":
+                    maxThreads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--out":
+                    out = Paths.get(args[i + 1]);
+                    break;
+                case "-p":
+                    String[] param = args[i + 1].split("=", 2);
+                    params.put(param[0], param[1].split(","));
+                    break;
+                default:
+                    System.err.println("Usage: PipelineScalingRunner [--max-threads N] [--out scaling.csv]"
+                            + " [-p name=value[,value...]]...");
+                    System.exit(2);
+            }
+        }
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        // parameters -> threads -> ops/s and error
+        Map<String, Map<Integer, double[]>> curves = new TreeMap<>();
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(PipelineBenchmark.class.getName() + ".execute")
+                    .threads(threads);
+            params.forEach(options::param);
+            for (RunResult result : new Runner(options.build()).run()) {
+                curves.computeIfAbsent(describe(result), k -> new TreeMap<>()).put(threads, new double[]{
+                        result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreError()});
+            }
+        }
+        report(curves, out);
+    }
+
+    private static String describe(RunResult result) {
+        StringBuilder description = new StringBuilder();
+        for (String name : result.getParams().getParamsKeys()) {
+            description.append(description.length() == 0 ? "" : " ")
+                    .append(name).append('=').append(result.getParams().getParam(name));
+        }
+        return description.toString();
+    }
+
+    private static void report(Map<String, Map<Integer, double[]>> curves, Path out) {
+        boolean header = !Files.exists(out);
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (header) {
+                csv.println("date,params,threads,ops_per_sec,error,speedup,efficiency");
+            }
+            String date = LocalDate.now().toString();
+            for (Map.Entry<String, Map<Integer, double[]>> curve : curves.entrySet()) {
+                System.out.println();
+                System.out.println(curve.getKey());
+                System.out.printf("%8s %14s %12s %9s %11s%n", "threads", "ops/s", "error", "speedup", "efficiency");
+                double[] single = curve.getValue().get(1);
+                for (Map.Entry<Integer, double[]> point : curve.getValue().entrySet()) {
+                    int threads = point.getKey();
+                    double score = point.getValue()[0];
+                    double speedup = single == null ? Double.NaN : score / single[0];
+                    System.out.printf("%8d %14.1f %12.1f %8.2fx %10.0f%%%n",
+                            threads, score, point.getValue()[1], speedup, 100 * speedup / threads);
+                    csv.printf("%s,\"%s\",%d,%.1f,%.1f,%.3f,%.3f%n",
+                            date, curve.getKey(), threads, score, point.getValue()[1], speedup, speedup / threads);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println();
+        System.out.println("Appended results to " + out);
+    }
+}
@@ -0,0 +1,119 @@
+package com.upss.benchmarks;
+
+import com.upss.core.Prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A synthetic request stream for pipeline benchmarks: how many requests are
+ * malicious, how large inputs are and which risk level the target prompt
+ * has. One request in five is mixed-script text.
+ *
+ * <p>Size mixes: {@code small} (64-512 B), {@code large} (8-16 KB) and
+ * {@code mixed} (80% small, 18% 1-8 KB, 2% large). Risk mixes: {@code low},
+ * {@code critical} and {@code mixed} (70% low, 20% high, 10% critical).
+ */
+public final class TrafficMix {
+    private static final Prompt LOW = new Prompt("summarize", "Summarize the user's text.", "1.0.0", "low");
+    private static final Prompt HIGH = new Prompt("support", "Answer support questions.", "1.0.0", "high");
+    private static final Prompt CRITICAL = new Prompt("securityAnalyst", "Analyse the reported threat.", "1.0.0",
+            "critical");
+
+    private final int maliciousPercent;
+    private final String sizeMix;
+    private final String riskMix;
+
+    public TrafficMix(int maliciousPercent, String sizeMix, String riskMix) {
+        if (maliciousPercent < 0 || maliciousPercent > 100) {
+            throw new IllegalArgumentException("Malicious percentage must be between 0 and 100: " + maliciousPercent);
+        }
+        this.maliciousPercent = maliciousPercent;
+        this.sizeMix = sizeMix.toLowerCase(Locale.ROOT);
+        this.riskMix = riskMix.toLowerCase(Locale.ROOT);
+        size(new Random(0));
+        prompt(new Random(0));
+    }
+
+    public List<Request> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Request> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BenchmarkInputs.Script script = random.nextInt(5) == 0
+                    ? BenchmarkInputs.Script.MIXED : BenchmarkInputs.Script.ASCII;
+            String input = BenchmarkInputs.generate(size(random), script, 0, BenchmarkInputs.INJECTION_TOKENS,
+                    random.nextLong());
+            boolean malicious = random.nextInt(100) < maliciousPercent;
+            if (malicious) {
+                String[] tokens = random.nextBoolean() ? BenchmarkInputs.INJECTION_TOKENS : BenchmarkInputs.TRAVERSAL_TOKENS;
+                int at = input.indexOf(' ', random.nextInt(input.length()));
+                String token = tokens[random.nextInt(tokens.length)];
+                input = at < 0 ? input + " " + token : input.substring(0, at) + " " + token + input.substring(at);
+            }
+            requests.add(new Request(prompt(random), input, malicious));
+        }
+        return requests;
+    }
+
+    private int size(Random random) {
+        switch (sizeMix) {
+            case "small":
+                return 64 + random.nextInt(449);
+            case "large":
+                return 8192 + random.nextInt(8193);
+            case "mixed":
+                int roll = random.nextInt(100);
+                if (roll < 80) {
+                    return 64 + random.nextInt(449);
+                }
+                return roll < 98 ? 1024 + random.nextInt(7169) : 8192 + random.nextInt(8193);
+            default:
+                throw new IllegalArgumentException("Unknown size mix: " + sizeMix);
+        }
+    }
+
+    private Prompt prompt(Random random) {
+        switch (riskMix) {
+            case "low":
+                return LOW;
+            case "critical":
+                return CRITICAL;
+            case "mixed":
+                int roll = random.nextInt(100);
+                return roll < 70 ? LOW : roll < 90 ? HIGH : CRITICAL;
+            default:
+                throw new IllegalArgumentException("Unknown risk mix: " + riskMix);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TrafficMix{malicious=%d%%, size=%s, risk=%s}", maliciousPercent, sizeMix, riskMix);
+    }
+
+    public static final class Request {
+        private final Prompt prompt;
+        private final String input;
+        private final boolean malicious;
+
+        Request(Prompt prompt, String input, boolean malicious) {
+            this.prompt = prompt;
+            this.input = input;
+            this.malicious = malicious;
+        }
+
+        public Prompt getPrompt() {
+            return prompt;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public boolean isMalicious() {
+            return malicious;
+        }
+    }
+}
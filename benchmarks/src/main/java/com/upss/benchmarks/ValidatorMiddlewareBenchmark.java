@@ -0,0 +1,63 @@
+package com.upss.benchmarks;
+
+import com.upss.core.Prompt;
+import com.upss.middleware.PipelineResult;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ValidatorMiddleware#process} over 64 B to 1 MB of input, with the
+ * length limit lifted so every size reaches the encoding and path-traversal
+ * checks. Dirty inputs carry path-traversal sequences, which only fail
+ * critical prompts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=off")
+public class ValidatorMiddlewareBenchmark {
+
+    @Param({"64", "1024", "16384", "262144", "1048576"})
+    public int sizeBytes;
+
+    @Param({"ASCII", "MIXED"})
+    public BenchmarkInputs.Script script;
+
+    @Param({"0", "1", "16"})
+    public int matchesPerKb;
+
+    @Param({"critical", "low"})
+    public String riskLevel;
+
+    private ValidatorMiddleware validator;
+    private Prompt prompt;
+    private String input;
+
+    @Setup
+    public void setUp() {
+        validator = new ValidatorMiddleware(Integer.MAX_VALUE);
+        prompt = new Prompt("benchmark", "You are a helpful assistant.", "1.0.0", riskLevel);
+        input = BenchmarkInputs.generate(sizeBytes, script, matchesPerKb, BenchmarkInputs.TRAVERSAL_TOKENS, 42);
+    }
+
+    @Benchmark
+    public boolean process() {
+        PipelineResult result = new PipelineResult(prompt, input);
+        validator.process(result);
+        return result.isPassed();
+    }
+}
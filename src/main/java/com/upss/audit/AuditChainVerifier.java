@@ -0,0 +1,340 @@
+package com.upss.audit;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Checks the hash chain of an audit log: every batch of every segment is
+ * re-hashed and compared with its {@code .chain} entry, sealed segments are
+ * checked against the Merkle root in their {@code .seal} file, and each
+ * segment must continue the chain head of the one before it. The first
+ * segment of a stream must start from the genesis value, so deleting the
+ * oldest segments is detected as well; a log whose oldest segments were
+ * pruned on purpose verifies only against a {@link #withTrustedAnchor trusted
+ * anchor}. Segments rotated before chaining was turned on, and records an
+ * active file already had at that point, are reported as unchained; such
+ * segments are accepted only ahead of a chain that starts from genesis.
+ * Segments are independent until the chain is linked, so they are verified
+ * in parallel.
+ * Per-process {@link AuditStreams streams} each carry their own chain and are
+ * verified one after another.
+ */
+public class AuditChainVerifier {
+    private final Path activeLog;
+    private final byte[] hmacKey;
+    private final int parallelism;
+    private final Set<String> trustedAnchors = new HashSet<>();
+
+    public AuditChainVerifier(String auditLogPath, byte[] hmacKey, int parallelism) {
+        this.activeLog = Paths.get(auditLogPath);
+        this.hmacKey = hmacKey == null ? null : hmacKey.clone();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public AuditChainVerifier(String auditLogPath, byte[] hmacKey) {
+        this(auditLogPath, hmacKey, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Also accepts a stream whose first remaining segment starts from
+     * {@code head}, the hex chain head (as in the {@code .seal} file) of the
+     * last segment pruned from it. Record it somewhere the log's writers
+     * cannot change before deleting the segments.
+     */
+    public AuditChainVerifier withTrustedAnchor(String head) {
+        trustedAnchors.add(AuditHashChain.hex(AuditHashChain.unhex(head)));
+        return this;
+    }
+
+    public Report verify() throws IOException {
+        List<SegmentResult> results = new ArrayList<>();
+        for (Path stream : AuditStreams.listStreams(activeLog)) {
+            results.addAll(verifyStream(stream));
+        }
+        return new Report(results);
+    }
+
+    private List<SegmentResult> verifyStream(Path streamLog) throws IOException {
+        List<Long> sequences = AuditSegments.listSequences(streamLog);
+        List<Path> segments = new ArrayList<>();
+        for (long sequence : sequences) {
+            segments.add(AuditSegments.segmentPath(streamLog, sequence));
+        }
+        segments.add(streamLog);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<SegmentResult> results;
+        try {
+            results = pool.submit(() -> segments.parallelStream()
+                    .map(segment -> verifySegment(segment, segment == streamLog))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying audit chain", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Audit chain verification failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 1; i < sequences.size(); i++) {
+            if (sequences.get(i) != sequences.get(i - 1) + 1) {
+                results.get(i).fail("segments " + (sequences.get(i - 1) + 1) + ".." + (sequences.get(i) - 1) + " are missing");
+            }
+        }
+        int chained = 0;
+        while (chained < results.size() && results.get(chained).unchained) {
+            chained++;
+        }
+        // Without a genesis-seeded chain after them, missing chain files may have been deleted
+        boolean legacy = chained < results.size() && results.get(chained).seed != null
+                && Arrays.equals(results.get(chained).seed, AuditHashChain.GENESIS);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).unchained && (i >= chained || !legacy)) {
+                results.get(i).fail("has no chain file");
+            }
+        }
+        if (chained == results.size()) {
+            return results;
+        }
+        SegmentResult first = results.get(chained);
+        if (first.seed != null && !Arrays.equals(first.seed, AuditHashChain.GENESIS)
+                && !trustedAnchors.contains(AuditHashChain.hex(first.seed))) {
+            first.fail("does not start the chain; earlier segments are missing");
+        }
+        for (int i = 1; i < results.size(); i++) {
+            SegmentResult previous = results.get(i - 1);
+            SegmentResult current = results.get(i);
+            if (previous.head != null && current.seed != null && !Arrays.equals(previous.head, current.seed)) {
+                current.fail("does not continue the chain of " + previous.getSegment());
+            }
+        }
+        return results;
+    }
+
+    private SegmentResult verifySegment(Path base, boolean active) {
+        SegmentResult result = new SegmentResult(base.getFileName().toString());
+        Path chainPath = AuditHashChain.chainPath(base);
+        if (!Files.exists(chainPath)) {
+            if (active && (!Files.exists(base) || sizeOf(base) == 0)) {
+                return result;
+            }
+            result.unchained = true;
+            return result;
+        }
+
+        try {
+            AuditHashChain.ChainFile chain = AuditHashChain.ChainFile.read(chainPath);
+            AuditHashChain.Hasher hasher = new AuditHashChain.Hasher(hmacKey);
+            result.seed = chain.seed;
+            result.unchainedBytes = chain.start;
+            byte[] head = chain.seed;
+            List<byte[]> leaves = new ArrayList<>(chain.leaves.size());
+
+            try (InputStream in = openData(base)) {
+                if (in.skip(chain.start) != chain.start) {
+                    return result.fail("is shorter than the records that predate its chain");
+                }
+                for (int batch = 0; batch < chain.leaves.size(); batch++) {
+                    byte[] bytes = in.readNBytes(Math.toIntExact(chain.lengths.get(batch)));
+                    if (bytes.length != chain.lengths.get(batch)) {
+                        return result.fail("is truncated in batch " + batch);
+                    }
+                    int newlines = 0;
+                    for (byte b : bytes) {
+                        if (b == '\n') {
+                            newlines++;
+                        }
+                    }
+                    byte[] leaf = hasher.leaf(bytes, 0, bytes.length);
+                    head = hasher.link(head, leaf);
+                    if (newlines != chain.records.get(batch) || !Arrays.equals(leaf, chain.leaves.get(batch))) {
+                        return result.fail("has modified records in batch " + batch);
+                    }
+                    if (!Arrays.equals(head, chain.heads.get(batch))) {
+                        return result.fail("has a broken chain link at batch " + batch);
+                    }
+                    leaves.add(leaf);
+                    result.records += newlines;
+                }
+                if (in.read() != -1) {
+                    return result.fail("has records that are not covered by the chain");
+                }
+            }
+            result.head = head;
+
+            Path sealPath = AuditHashChain.sealPath(base);
+            if (Files.exists(sealPath)) {
+                Map<String, String> seal = AuditHashChain.readSeal(sealPath);
+                if (!AuditHashChain.hex(chain.seed).equals(seal.get("seed"))
+                        || !AuditHashChain.hex(head).equals(seal.get("head"))
+                        || !Long.toString(result.records).equals(seal.get("records"))) {
+                    return result.fail("does not match its seal");
+                }
+                if (!AuditHashChain.hex(hasher.merkleRoot(leaves)).equals(seal.get("merkleRoot"))) {
+                    return result.fail("does not match its Merkle root");
+                }
+                result.sealed = true;
+            } else if (!active && Files.exists(AuditSegments.indexPath(base))) {
+                return result.fail("is indexed but has no seal");
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            return result.fail("could not be read: " + e.getMessage());
+        }
+    }
+
+    private InputStream openData(Path base) throws IOException {
+        Path compressed = base.resolveSibling(base.getFileName() + AuditSegments.COMPRESSED_SUFFIX);
+        if (!Files.exists(base) && Files.exists(compressed)) {
+            return new GZIPInputStream(Files.newInputStream(compressed), 64 * 1024);
+        }
+        return new BufferedInputStream(Files.newInputStream(base), 64 * 1024);
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public static class SegmentResult {
+        private final String segment;
+        private String problem;
+        private long records;
+        private boolean sealed;
+        private boolean unchained;
+        private long unchainedBytes;
+        private byte[] seed;
+        private byte[] head;
+
+        SegmentResult(String segment) {
+            this.segment = segment;
+        }
+
+        SegmentResult fail(String problem) {
+            if (this.problem == null) {
+                this.problem = problem;
+            }
+            return this;
+        }
+
+        public String getSegment() {
+            return segment;
+        }
+
+        public boolean isValid() {
+            return problem == null;
+        }
+
+        public String getProblem() {
+            return problem;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public boolean isSealed() {
+            return sealed;
+        }
+
+        /**
+         * Bytes at the start of the segment written before chaining was
+         * turned on, which the chain does not protect.
+         */
+        public long getUnchainedBytes() {
+            return unchainedBytes;
+        }
+
+        @Override
+        public String toString() {
+            if (!isValid()) {
+                return String.format("%s FAILED: %s", segment, problem);
+            }
+            if (unchained) {
+                return segment + " UNCHAINED (predates the hash chain)";
+            }
+            return String.format("%s OK (%d records%s%s)", segment, records, sealed ? ", sealed" : "",
+                    unchainedBytes > 0 ? ", " + unchainedBytes + " bytes predate the chain" : "");
+        }
+    }
+
+    public static class Report {
+        private final List<SegmentResult> results;
+
+        Report(List<SegmentResult> results) {
+            this.results = results;
+        }
+
+        public boolean isValid() {
+            return results.stream().allMatch(SegmentResult::isValid);
+        }
+
+        public List<SegmentResult> getResults() {
+            return results;
+        }
+
+        public List<SegmentResult> getFailures() {
+            return results.stream().filter(r -> !r.isValid()).collect(Collectors.toList());
+        }
+
+        public long getRecords() {
+            return results.stream().mapToLong(SegmentResult::getRecords).sum();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String logPath = "./config/audit/prompts.log";
+        byte[] key = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> anchors = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--log":
+                    logPath = args[i + 1];
+                    break;
+                case "--hmac-key":
+                    key = AuditHashChain.unhex(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--anchor":
+                    anchors.add(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Usage: AuditChainVerifier [--log path] [--hmac-key hex] [--threads n]"
+                            + " [--anchor hex]...");
+                    System.exit(2);
+            }
+        }
+
+        AuditChainVerifier verifier = new AuditChainVerifier(logPath, key, threads);
+        anchors.forEach(verifier::withTrustedAnchor);
+        Report report = verifier.verify();
+        report.getResults().forEach(System.out::println);
+        System.out.println(report.isValid()
+                ? "Audit chain intact: " + report.getRecords() + " records"
+                : "Audit chain BROKEN in " + report.getFailures().size() + " segment(s)");
+        if (!report.isValid()) {
+            System.exit(1);
+        }
+    }
+}
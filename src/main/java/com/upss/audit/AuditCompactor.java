@@ -0,0 +1,114 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the merged, time-ordered view of every stream of an audit log into a
+ * single new log, rotated, indexed and optionally hash-chained according to
+ * the given {@link AuditLogOptions}. The source streams are left untouched,
+ * so the compactor can run while processes are still writing; records
+ * written after it started may or may not be included.
+ */
+public class AuditCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(AuditCompactor.class);
+    private static final int BATCH_SIZE = 512;
+
+    private final AuditQueryEngine engine;
+
+    public AuditCompactor(String auditLogPath) {
+        this.engine = new AuditQueryEngine(auditLogPath);
+    }
+
+    /**
+     * Returns the number of records written to {@code target}, which must not
+     * exist yet.
+     */
+    public long compactTo(Path target, AuditLogOptions options) throws IOException {
+        if (Files.exists(target) || !AuditSegments.listSequences(target).isEmpty()) {
+            throw new IOException("Compaction target already exists: " + target);
+        }
+        Path source = engine.getActiveLog().toAbsolutePath().normalize();
+        if (target.toAbsolutePath().normalize().getParent().equals(source.getParent())
+                && target.getFileName().toString().startsWith(source.getFileName() + AuditStreams.STREAM_MARKER)) {
+            throw new IOException("Compaction target would be read as a stream of its source: " + target);
+        }
+
+        long written = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (SegmentedAuditLog log = new SegmentedAuditLog(target, options);
+             Stream<AuditRecord> records = engine.query(new AuditQuery())) {
+            Iterator<AuditRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next().getLine());
+                if (batch.size() == BATCH_SIZE) {
+                    log.appendBatch(batch);
+                    written += batch.size();
+                    batch.clear();
+                }
+            }
+            log.appendBatch(batch);
+            written += batch.size();
+            log.rotate();
+        }
+        logger.info("Compacted {} audit records from {} into {}", written, source, target);
+        return written;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String logPath = "./config/audit/prompts.log";
+        String outPath = null;
+        AuditLogOptions options = new AuditLogOptions();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--compress":
+                    options.compressSegments(true);
+                    continue;
+                case "--hash-chain":
+                    options.hashChain(true);
+                    continue;
+                default:
+                    break;
+            }
+            if (i + 1 >= args.length) {
+                usage();
+                return;
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--log":
+                    logPath = value;
+                    break;
+                case "--out":
+                    outPath = value;
+                    break;
+                case "--segment-bytes":
+                    options.segmentBytes(Long.parseLong(value));
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        }
+        if (outPath == null) {
+            usage();
+            return;
+        }
+        long written = new AuditCompactor(logPath).compactTo(Paths.get(outPath), options);
+        System.out.println("Compacted " + written + " records into " + outPath);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: AuditCompactor --out path [--log path] [--segment-bytes n] [--compress] [--hash-chain]");
+        System.exit(2);
+    }
+}
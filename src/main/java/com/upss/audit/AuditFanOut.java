@@ -0,0 +1,153 @@
+package com.upss.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sends every entry to several {@link AuditSink}s. Each sink has its own
+ * queue and writer thread, so a slow or failing sink only affects itself:
+ * with {@link BackgroundAuditWriter.OverflowPolicy#DROP} it loses entries,
+ * with {@link BackgroundAuditWriter.OverflowPolicy#BLOCK} it slows down
+ * callers once its queue is full.
+ */
+public class AuditFanOut implements Closeable {
+    private final List<BackgroundAuditWriter> writers = new CopyOnWriteArrayList<>();
+
+    public AuditFanOut addSink(AuditSink sink, int queueCapacity, int maxBatchSize,
+                               BackgroundAuditWriter.OverflowPolicy overflowPolicy) {
+        writers.add(new BackgroundAuditWriter(sink, queueCapacity, maxBatchSize, overflowPolicy));
+        return this;
+    }
+
+    public void submit(String entry) {
+        for (BackgroundAuditWriter writer : writers) {
+            writer.submit(entry);
+        }
+    }
+
+    /**
+     * Waits until every sink has been handed the entries submitted so far.
+     */
+    public void flush() {
+        for (BackgroundAuditWriter writer : writers) {
+            writer.flush();
+        }
+    }
+
+    public List<SinkStats> getSinkStats() {
+        List<SinkStats> stats = new ArrayList<>(writers.size());
+        for (BackgroundAuditWriter writer : writers) {
+            stats.add(new SinkStats(writer));
+        }
+        return Collections.unmodifiableList(stats);
+    }
+
+    public int getSinkCount() {
+        return writers.size();
+    }
+
+    /**
+     * Closes every sink, reporting the first failure after trying them all.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (BackgroundAuditWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        writers.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Point-in-time counters of one sink.
+     */
+    public static final class SinkStats {
+        private final String name;
+        private final BackgroundAuditWriter.OverflowPolicy overflowPolicy;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long lag;
+        private final long submitted;
+        private final long written;
+        private final long failed;
+        private final long dropped;
+        private final long lastWriteMillis;
+
+        SinkStats(BackgroundAuditWriter writer) {
+            this.name = writer.getSink().getName();
+            this.overflowPolicy = writer.getOverflowPolicy();
+            this.queueDepth = writer.getQueueDepth();
+            this.queueCapacity = writer.getQueueCapacity();
+            this.lag = writer.getLag();
+            this.submitted = writer.getSubmittedCount();
+            this.written = writer.getWrittenCount();
+            this.failed = writer.getFailedCount();
+            this.dropped = writer.getDroppedCount();
+            this.lastWriteMillis = writer.getLastWriteMillis();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BackgroundAuditWriter.OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Entries accepted but not yet handed to the sink.
+         */
+        public long getLag() {
+            return lag;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getLastWriteMillis() {
+            return lastWriteMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "SinkStats{" + name + ", policy=" + overflowPolicy + ", queue=" + queueDepth + "/" + queueCapacity
+                    + ", lag=" + lag + ", written=" + written + ", failed=" + failed + ", dropped=" + dropped + "}";
+        }
+    }
+}
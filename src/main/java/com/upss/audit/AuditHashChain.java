@@ -0,0 +1,298 @@
+package com.upss.audit;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Rolling hash chain over the batches written to an audit log.
+ *
+ * <p>Each segment has a {@code .chain} sidecar: a {@code SEED} line carrying
+ * the chain head it continues from and, when chaining was turned on for a
+ * file that already had records, the offset the chain starts at; then one
+ * line per batch with
+ * {@code records bytes leaf head}, where {@code leaf = H(0x00 || batch)} and
+ * {@code head = H(previousHead || leaf)}. When the segment is sealed a
+ * {@code .seal} file records the final head and a Merkle root over the leaves.
+ * Editing, dropping or reordering lines, batches or whole segments breaks the
+ * chain; see {@link AuditChainVerifier}.
+ */
+public class AuditHashChain implements Closeable {
+    public static final String CHAIN_SUFFIX = ".chain";
+    public static final String SEAL_SUFFIX = ".seal";
+    static final byte[] GENESIS = new byte[32];
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Hasher hasher;
+    private BufferedWriter out;
+    private byte[] head;
+
+    public AuditHashChain(byte[] hmacKey) {
+        this.hasher = new Hasher(hmacKey);
+    }
+
+    /**
+     * Opens (or resumes) the chain file of the active segment. A new file
+     * continues from {@code seed}, the head of the previous segment, and
+     * covers the segment from byte {@code start} on.
+     */
+    public void open(Path chainPath, byte[] seed, long start) throws IOException {
+        if (Files.exists(chainPath) && Files.size(chainPath) > 0) {
+            head = lastHead(chainPath);
+            out = Files.newBufferedWriter(chainPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } else {
+            head = seed.clone();
+            out = Files.newBufferedWriter(chainPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            out.write("SEED " + hex(head) + (start > 0 ? " " + start : "") + "\n");
+            out.flush();
+        }
+    }
+
+    public void append(int records, byte[] batch) throws IOException {
+        byte[] leaf = hasher.leaf(batch, 0, batch.length);
+        head = hasher.link(head, leaf);
+        out.write(records + " " + batch.length + " " + hex(leaf) + " " + hex(head) + "\n");
+        out.flush();
+    }
+
+    public byte[] getHead() {
+        return head.clone();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    public static Path chainPath(Path segmentBase) {
+        return segmentBase.resolveSibling(segmentBase.getFileName() + CHAIN_SUFFIX);
+    }
+
+    public static Path sealPath(Path segmentBase) {
+        return segmentBase.resolveSibling(segmentBase.getFileName() + SEAL_SUFFIX);
+    }
+
+    /**
+     * Head to continue from after the given chain file, or the genesis value
+     * if there is none.
+     */
+    public static byte[] lastHead(Path chainPath) throws IOException {
+        if (!Files.exists(chainPath)) {
+            return GENESIS.clone();
+        }
+        String last = null;
+        for (String line : Files.readAllLines(chainPath, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                last = line;
+            }
+        }
+        if (last == null) {
+            return GENESIS.clone();
+        }
+        String[] parts = last.split(" ");
+        return unhex(parts[parts.length - 1]);
+    }
+
+    /**
+     * Writes the {@code .seal} file of a rotated segment from its chain file.
+     */
+    public static Map<String, String> writeSeal(Path segmentBase, String segmentFileName, byte[] hmacKey)
+            throws IOException {
+        Hasher hasher = new Hasher(hmacKey);
+        ChainFile chain = ChainFile.read(chainPath(segmentBase));
+        Map<String, String> seal = new LinkedHashMap<>();
+        seal.put("segment", segmentFileName);
+        seal.put("algorithm", hasher.algorithm());
+        seal.put("records", Long.toString(chain.totalRecords()));
+        seal.put("batches", Integer.toString(chain.leaves.size()));
+        seal.put("seed", hex(chain.seed));
+        seal.put("head", chain.heads.isEmpty() ? hex(chain.seed) : hex(chain.heads.get(chain.heads.size() - 1)));
+        seal.put("merkleRoot", hex(hasher.merkleRoot(chain.leaves)));
+
+        StringBuilder text = new StringBuilder();
+        seal.forEach((key, value) -> text.append(key).append('=').append(value).append('\n'));
+        Path sealPath = sealPath(segmentBase);
+        Path tmp = sealPath.resolveSibling(sealPath.getFileName() + ".tmp");
+        Files.write(tmp, text.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, sealPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return seal;
+    }
+
+    public static Map<String, String> readSeal(Path sealPath) throws IOException {
+        Map<String, String> seal = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(sealPath, StandardCharsets.UTF_8)) {
+            int eq = line.indexOf('=');
+            if (eq > 0) {
+                seal.put(line.substring(0, eq), line.substring(eq + 1));
+            }
+        }
+        return seal;
+    }
+
+    static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    static byte[] unhex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * Parsed {@code .chain} sidecar.
+     */
+    static class ChainFile {
+        final byte[] seed;
+        final long start;
+        final List<Integer> records = new ArrayList<>();
+        final List<Long> lengths = new ArrayList<>();
+        final List<byte[]> leaves = new ArrayList<>();
+        final List<byte[]> heads = new ArrayList<>();
+
+        private ChainFile(byte[] seed, long start) {
+            this.seed = seed;
+            this.start = start;
+        }
+
+        static ChainFile read(Path chainPath) throws IOException {
+            List<String> lines = Files.readAllLines(chainPath, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).startsWith("SEED ")) {
+                throw new IOException("Malformed audit chain file: " + chainPath);
+            }
+            String[] header = lines.get(0).split(" ");
+            if (header.length > 3) {
+                throw new IOException("Malformed audit chain file: " + chainPath);
+            }
+            ChainFile chain = new ChainFile(unhex(header[1]), header.length == 3 ? Long.parseLong(header[2]) : 0);
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(" ");
+                if (parts.length != 4) {
+                    throw new IOException("Malformed audit chain entry in " + chainPath + ": " + line);
+                }
+                chain.records.add(Integer.parseInt(parts[0]));
+                chain.lengths.add(Long.parseLong(parts[1]));
+                chain.leaves.add(unhex(parts[2]));
+                chain.heads.add(unhex(parts[3]));
+            }
+            return chain;
+        }
+
+        long totalRecords() {
+            long total = 0;
+            for (int count : records) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * SHA-256, or HMAC-SHA256 when a key is configured. Not thread-safe.
+     */
+    static class Hasher {
+        private final MessageDigest digest;
+        private final Mac mac;
+
+        Hasher(byte[] hmacKey) {
+            try {
+                if (hmacKey != null) {
+                    this.mac = Mac.getInstance("HmacSHA256");
+                    this.mac.init(new SecretKeySpec(hmacKey, "HmacSHA256"));
+                    this.digest = null;
+                } else {
+                    this.digest = MessageDigest.getInstance("SHA-256");
+                    this.mac = null;
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Audit chain hash algorithm not available", e);
+            }
+        }
+
+        String algorithm() {
+            return mac != null ? "HmacSHA256" : "SHA-256";
+        }
+
+        void update(byte b) {
+            if (mac != null) {
+                mac.update(b);
+            } else {
+                digest.update(b);
+            }
+        }
+
+        void update(byte[] bytes, int offset, int length) {
+            if (mac != null) {
+                mac.update(bytes, offset, length);
+            } else {
+                digest.update(bytes, offset, length);
+            }
+        }
+
+        byte[] finish() {
+            return mac != null ? mac.doFinal() : digest.digest();
+        }
+
+        byte[] leaf(byte[] batch, int offset, int length) {
+            update((byte) 0);
+            update(batch, offset, length);
+            return finish();
+        }
+
+        byte[] link(byte[] previous, byte[] leaf) {
+            update(previous, 0, previous.length);
+            update(leaf, 0, leaf.length);
+            return finish();
+        }
+
+        byte[] node(byte[] left, byte[] right) {
+            update((byte) 1);
+            update(left, 0, left.length);
+            update(right, 0, right.length);
+            return finish();
+        }
+
+        byte[] merkleRoot(List<byte[]> leaves) {
+            if (leaves.isEmpty()) {
+                return GENESIS.clone();
+            }
+            List<byte[]> level = new ArrayList<>(leaves);
+            while (level.size() > 1) {
+                List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+                for (int i = 0; i < level.size(); i += 2) {
+                    // An odd node out is promoted unchanged to the next level
+                    next.add(i + 1 < level.size() ? node(level.get(i), level.get(i + 1)) : level.get(i));
+                }
+                level = next;
+            }
+            return level.get(0);
+        }
+    }
+}
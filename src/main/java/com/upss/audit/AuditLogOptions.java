@@ -0,0 +1,166 @@
+package com.upss.audit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How {@link com.upss.core.LightweightAuditor} persists its entries. The
+ * defaults reproduce the original behaviour: one file, written synchronously.
+ */
+public class AuditLogOptions {
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private long maxSegmentBytes;
+    private boolean compressSegments;
+    private int queueCapacity;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private boolean hashChain;
+    private byte[] hmacKey;
+    private final List<SinkSpec> sinks = new ArrayList<>();
+    private String writerId;
+
+    /**
+     * Rotates the log into indexed segments of roughly this size; {@code 0}
+     * never rotates.
+     */
+    public AuditLogOptions segmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+        return this;
+    }
+
+    public AuditLogOptions compressSegments(boolean compressSegments) {
+        this.compressSegments = compressSegments;
+        return this;
+    }
+
+    /**
+     * Hands entries to a background writer through a queue of this capacity
+     * instead of writing them on the caller's thread.
+     */
+    public AuditLogOptions asyncQueue(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public AuditLogOptions maxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Chains every written batch into a hash chain and seals each segment with
+     * a Merkle root. Implies the background writer, so hashing never runs on
+     * the caller's thread. With a key the chain uses HMAC-SHA256, so it cannot
+     * be recomputed by someone who can only edit the files.
+     */
+    public AuditLogOptions hashChain(boolean hashChain) {
+        this.hashChain = hashChain;
+        return this;
+    }
+
+    public AuditLogOptions hmacKey(byte[] hmacKey) {
+        this.hmacKey = hmacKey == null ? null : hmacKey.clone();
+        this.hashChain = hashChain || hmacKey != null;
+        return this;
+    }
+
+    /**
+     * Also sends every entry to {@code sink}, through its own queue of
+     * {@code queueCapacity} entries. Implies the background writer; the local
+     * file keeps blocking on a full queue whatever the extra sinks do.
+     */
+    public AuditLogOptions addSink(AuditSink sink, int queueCapacity, BackgroundAuditWriter.OverflowPolicy overflowPolicy) {
+        sinks.add(new SinkSpec(sink, queueCapacity, overflowPolicy));
+        return this;
+    }
+
+    /**
+     * Writes this process's entries to its own {@link AuditStreams stream} of
+     * the log instead of the shared file, for logs written by several JVMs at
+     * once. Readers merge the streams back into one time-ordered view.
+     */
+    public AuditLogOptions processStream(String writerId) {
+        this.writerId = writerId;
+        return this;
+    }
+
+    /**
+     * {@link #processStream(String)} with {@link AuditStreams#defaultWriterId()}.
+     */
+    public AuditLogOptions processStream() {
+        return processStream(AuditStreams.defaultWriterId());
+    }
+
+    public long getMaxSegmentBytes() {
+        return maxSegmentBytes;
+    }
+
+    public boolean isCompressSegments() {
+        return compressSegments;
+    }
+
+    public int getQueueCapacity() {
+        if (queueCapacity == 0 && (hashChain || !sinks.isEmpty())) {
+            return DEFAULT_QUEUE_CAPACITY;
+        }
+        return queueCapacity;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public boolean isHashChain() {
+        return hashChain;
+    }
+
+    public byte[] getHmacKey() {
+        return hmacKey == null ? null : hmacKey.clone();
+    }
+
+    public List<SinkSpec> getSinks() {
+        return Collections.unmodifiableList(sinks);
+    }
+
+    public String getWriterId() {
+        return writerId;
+    }
+
+    public boolean isAsync() {
+        return getQueueCapacity() > 0;
+    }
+
+    /**
+     * Whether entries go through a {@link SegmentedAuditLog} rather than the
+     * plain single-file writer.
+     */
+    public boolean isSegmented() {
+        return maxSegmentBytes > 0 || isAsync() || writerId != null;
+    }
+
+    public static final class SinkSpec {
+        private final AuditSink sink;
+        private final int queueCapacity;
+        private final BackgroundAuditWriter.OverflowPolicy overflowPolicy;
+
+        SinkSpec(AuditSink sink, int queueCapacity, BackgroundAuditWriter.OverflowPolicy overflowPolicy) {
+            this.sink = sink;
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public AuditSink getSink() {
+            return sink;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public BackgroundAuditWriter.OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.upss.audit;
+
+/**
+ * Decides how much of the PASSED traffic {@link com.upss.middleware.impl.AuditorMiddleware}
+ * writes. FAILED executions and security events are always written verbatim.
+ */
+public class AuditPolicy {
+    public static final long DEFAULT_ROLLUP_WINDOW_MILLIS = 60_000;
+
+    public enum Mode {
+        /** Every execution gets its own line. */
+        FULL,
+        /** A random fraction of PASSED executions gets its own line. */
+        SAMPLED,
+        /** PASSED executions are counted per (prompt, user, window) and written as rollups. */
+        AGGREGATED
+    }
+
+    private final Mode mode;
+    private final double sampleRate;
+    private final long windowMillis;
+
+    private AuditPolicy(Mode mode, double sampleRate, long windowMillis) {
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        this.windowMillis = windowMillis;
+    }
+
+    public static AuditPolicy full() {
+        return new AuditPolicy(Mode.FULL, 1.0, 0);
+    }
+
+    public static AuditPolicy sampled(double sampleRate) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        return new AuditPolicy(Mode.SAMPLED, sampleRate, 0);
+    }
+
+    public static AuditPolicy aggregated() {
+        return aggregated(DEFAULT_ROLLUP_WINDOW_MILLIS);
+    }
+
+    public static AuditPolicy aggregated(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Rollup window must be positive: " + windowMillis);
+        }
+        return new AuditPolicy(Mode.AGGREGATED, 0.0, windowMillis);
+    }
+
+    /**
+     * Parses {@code full}, {@code sampled:<rate>} or {@code aggregated[:<seconds>]}.
+     */
+    public static AuditPolicy parse(String spec) {
+        String[] parts = spec.trim().toLowerCase().split(":", 2);
+        switch (parts[0]) {
+            case "full":
+                return full();
+            case "sampled":
+                return sampled(parts.length > 1 ? Double.parseDouble(parts[1]) : 0.1);
+            case "aggregated":
+                return parts.length > 1 ? aggregated(Long.parseLong(parts[1]) * 1000) : aggregated();
+            default:
+                throw new IllegalArgumentException("Unknown audit policy: " + spec);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case SAMPLED:
+                return "AuditPolicy{SAMPLED, rate=" + sampleRate + "}";
+            case AGGREGATED:
+                return "AuditPolicy{AGGREGATED, window=" + windowMillis + "ms}";
+            default:
+                return "AuditPolicy{FULL}";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.upss.audit;
+
+/**
+ * Criteria for {@link AuditQueryEngine}. Unset criteria match everything.
+ */
+public class AuditQuery {
+    private String promptId;
+    private String user;
+    private String status;
+    private String action;
+    private long from = Long.MIN_VALUE;
+    private long to = Long.MAX_VALUE;
+
+    public AuditQuery promptId(String promptId) {
+        this.promptId = promptId;
+        return this;
+    }
+
+    public AuditQuery user(String user) {
+        this.user = user;
+        return this;
+    }
+
+    public AuditQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public AuditQuery action(String action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * Restricts results to {@code from <= timestamp < to} (epoch millis).
+     */
+    public AuditQuery between(long from, long to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public String getPromptId() {
+        return promptId;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public boolean overlaps(long minTimestamp, long maxTimestamp) {
+        return maxTimestamp >= from && minTimestamp < to;
+    }
+
+    public boolean matches(AuditRecord record) {
+        return record.getTimestamp() >= from && record.getTimestamp() < to
+                && (promptId == null || promptId.equals(record.getPromptId()))
+                && (user == null || user.equals(record.getUser()))
+                && (status == null || status.equals(record.getStatus()))
+                && (action == null || action.equals(record.getAction()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AuditQuery{prompt='%s', user='%s', status='%s', action='%s', from=%d, to=%d}",
+                promptId, user, status, action, from, to);
+    }
+}
@@ -0,0 +1,85 @@
+package com.upss.audit;
+
+import java.util.stream.Stream;
+
+/**
+ * Command line front end for {@link AuditQueryEngine}, e.g.
+ * {@code --prompt securityAnalyst --user alice --status FAILED --from 2026-02-03 --to 2026-02-04}.
+ */
+public class AuditQueryCli {
+
+    public static void main(String[] args) {
+        String logPath = "./config/audit/prompts.log";
+        AuditQuery query = new AuditQuery();
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        boolean countOnly = false;
+        boolean showStats = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--count":
+                    countOnly = true;
+                    continue;
+                case "--stats":
+                    showStats = true;
+                    continue;
+                default:
+                    break;
+            }
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+                return;
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--log":
+                    logPath = value;
+                    break;
+                case "--prompt":
+                    query.promptId(value);
+                    break;
+                case "--user":
+                    query.user(value);
+                    break;
+                case "--status":
+                    query.status(value);
+                    break;
+                case "--action":
+                    query.action(value);
+                    break;
+                case "--from":
+                    from = AuditRecord.parseTimestamp(value);
+                    break;
+                case "--to":
+                    to = AuditRecord.parseTimestamp(value);
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+                    return;
+            }
+        }
+        query.between(from, to);
+
+        AuditQueryEngine engine = new AuditQueryEngine(logPath);
+        AuditQueryEngine.QueryStats stats = new AuditQueryEngine.QueryStats();
+        try (Stream<AuditRecord> records = engine.query(query, stats)) {
+            if (countOnly) {
+                System.out.println(records.count());
+            } else {
+                records.forEach(record -> System.out.println(record.getLine()));
+            }
+        }
+        if (showStats) {
+            System.err.println(stats);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: AuditQueryCli [--log path] [--prompt id] [--user name] [--status PASSED|FAILED]"
+                + " [--action EXECUTE|MODIFICATION|SECURITY_EVENT] [--from yyyy-MM-dd[ HH:mm:ss]]"
+                + " [--to yyyy-MM-dd[ HH:mm:ss]] [--count] [--stats]");
+    }
+}
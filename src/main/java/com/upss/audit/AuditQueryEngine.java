@@ -0,0 +1,319 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Answers {@link AuditQuery} questions over the sealed segments of an audit log
+ * and its active file. Sealed segments are pruned through their
+ * {@link AuditSegmentIndex}; only candidate blocks are read, one at a time, so
+ * memory use is bounded by the block size regardless of log volume.
+ *
+ * <p>When several processes write their own {@link AuditStreams stream} of the
+ * log, each stream is read this way and the results are merged by timestamp
+ * into a single time-ordered view; records with the same timestamp keep the
+ * order of their stream.
+ */
+public class AuditQueryEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AuditQueryEngine.class);
+    private final Path activeLog;
+
+    public AuditQueryEngine(String auditLogPath) {
+        this.activeLog = Paths.get(auditLogPath);
+    }
+
+    public Stream<AuditRecord> query(AuditQuery query) {
+        return query(query, new QueryStats());
+    }
+
+    /**
+     * Lazily streams matching records in log order. The stream holds file
+     * handles and should be closed, e.g. with try-with-resources.
+     */
+    public Stream<AuditRecord> query(AuditQuery query, QueryStats stats) {
+        List<RecordIterator> iterators = new ArrayList<>();
+        try {
+            for (Path stream : AuditStreams.listStreams(activeLog)) {
+                iterators.add(new RecordIterator(stream, query, stats, AuditSegments.listSequences(stream)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list audit segments", e);
+        }
+        if (iterators.size() == 1) {
+            RecordIterator iterator = iterators.get(0);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                    Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+        }
+        MergingIterator iterator = new MergingIterator(iterators);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    public long count(AuditQuery query) {
+        try (Stream<AuditRecord> records = query(query)) {
+            return records.count();
+        }
+    }
+
+    public Path getActiveLog() {
+        return activeLog;
+    }
+
+    /**
+     * How much of the log a query had to touch.
+     */
+    public static class QueryStats {
+        private long segmentsSkipped;
+        private long segmentsSearched;
+        private long blocksRead;
+        private long recordsScanned;
+
+        public long getSegmentsSkipped() {
+            return segmentsSkipped;
+        }
+
+        public long getSegmentsSearched() {
+            return segmentsSearched;
+        }
+
+        public long getBlocksRead() {
+            return blocksRead;
+        }
+
+        public long getRecordsScanned() {
+            return recordsScanned;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("QueryStats{segmentsSkipped=%d, segmentsSearched=%d, blocksRead=%d, recordsScanned=%d}",
+                    segmentsSkipped, segmentsSearched, blocksRead, recordsScanned);
+        }
+    }
+
+    /**
+     * K-way merge of per-stream iterators; holds one pending record per stream.
+     */
+    private static class MergingIterator implements Iterator<AuditRecord> {
+        private final List<RecordIterator> sources;
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparingLong((Head head) -> head.record.getTimestamp()).thenComparingInt(head -> head.source));
+
+        MergingIterator(List<RecordIterator> sources) {
+            this.sources = sources;
+            try {
+                for (int i = 0; i < sources.size(); i++) {
+                    advance(i);
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void advance(int source) {
+            RecordIterator iterator = sources.get(source);
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), source));
+            } else {
+                iterator.close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public AuditRecord next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            try {
+                advance(head.source);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            return head.record;
+        }
+
+        void close() {
+            for (RecordIterator source : sources) {
+                source.close();
+            }
+            heads.clear();
+        }
+
+        private static final class Head {
+            final AuditRecord record;
+            final int source;
+
+            Head(AuditRecord record, int source) {
+                this.record = record;
+                this.source = source;
+            }
+        }
+    }
+
+    private static class RecordIterator implements Iterator<AuditRecord> {
+        private final Path activeLog;
+        private final AuditQuery query;
+        private final QueryStats stats;
+        private final Deque<Long> sequences;
+        private final Deque<String> pending = new ArrayDeque<>();
+        private boolean activeDone;
+        private AuditSegmentIndex index;
+        private FileChannel segment;
+        private BitSet blocks;
+        private int nextBlock = -1;
+        private BufferedReader linearReader;
+        private AuditRecord next;
+
+        RecordIterator(Path activeLog, AuditQuery query, QueryStats stats, List<Long> sequences) {
+            this.activeLog = activeLog;
+            this.query = query;
+            this.stats = stats;
+            this.sequences = new ArrayDeque<>(sequences);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = nextLine();
+                    if (line == null) {
+                        return false;
+                    }
+                    stats.recordsScanned++;
+                    AuditRecord record = AuditRecord.parse(line);
+                    if (record != null && query.matches(record)) {
+                        next = record;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Failed to read audit log", e);
+            }
+        }
+
+        @Override
+        public AuditRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AuditRecord record = next;
+            next = null;
+            return record;
+        }
+
+        private String nextLine() throws IOException {
+            while (true) {
+                if (!pending.isEmpty()) {
+                    return pending.poll();
+                }
+                if (segment != null) {
+                    nextBlock = blocks.nextSetBit(nextBlock + 1);
+                    if (nextBlock >= 0) {
+                        pending.addAll(AuditSegments.readBlock(segment, index, nextBlock));
+                        stats.blocksRead++;
+                        continue;
+                    }
+                    closeSegment();
+                }
+                if (linearReader != null) {
+                    String line = linearReader.readLine();
+                    if (line != null) {
+                        return line;
+                    }
+                    linearReader.close();
+                    linearReader = null;
+                }
+                if (!sequences.isEmpty()) {
+                    openSegment(sequences.poll());
+                    continue;
+                }
+                if (activeDone) {
+                    return null;
+                }
+                activeDone = true;
+                if (Files.exists(activeLog)) {
+                    linearReader = AuditSegments.openReader(activeLog);
+                }
+            }
+        }
+
+        private void openSegment(long sequence) throws IOException {
+            Path base = AuditSegments.segmentPath(activeLog, sequence);
+            Path indexPath = AuditSegments.indexPath(base);
+            if (!Files.exists(indexPath)) {
+                // Rotated but not sealed yet: no index to consult, scan it
+                if (Files.exists(base)) {
+                    stats.segmentsSearched++;
+                    linearReader = AuditSegments.openReader(base);
+                }
+                return;
+            }
+            AuditSegmentIndex candidate = AuditSegmentIndex.read(indexPath);
+            BitSet candidateBlocks = candidate.candidateBlocks(query);
+            if (candidateBlocks.isEmpty()) {
+                stats.segmentsSkipped++;
+                return;
+            }
+            stats.segmentsSearched++;
+            index = candidate;
+            blocks = candidateBlocks;
+            nextBlock = -1;
+            segment = FileChannel.open(base.resolveSibling(candidate.getSegmentFileName()), StandardOpenOption.READ);
+        }
+
+        private void closeSegment() throws IOException {
+            segment.close();
+            segment = null;
+            index = null;
+            blocks = null;
+        }
+
+        void close() {
+            try {
+                if (segment != null) {
+                    closeSegment();
+                }
+                if (linearReader != null) {
+                    linearReader.close();
+                    linearReader = null;
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to close audit segment = {}", e);
+            }
+            sequences.clear();
+            pending.clear();
+            activeDone = true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.upss.audit;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One parsed line of the audit log, e.g.
+ * {@code [2026-02-07 16:43:23] ACTION=EXECUTE | PROMPT=metaMentorSystem | USER=system-admin | STATUS=PASSED}.
+ */
+public class AuditRecord {
+    public static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String line;
+    private final long timestamp;
+    private final Map<String, String> fields;
+
+    private AuditRecord(String line, long timestamp, Map<String, String> fields) {
+        this.line = line;
+        this.timestamp = timestamp;
+        this.fields = fields;
+    }
+
+    public static AuditRecord parse(String line) {
+        if (line == null || line.length() < 22 || line.charAt(0) != '[' || line.charAt(20) != ']') {
+            return null;
+        }
+
+        long timestamp;
+        try {
+            timestamp = LocalDateTime.parse(line.substring(1, 20), TIMESTAMP_FORMAT)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        String lastKey = null;
+        for (String part : line.substring(21).trim().split(" \\| ")) {
+            int eq = part.indexOf('=');
+            if (eq > 0 && part.substring(0, eq).chars().allMatch(c -> c == '_' || Character.isUpperCase(c))) {
+                lastKey = part.substring(0, eq);
+                fields.put(lastKey, part.substring(eq + 1));
+            } else if (lastKey == null) {
+                lastKey = part;
+                fields.put(part, "");
+            } else {
+                // A free-text value (DETAILS, REASON) that itself contained " | "
+                fields.put(lastKey, fields.get(lastKey) + " | " + part);
+            }
+        }
+        return new AuditRecord(line, timestamp, fields);
+    }
+
+    public static long parseTimestamp(String value) {
+        String normalized = value.length() == 10 ? value + " 00:00:00" : value;
+        return LocalDateTime.parse(normalized, TIMESTAMP_FORMAT)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * EXECUTE-style value of ACTION for access entries, otherwise the entry type
+     * (MODIFICATION, SECURITY_EVENT, ...).
+     */
+    public String getAction() {
+        if (fields.containsKey("ACTION")) {
+            return fields.get("ACTION");
+        }
+        return fields.isEmpty() ? null : fields.keySet().iterator().next();
+    }
+
+    public String getPromptId() {
+        return fields.get("PROMPT");
+    }
+
+    public String getUser() {
+        return fields.containsKey("USER") ? fields.get("USER") : fields.get("MODIFIED_BY");
+    }
+
+    public String getStatus() {
+        return fields.get("STATUS");
+    }
+
+    public String getField(String key) {
+        return fields.get(key);
+    }
+
+    @Override
+    public String toString() {
+        return line;
+    }
+}
@@ -0,0 +1,185 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts PASSED executions per (prompt, user) and emits one rollup per key
+ * at the end of every window, windows being aligned to wall-clock multiples
+ * of their length (whole minutes by default). Counting only touches striped
+ * {@link LongAdder}s, so concurrent requests never block each other.
+ *
+ * <p>No count is ever dropped: {@code sumThenReset} keeps increments that race
+ * with it for the next window, a counter that went idle is only discarded
+ * after every increment in progress on it has finished, and {@link #close()}
+ * waits for in-progress calls before emitting what is left.
+ */
+public class AuditRollup implements Flushable, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditRollup.class);
+
+    public interface Emitter {
+        void emit(String promptId, String user, long windowStart, long windowMillis, long count);
+    }
+
+    private final long windowMillis;
+    private final Emitter emitter;
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+    private long windowStart;
+
+    public AuditRollup(long windowMillis, Emitter emitter) {
+        this.windowMillis = windowMillis;
+        this.emitter = emitter;
+        long now = System.currentTimeMillis();
+        this.windowStart = now - now % windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upss-audit-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> emitWindow(false), windowStart + windowMillis - now,
+                windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts one execution; returns {@code false} once closed, in which case
+     * the caller has to write the execution itself.
+     */
+    public boolean record(String promptId, String user) {
+        inFlight.increment();
+        try {
+            if (closed) {
+                return false;
+            }
+            Key key = new Key(promptId, user);
+            while (true) {
+                Counter counter = counters.get(key);
+                if (counter == null) {
+                    counter = counters.computeIfAbsent(key, k -> new Counter());
+                }
+                counter.inFlight.increment();
+                if (!counter.retired) {
+                    counter.count.increment();
+                    counter.inFlight.decrement();
+                    return true;
+                }
+                // Lost the race with retirement of an idle counter; use a fresh one
+                counter.inFlight.decrement();
+                counters.remove(key, counter);
+            }
+        } finally {
+            inFlight.decrement();
+        }
+    }
+
+    private synchronized void emitWindow(boolean all) {
+        long now = System.currentTimeMillis();
+        long start = windowStart;
+        long length = Math.max(windowMillis, now - now % windowMillis - start);
+        for (Map.Entry<Key, Counter> entry : counters.entrySet()) {
+            Key key = entry.getKey();
+            Counter counter = entry.getValue();
+            long count = counter.count.sumThenReset();
+            if (all) {
+                // Only used by close(), once no record() call is in progress
+                counters.remove(key, counter);
+            } else if (count > 0) {
+                counter.idleWindows = 0;
+            } else if (++counter.idleWindows > 1) {
+                retire(key, counter);
+                count = counter.count.sumThenReset();
+            }
+            emit(key, start, length, count);
+        }
+        windowStart = now - now % windowMillis;
+    }
+
+    private void retire(Key key, Counter counter) {
+        counter.retired = true;
+        counters.remove(key, counter);
+        while (counter.inFlight.sum() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void emit(Key key, long start, long length, long count) {
+        if (count == 0) {
+            return;
+        }
+        try {
+            emitter.emit(key.promptId, key.user, start, length, count);
+        } catch (RuntimeException e) {
+            logger.error("Failed to emit audit rollup, {} executions not recorded = {}", count, e);
+        }
+    }
+
+    /**
+     * Emits every pending count, including the current, unfinished window.
+     */
+    @Override
+    public void flush() {
+        emitWindow(false);
+    }
+
+    public int getPendingKeys() {
+        return counters.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        while (inFlight.sum() != 0) {
+            Thread.onSpinWait();
+        }
+        emitWindow(true);
+    }
+
+    private static final class Counter {
+        final LongAdder count = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        volatile boolean retired;
+        int idleWindows;
+    }
+
+    private static final class Key {
+        final String promptId;
+        final String user;
+        private final int hash;
+
+        Key(String promptId, String user) {
+            this.promptId = promptId;
+            this.user = user;
+            this.hash = 31 * Objects.hashCode(promptId) + Objects.hashCode(user);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(promptId, other.promptId) && Objects.equals(user, other.user);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.upss.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sparse index of a sealed audit segment. The segment is split into blocks of
+ * records; for every block the index keeps its byte range and time range, and
+ * for every prompt id, user, status and action a bitmap of the blocks that
+ * contain it. A query only reads the blocks whose bitmaps intersect.
+ */
+public class AuditSegmentIndex {
+    public static final String INDEX_SUFFIX = ".idx";
+    private static final long MAGIC = 0x5550535349445831L; // "UPSSIDX1"
+
+    private final String segmentFileName;
+    private final boolean compressed;
+    private final long recordCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final long[] blockMinTimestamps;
+    private final long[] blockMaxTimestamps;
+    private final Map<String, BitSet> prompts;
+    private final Map<String, BitSet> users;
+    private final Map<String, BitSet> statuses;
+    private final Map<String, BitSet> actions;
+
+    private AuditSegmentIndex(String segmentFileName, boolean compressed, long recordCount,
+                              long[] blockOffsets, int[] blockLengths,
+                              long[] blockMinTimestamps, long[] blockMaxTimestamps,
+                              Map<String, BitSet> prompts, Map<String, BitSet> users,
+                              Map<String, BitSet> statuses, Map<String, BitSet> actions) {
+        this.segmentFileName = segmentFileName;
+        this.compressed = compressed;
+        this.recordCount = recordCount;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.blockMinTimestamps = blockMinTimestamps;
+        this.blockMaxTimestamps = blockMaxTimestamps;
+        this.prompts = prompts;
+        this.users = users;
+        this.statuses = statuses;
+        this.actions = actions;
+        this.minTimestamp = Arrays.stream(blockMinTimestamps).min().orElse(Long.MAX_VALUE);
+        this.maxTimestamp = Arrays.stream(blockMaxTimestamps).max().orElse(Long.MIN_VALUE);
+    }
+
+    /**
+     * Blocks that may hold records matching the query; an empty set means the
+     * whole segment can be skipped.
+     */
+    public BitSet candidateBlocks(AuditQuery query) {
+        BitSet candidates = new BitSet(blockOffsets.length);
+        if (!query.overlaps(minTimestamp, maxTimestamp)) {
+            return candidates;
+        }
+        candidates.set(0, blockOffsets.length);
+        restrict(candidates, prompts, query.getPromptId());
+        restrict(candidates, users, query.getUser());
+        restrict(candidates, statuses, query.getStatus());
+        restrict(candidates, actions, query.getAction());
+
+        for (int block = candidates.nextSetBit(0); block >= 0; block = candidates.nextSetBit(block + 1)) {
+            if (!query.overlaps(blockMinTimestamps[block], blockMaxTimestamps[block])) {
+                candidates.clear(block);
+            }
+        }
+        return candidates;
+    }
+
+    private static void restrict(BitSet candidates, Map<String, BitSet> dictionary, String value) {
+        if (value == null) {
+            return;
+        }
+        BitSet blocks = dictionary.get(value);
+        if (blocks == null) {
+            candidates.clear();
+        } else {
+            candidates.and(blocks);
+        }
+    }
+
+    public String getSegmentFileName() {
+        return segmentFileName;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    public long getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    public int getBlockLength(int block) {
+        return blockLengths[block];
+    }
+
+    public void write(Path indexPath) throws IOException {
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeUTF(segmentFileName);
+            out.writeBoolean(compressed);
+            out.writeLong(recordCount);
+            out.writeInt(blockOffsets.length);
+            for (int i = 0; i < blockOffsets.length; i++) {
+                out.writeLong(blockOffsets[i]);
+                out.writeInt(blockLengths[i]);
+                out.writeLong(blockMinTimestamps[i]);
+                out.writeLong(blockMaxTimestamps[i]);
+            }
+            writeDictionary(out, prompts);
+            writeDictionary(out, users);
+            writeDictionary(out, statuses);
+            writeDictionary(out, actions);
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static AuditSegmentIndex read(Path indexPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Not an audit segment index: " + indexPath);
+            }
+            String segmentFileName = in.readUTF();
+            boolean compressed = in.readBoolean();
+            long recordCount = in.readLong();
+            int blockCount = in.readInt();
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            long[] minTimestamps = new long[blockCount];
+            long[] maxTimestamps = new long[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+                minTimestamps[i] = in.readLong();
+                maxTimestamps[i] = in.readLong();
+            }
+            return new AuditSegmentIndex(segmentFileName, compressed, recordCount,
+                    offsets, lengths, minTimestamps, maxTimestamps,
+                    readDictionary(in), readDictionary(in), readDictionary(in), readDictionary(in));
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, BitSet> dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (Map.Entry<String, BitSet> entry : dictionary.entrySet()) {
+            out.writeUTF(entry.getKey());
+            long[] words = entry.getValue().toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    private static Map<String, BitSet> readDictionary(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, BitSet> dictionary = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            long[] words = new long[in.readInt()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readLong();
+            }
+            dictionary.put(key, BitSet.valueOf(words));
+        }
+        return dictionary;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AuditSegmentIndex{segment='%s', records=%d, blocks=%d, compressed=%s}",
+                segmentFileName, recordCount, blockOffsets.length, compressed);
+    }
+
+    /**
+     * Accumulates records block by block while a segment is being sealed.
+     */
+    public static class Builder {
+        private final String segmentFileName;
+        private final boolean compressed;
+        private final Map<String, BitSet> prompts = new HashMap<>();
+        private final Map<String, BitSet> users = new HashMap<>();
+        private final Map<String, BitSet> statuses = new HashMap<>();
+        private final Map<String, BitSet> actions = new HashMap<>();
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private long[] minTimestamps = new long[16];
+        private long[] maxTimestamps = new long[16];
+        private int blockCount;
+        private long recordCount;
+        private long blockMin = Long.MAX_VALUE;
+        private long blockMax = Long.MIN_VALUE;
+
+        public Builder(String segmentFileName, boolean compressed) {
+            this.segmentFileName = segmentFileName;
+            this.compressed = compressed;
+        }
+
+        public void add(AuditRecord record) {
+            recordCount++;
+            if (record == null) {
+                return;
+            }
+            blockMin = Math.min(blockMin, record.getTimestamp());
+            blockMax = Math.max(blockMax, record.getTimestamp());
+            mark(prompts, record.getPromptId());
+            mark(users, record.getUser());
+            mark(statuses, record.getStatus());
+            mark(actions, record.getAction());
+        }
+
+        private void mark(Map<String, BitSet> dictionary, String value) {
+            if (value != null) {
+                dictionary.computeIfAbsent(value, k -> new BitSet()).set(blockCount);
+            }
+        }
+
+        /**
+         * Closes the current block, which occupies {@code length} bytes of the
+         * segment file starting at {@code offset}.
+         */
+        public void endBlock(long offset, int length) {
+            if (blockCount == offsets.length) {
+                int capacity = blockCount * 2;
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                minTimestamps = Arrays.copyOf(minTimestamps, capacity);
+                maxTimestamps = Arrays.copyOf(maxTimestamps, capacity);
+            }
+            offsets[blockCount] = offset;
+            lengths[blockCount] = length;
+            minTimestamps[blockCount] = blockMin;
+            maxTimestamps[blockCount] = blockMax;
+            blockCount++;
+            blockMin = Long.MAX_VALUE;
+            blockMax = Long.MIN_VALUE;
+        }
+
+        public AuditSegmentIndex build() {
+            return new AuditSegmentIndex(segmentFileName, compressed, recordCount,
+                    Arrays.copyOf(offsets, blockCount), Arrays.copyOf(lengths, blockCount),
+                    Arrays.copyOf(minTimestamps, blockCount), Arrays.copyOf(maxTimestamps, blockCount),
+                    prompts, users, statuses, actions);
+        }
+    }
+}
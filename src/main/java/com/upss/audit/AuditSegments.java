@@ -0,0 +1,189 @@
+package com.upss.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File layout of rotated audit segments. For an active log {@code prompts.log}
+ * the sealed segments are {@code prompts.log.000001} (or {@code .000001.gz}
+ * when compressed) next to their index {@code prompts.log.000001.idx}.
+ * Compressed segments are written as one gzip member per index block so that a
+ * single block can be inflated without reading the rest of the file.
+ */
+public final class AuditSegments {
+    public static final String COMPRESSED_SUFFIX = ".gz";
+    static final int BLOCK_RECORDS = 512;
+    static final int BLOCK_BYTES = 64 * 1024;
+
+    private AuditSegments() {
+    }
+
+    public static Path segmentPath(Path activeLog, long sequence) {
+        return activeLog.resolveSibling(activeLog.getFileName() + String.format(".%06d", sequence));
+    }
+
+    public static Path indexPath(Path segmentBase) {
+        return segmentBase.resolveSibling(segmentBase.getFileName() + AuditSegmentIndex.INDEX_SUFFIX);
+    }
+
+    /**
+     * Sequence numbers of every rotated segment of {@code activeLog}, sealed or
+     * not, in ascending order.
+     */
+    public static List<Long> listSequences(Path activeLog) throws IOException {
+        Path dir = activeLog.toAbsolutePath().getParent();
+        Pattern pattern = Pattern.compile(Pattern.quote(activeLog.getFileName().toString())
+                + "\\.(\\d{6,})(" + Pattern.quote(COMPRESSED_SUFFIX) + "|"
+                + Pattern.quote(AuditSegmentIndex.INDEX_SUFFIX) + ")?");
+        TreeSet<Long> sequences = new TreeSet<>();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return new ArrayList<>(sequences);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    sequences.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        return new ArrayList<>(sequences);
+    }
+
+    public static boolean isSealed(Path activeLog, long sequence) {
+        return Files.exists(indexPath(segmentPath(activeLog, sequence)));
+    }
+
+    /**
+     * Builds the index for a rotated raw segment and, if requested, replaces it
+     * with its block-compressed form. The index is written last, so a segment
+     * is only visible to queries once it is complete.
+     */
+    public static AuditSegmentIndex seal(Path rawSegment, boolean compress) throws IOException {
+        String baseName = rawSegment.getFileName().toString();
+        Path target = compress ? rawSegment.resolveSibling(baseName + COMPRESSED_SUFFIX) : rawSegment;
+        Path tmpTarget = rawSegment.resolveSibling(baseName + COMPRESSED_SUFFIX + ".tmp");
+        AuditSegmentIndex.Builder builder = new AuditSegmentIndex.Builder(target.getFileName().toString(), compress);
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(rawSegment));
+             OutputStream out = compress ? Files.newOutputStream(tmpTarget) : OutputStream.nullOutputStream()) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_BYTES + 1024);
+            long rawOffset = 0;
+            long blockStart = 0;
+            long compressedOffset = 0;
+            int blockRecords = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b != -1) {
+                    line.write(b);
+                }
+                if ((b == '\n' || b == -1) && line.size() > 0) {
+                    byte[] bytes = line.toByteArray();
+                    line.reset();
+                    int end = bytes[bytes.length - 1] == '\n' ? bytes.length - 1 : bytes.length;
+                    builder.add(AuditRecord.parse(new String(bytes, 0, end, StandardCharsets.UTF_8)));
+                    block.write(bytes);
+                    rawOffset += bytes.length;
+                    blockRecords++;
+                }
+                if (blockRecords > 0 && (blockRecords == BLOCK_RECORDS || block.size() >= BLOCK_BYTES || b == -1)) {
+                    if (compress) {
+                        byte[] member = gzip(block.toByteArray());
+                        out.write(member);
+                        builder.endBlock(compressedOffset, member.length);
+                        compressedOffset += member.length;
+                    } else {
+                        builder.endBlock(blockStart, block.size());
+                    }
+                    blockStart = rawOffset;
+                    block.reset();
+                    blockRecords = 0;
+                }
+            } while (b != -1);
+        }
+
+        if (compress) {
+            Files.move(tmpTarget, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        AuditSegmentIndex index = builder.build();
+        index.write(indexPath(rawSegment));
+        if (compress) {
+            Files.deleteIfExists(rawSegment);
+        }
+        return index;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Reads the lines of a single index block, inflating it if necessary.
+     */
+    public static List<String> readBlock(FileChannel segment, AuditSegmentIndex index, int block) throws IOException {
+        byte[] bytes = new byte[index.getBlockLength(block)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = index.getBlockOffset(block);
+        while (buffer.hasRemaining()) {
+            if (segment.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated audit segment: " + index.getSegmentFileName());
+            }
+        }
+        if (index.isCompressed()) {
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = gzip.readAllBytes();
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lines.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        if (start < bytes.length) {
+            lines.add(new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Opens a segment (plain or compressed) or the active log for a full
+     * sequential read.
+     */
+    public static BufferedReader openReader(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(COMPRESSED_SUFFIX)) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,23 @@
+package com.upss.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for audit entries. Each sink is fed by its own
+ * {@link BackgroundAuditWriter}, so {@link #write} is only ever called from
+ * one thread and may block without holding up callers or other sinks.
+ */
+public interface AuditSink extends Closeable {
+
+    /**
+     * Short name used in logs and sink statistics, e.g. {@code file:prompts.log}.
+     */
+    String getName();
+
+    /**
+     * Writes a batch of formatted entries, oldest first.
+     */
+    void write(List<String> entries) throws IOException;
+}
@@ -0,0 +1,151 @@
+package com.upss.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * File layout of per-process audit streams. When several JVMs share one audit
+ * log, each writes its own stream {@code prompts.log.w-<writerId>}, rotated
+ * and sealed like any other log ({@code prompts.log.w-<writerId>.000001}), so
+ * appends never contend across processes. The plain {@code prompts.log} and
+ * its segments remain a stream of their own. {@link AuditQueryEngine} merges
+ * all streams of a log into one time-ordered view.
+ */
+public final class AuditStreams {
+    static final String STREAM_MARKER = ".w-";
+    static final String LOCK_SUFFIX = ".lock";
+    private static final Pattern INVALID_ID_CHARS = Pattern.compile("[^A-Za-z0-9_-]");
+
+    private AuditStreams() {
+    }
+
+    public static Path streamPath(Path activeLog, String writerId) {
+        return activeLog.resolveSibling(activeLog.getFileName() + STREAM_MARKER + sanitize(writerId));
+    }
+
+    /**
+     * {@code <host>-<pid>}, unique among processes sharing a directory as
+     * long as hostnames are.
+     */
+    public static String defaultWriterId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return sanitize(host + "-" + ProcessHandle.current().pid());
+    }
+
+    static String sanitize(String writerId) {
+        String id = INVALID_ID_CHARS.matcher(writerId).replaceAll("_");
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("Writer id must not be empty");
+        }
+        return id;
+    }
+
+    /**
+     * Active paths of every stream of {@code activeLog}: the log itself first,
+     * then the per-process streams ordered by writer id.
+     */
+    public static List<Path> listStreams(Path activeLog) throws IOException {
+        List<Path> streams = new ArrayList<>();
+        streams.add(activeLog);
+        Path dir = activeLog.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return streams;
+        }
+        Pattern pattern = Pattern.compile(Pattern.quote(activeLog.getFileName() + STREAM_MARKER)
+                + "([A-Za-z0-9_-]+)(\\..*)?");
+        TreeSet<String> writerIds = new TreeSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    writerIds.add(matcher.group(1));
+                }
+            });
+        }
+        for (String writerId : writerIds) {
+            streams.add(streamPath(activeLog, writerId));
+        }
+        return streams;
+    }
+
+    /**
+     * Takes exclusive ownership of a stream for this process. The lock is
+     * taken once at startup, never per append; if another process (or
+     * another auditor in this one) already owns the id, a numeric suffix is
+     * appended until a free stream is found.
+     */
+    public static Claim claim(Path activeLog, String writerId) throws IOException {
+        String base = sanitize(writerId);
+        for (int attempt = 0; ; attempt++) {
+            String candidate = attempt == 0 ? base : base + "-" + attempt;
+            Path stream = streamPath(activeLog, candidate);
+            Path lockPath = stream.resolveSibling(stream.getFileName() + LOCK_SUFFIX);
+            FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock != null) {
+                return new Claim(stream, candidate, channel, lock);
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Ownership of one stream; released on close.
+     */
+    public static final class Claim implements Closeable {
+        private final Path streamPath;
+        private final String writerId;
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private Claim(Path streamPath, String writerId, FileChannel channel, FileLock lock) {
+            this.streamPath = streamPath;
+            this.writerId = writerId;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public Path getStreamPath() {
+            return streamPath;
+        }
+
+        public String getWriterId() {
+            return writerId;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
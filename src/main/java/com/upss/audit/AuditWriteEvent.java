@@ -0,0 +1,44 @@
+package com.upss.audit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one write of audit entries into a sink or log file: a batch
+ * drained by a {@link BackgroundAuditWriter}, or a single entry written
+ * synchronously by {@link com.upss.core.LightweightAuditor}. The duration is
+ * the time the write and its flush took.
+ */
+@Name(AuditWriteEvent.NAME)
+@Label("Audit Write")
+@Category({"UPSS", "Audit"})
+@Description("Audit entries handed to a sink or log file")
+@StackTrace(false)
+public final class AuditWriteEvent extends Event {
+    public static final String NAME = "com.upss.AuditWrite";
+
+    @Label("Sink")
+    String sink;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Commits the event if it is enabled; call after the write.
+     */
+    public void finish(String sink, int batchSize, boolean succeeded) {
+        if (shouldCommit()) {
+            this.sink = sink;
+            this.batchSize = batchSize;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
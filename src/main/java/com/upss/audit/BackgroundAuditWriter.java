@@ -0,0 +1,303 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Moves audit writes off the caller's thread. Entries are queued and a single
+ * writer thread drains them in batches into an {@link AuditSink}, so I/O and
+ * hash chaining are paid once per batch rather than per entry. What happens
+ * when the queue is full is up to the {@link OverflowPolicy}; the default
+ * blocks the caller so no entry is dropped. After a failed write the writer
+ * backs off, doubling the pause up to a few seconds, so a sink that is down
+ * is not retried in a tight loop.
+ */
+public class BackgroundAuditWriter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundAuditWriter.class);
+    private static final long DROP_CLOSE_TIMEOUT_MILLIS = 10_000;
+    private static final long ABANDON_TIMEOUT_MILLIS = 1_000;
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    public enum OverflowPolicy {
+        /** Wait for room in the queue; entries are never dropped. */
+        BLOCK,
+        /** Discard the entry and count it; callers never wait. */
+        DROP
+    }
+
+    private final AuditSink sink;
+    private final BlockingQueue<String> queue;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long dropCloseTimeoutMillis;
+    private final Thread thread;
+    // Submitters hold the read lock from the running check to the enqueue, so close() cannot slip in between
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dequeued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastWriteMillis;
+    private volatile boolean running = true;
+    private volatile boolean abandoned;
+
+    public BackgroundAuditWriter(AuditSink sink, int queueCapacity, int maxBatchSize) {
+        this(sink, queueCapacity, maxBatchSize, OverflowPolicy.BLOCK);
+    }
+
+    public BackgroundAuditWriter(AuditSink sink, int queueCapacity, int maxBatchSize, OverflowPolicy overflowPolicy) {
+        this(sink, queueCapacity, maxBatchSize, overflowPolicy, DROP_CLOSE_TIMEOUT_MILLIS);
+    }
+
+    BackgroundAuditWriter(AuditSink sink, int queueCapacity, int maxBatchSize, OverflowPolicy overflowPolicy,
+                          long dropCloseTimeoutMillis) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.dropCloseTimeoutMillis = dropCloseTimeoutMillis;
+        this.thread = new Thread(this::run, "upss-audit-writer-" + sink.getName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues an entry; returns {@code false} if it was dropped.
+     */
+    public boolean submit(String entry) {
+        closeLock.readLock().lock();
+        try {
+            return enqueue(entry);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private boolean enqueue(String entry) {
+        if (!running) {
+            logger.error("Audit writer for {} is closed, entry lost: {}", sink.getName(), entry);
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            if (!queue.offer(entry)) {
+                long count = dropped.incrementAndGet();
+                if (count == 1 || count % 10_000 == 0) {
+                    logger.warn("Audit sink {} is falling behind, {} entries dropped so far", sink.getName(), count);
+                }
+                return false;
+            }
+            submitted.incrementAndGet();
+            return true;
+        }
+        try {
+            queue.put(entry);
+            submitted.incrementAndGet();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            logger.error("Interrupted while queueing audit entry, entry lost: {}", entry);
+            return false;
+        }
+    }
+
+    private void run() {
+        List<String> batch = new ArrayList<>(maxBatchSize);
+        long backoffMillis = 0;
+        while ((running || !queue.isEmpty()) && !abandoned) {
+            AuditWriteEvent event = null;
+            try {
+                String first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                dequeued.addAndGet(batch.size());
+                event = new AuditWriteEvent();
+                event.begin();
+                sink.write(batch);
+                event.finish(sink.getName(), batch.size(), true);
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                lastWriteMillis = System.currentTimeMillis();
+                backoffMillis = 0;
+            } catch (InterruptedException e) {
+                // Only close() interrupts, and only once it gave up on draining
+            } catch (IOException | RuntimeException e) {
+                if (event != null) {
+                    event.finish(sink.getName(), batch.size(), false);
+                }
+                failed.addAndGet(batch.size());
+                logger.error("Failed to write audit batch of {} entries to {} = {}", batch.size(), sink.getName(), e);
+                backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_BACKOFF_MILLIS), MAX_BACKOFF_MILLIS);
+            } finally {
+                processed.addAndGet(batch.size());
+                batch.clear();
+            }
+            backOff(backoffMillis);
+        }
+    }
+
+    /**
+     * Pauses after a failed write. close() cuts the pause short so the queue
+     * is still drained promptly on shutdown.
+     */
+    private void backOff(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (running && !abandoned && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    /**
+     * Blocks until every entry submitted before this call has been handed to
+     * the sink.
+     */
+    public void flush() {
+        long target = submitted.get();
+        while (processed.get() < target && thread.isAlive()) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    public AuditSink getSink() {
+        return sink;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Entries waiting in the queue, derived from counters so that monitoring
+     * never takes the queue lock.
+     */
+    public int getQueueDepth() {
+        return (int) Math.max(0, submitted.get() - dequeued.get());
+    }
+
+    /**
+     * Entries accepted but not yet handed to the sink.
+     */
+    public long getLag() {
+        return submitted.get() - processed.get();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Wall-clock time of the last successful write, {@code 0} if none yet.
+     */
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    /**
+     * Drains the queue and closes the sink. A lossy sink that is still stuck
+     * after a while is abandoned so it cannot hold up shutdown: the writer
+     * thread is interrupted and stops without writing the rest of the queue.
+     * The sink is only closed once that thread has exited, as closing it
+     * under a write in progress is not safe.
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        LockSupport.unpark(thread);
+        join(overflowPolicy == OverflowPolicy.DROP ? dropCloseTimeoutMillis : 0);
+        if (thread.isAlive()) {
+            logger.warn("Audit sink {} did not drain in time, {} entries abandoned", sink.getName(), getLag());
+            abandoned = true;
+            thread.interrupt();
+            join(ABANDON_TIMEOUT_MILLIS);
+        }
+        if (thread.isAlive()) {
+            logger.error("Audit sink {} is stuck in a write and was left open", sink.getName());
+            return;
+        }
+        drainRemaining();
+        sink.close();
+    }
+
+    /**
+     * Writes what is still queued once the writer thread has exited, or
+     * counts it as dropped if that thread was abandoned.
+     */
+    private void drainRemaining() {
+        List<String> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        dequeued.addAndGet(remaining.size());
+        try {
+            if (abandoned) {
+                dropped.addAndGet(remaining.size());
+                return;
+            }
+            sink.write(remaining);
+            written.addAndGet(remaining.size());
+            batches.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.addAndGet(remaining.size());
+            logger.error("Failed to write audit batch of {} entries to {} = {}", remaining.size(), sink.getName(), e);
+        } finally {
+            processed.addAndGet(remaining.size());
+        }
+    }
+
+    private void join(long millis) {
+        try {
+            thread.join(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
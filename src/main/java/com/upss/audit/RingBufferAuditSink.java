@@ -0,0 +1,58 @@
+package com.upss.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recent entries in memory, e.g. for a live dashboard. Older
+ * entries are overwritten once the ring is full.
+ */
+public class RingBufferAuditSink implements AuditSink {
+    private final String[] ring;
+    private long total;
+
+    public RingBufferAuditSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring capacity must be positive: " + capacity);
+        }
+        this.ring = new String[capacity];
+    }
+
+    @Override
+    public String getName() {
+        return "ring:" + ring.length;
+    }
+
+    @Override
+    public synchronized void write(List<String> entries) {
+        for (String entry : entries) {
+            ring[(int) (total % ring.length)] = entry;
+            total++;
+        }
+    }
+
+    /**
+     * Returns the retained entries, oldest first.
+     */
+    public synchronized List<String> snapshot() {
+        int size = (int) Math.min(total, ring.length);
+        List<String> entries = new ArrayList<>(size);
+        for (long i = total - size; i < total; i++) {
+            entries.add(ring[(int) (i % ring.length)]);
+        }
+        return entries;
+    }
+
+    public synchronized long getTotalWritten() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    @Override
+    public void close() {
+        // Entries stay readable after close
+    }
+}
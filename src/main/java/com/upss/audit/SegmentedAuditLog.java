@@ -0,0 +1,205 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Append-only audit log that rotates its active file once it reaches
+ * {@code maxSegmentBytes}. Rotated segments are sealed (indexed, optionally
+ * compressed and, with a hash chain, given a Merkle root) on a background
+ * thread so the writer never waits for it.
+ */
+public class SegmentedAuditLog implements AuditSink {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedAuditLog.class);
+
+    private final Path activePath;
+    private final String name;
+    private final long maxSegmentBytes;
+    private final boolean compress;
+    private final byte[] hmacKey;
+    private final AuditHashChain chain;
+    private final ExecutorService sealer;
+    private FileChannel channel;
+    private long activeBytes;
+    private long nextSequence;
+
+    public SegmentedAuditLog(Path activePath, long maxSegmentBytes, boolean compress) throws IOException {
+        this(activePath, new AuditLogOptions().segmentBytes(maxSegmentBytes).compressSegments(compress));
+    }
+
+    public SegmentedAuditLog(Path activePath, AuditLogOptions options) throws IOException {
+        this.activePath = activePath;
+        this.name = "file:" + activePath.getFileName();
+        this.maxSegmentBytes = options.getMaxSegmentBytes();
+        this.compress = options.isCompressSegments();
+        this.hmacKey = options.getHmacKey();
+        this.chain = options.isHashChain() ? new AuditHashChain(hmacKey) : null;
+        this.sealer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upss-audit-sealer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Path parent = activePath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        List<Long> sequences = AuditSegments.listSequences(activePath);
+        this.nextSequence = sequences.isEmpty() ? 1 : sequences.get(sequences.size() - 1) + 1;
+        for (long sequence : sequences) {
+            Path segment = AuditSegments.segmentPath(activePath, sequence);
+            if (!AuditSegments.isSealed(activePath, sequence) || (Files.exists(AuditHashChain.chainPath(segment))
+                    && !Files.exists(AuditHashChain.sealPath(segment)))) {
+                submitSeal(segment);
+            } else if (compress && Files.exists(segment.resolveSibling(segment.getFileName() + AuditSegments.COMPRESSED_SUFFIX))) {
+                // Crashed after the compressed copy and its index were written
+                Files.deleteIfExists(segment);
+            }
+        }
+        byte[] seed = sequences.isEmpty() ? AuditHashChain.GENESIS
+                : AuditHashChain.lastHead(AuditHashChain.chainPath(
+                        AuditSegments.segmentPath(activePath, sequences.get(sequences.size() - 1))));
+        openActive(seed);
+    }
+
+    private void openActive(byte[] seed) throws IOException {
+        channel = FileChannel.open(activePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeBytes = channel.size();
+        if (chain != null) {
+            // Records written before chaining was turned on are left out of the chain
+            chain.open(AuditHashChain.chainPath(activePath), seed, activeBytes);
+        }
+    }
+
+    public void append(String entry) throws IOException {
+        appendBatch(Collections.singletonList(entry));
+    }
+
+    /**
+     * Writes the entries with a single write and, when chaining, extends the
+     * hash chain by one link for the whole batch.
+     */
+    public synchronized void appendBatch(List<String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder(entries.size() * 128);
+        for (String entry : entries) {
+            text.append(entry).append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            activeBytes += channel.write(buffer);
+        }
+        if (chain != null) {
+            chain.append(entries.size(), bytes);
+        }
+        if (maxSegmentBytes > 0 && activeBytes >= maxSegmentBytes) {
+            rotate();
+        }
+    }
+
+    @Override
+    public void write(List<String> entries) throws IOException {
+        appendBatch(entries);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Closes the active file as a new segment and schedules it for sealing.
+     * Does nothing if the active file is empty.
+     */
+    public synchronized void rotate() throws IOException {
+        if (activeBytes == 0) {
+            return;
+        }
+        channel.close();
+        Path segment = AuditSegments.segmentPath(activePath, nextSequence++);
+        byte[] seed = AuditHashChain.GENESIS;
+        if (chain != null) {
+            chain.close();
+            seed = chain.getHead();
+            Files.move(AuditHashChain.chainPath(activePath), AuditHashChain.chainPath(segment),
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(activePath, segment, StandardCopyOption.ATOMIC_MOVE);
+        openActive(seed);
+        submitSeal(segment);
+    }
+
+    private void submitSeal(Path segment) {
+        sealer.execute(() -> {
+            try {
+                Path indexPath = AuditSegments.indexPath(segment);
+                AuditSegmentIndex index;
+                if (Files.exists(indexPath)) {
+                    index = AuditSegmentIndex.read(indexPath);
+                } else if (Files.exists(segment)) {
+                    index = AuditSegments.seal(segment, compress);
+                } else {
+                    return;
+                }
+                if (Files.exists(AuditHashChain.chainPath(segment)) && !Files.exists(AuditHashChain.sealPath(segment))) {
+                    AuditHashChain.writeSeal(segment, index.getSegmentFileName(), hmacKey);
+                }
+                logger.debug("Sealed audit segment: {}", index);
+            } catch (IOException e) {
+                logger.error("Failed to seal audit segment {} = {}", segment, e);
+            }
+        });
+    }
+
+    public Path getActivePath() {
+        return activePath;
+    }
+
+    /**
+     * Waits for pending seals; the active file stays open and unsealed.
+     */
+    public boolean awaitSealed(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            sealer.submit(() -> { }).get(timeout, unit);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        if (chain != null) {
+            chain.close();
+        }
+        sealer.shutdown();
+        try {
+            if (!sealer.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Timed out waiting for audit segments to be sealed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.upss.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Forwards entries to a syslog collector over TCP as RFC 5424 messages, one
+ * per line (RFC 6587 non-transparent framing), using the {@code log audit}
+ * facility. Security events are sent with severity warning, everything else
+ * with informational. A broken connection fails the current batch and is
+ * re-established on the next one.
+ */
+public class SyslogAuditSink implements AuditSink {
+    private static final Logger logger = LoggerFactory.getLogger(SyslogAuditSink.class);
+
+    private static final int FACILITY_LOG_AUDIT = 13;
+    private static final int SEVERITY_WARNING = 4;
+    private static final int SEVERITY_INFO = 6;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final String host;
+    private final int port;
+    private final String appName;
+    private final String hostname;
+    private Socket socket;
+    private OutputStream out;
+
+    public SyslogAuditSink(String host, int port) {
+        this(host, port, "upss");
+    }
+
+    public SyslogAuditSink(String host, int port, String appName) {
+        this.host = host;
+        this.port = port;
+        this.appName = appName;
+        this.hostname = localHostname();
+    }
+
+    private static String localHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "-";
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "syslog:" + host + ":" + port;
+    }
+
+    @Override
+    public void write(List<String> entries) throws IOException {
+        StringBuilder text = new StringBuilder(entries.size() * 192);
+        String timestamp = Instant.now().toString();
+        for (String entry : entries) {
+            text.append(format(entry, timestamp)).append('\n');
+        }
+        try {
+            if (out == null) {
+                connect();
+            }
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    String format(String entry, String timestamp) {
+        int severity = entry.contains("SECURITY_EVENT=") ? SEVERITY_WARNING : SEVERITY_INFO;
+        int priority = FACILITY_LOG_AUDIT * 8 + severity;
+        return "<" + priority + ">1 " + timestamp + " " + hostname + " " + appName + " - - - " + entry;
+    }
+
+    private void connect() throws IOException {
+        Socket candidate = new Socket();
+        try {
+            candidate.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            candidate.close();
+            throw e;
+        }
+        socket = candidate;
+        out = candidate.getOutputStream();
+        logger.debug("Connected audit sink {}", getName());
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close syslog socket = {}", e.toString());
+            }
+        }
+        socket = null;
+        out = null;
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+}
@@ -3,15 +3,62 @@ package com.upss.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
 public class BasicSanitizer {
     private static final Logger logger = LoggerFactory.getLogger(BasicSanitizer.class);
+    private static final Map<Character, char[]> CASE_VARIANTS = new ConcurrentHashMap<>();
 
-    private static final String[] INJECTION_PATTERNS = {
+    public static final List<String> DEFAULT_PATTERNS = List.of(
             "SELECT", "INSERT", "UPDATE", "DELETE", "DROP",
             "exec", "execute", "script", "javascript",
             "eval", "system", "os.system", "__import__",
             "subprocess", "Popen", "cmd.exe", "/bin/bash"
-    };
+    );
+
+    private final String[] patterns;
+    private final char[][] firstChars;
+    /** Per pattern, its upper- and lower-case form if all ASCII, else {@code null}. */
+    private final String[][] asciiCases;
+
+    public BasicSanitizer() {
+        this(DEFAULT_PATTERNS);
+    }
+
+    /**
+     * Uses {@code patterns} instead of the default rule set. They are
+     * detected case-insensitively and removed by {@link #sanitize} as regular
+     * expressions, so each one must compile.
+     */
+    public BasicSanitizer(List<String> patterns) {
+        List<String> checked = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.trim().isEmpty()) {
+                throw new IllegalArgumentException("Sanitizer patterns must not be empty");
+            }
+            Pattern.compile("(?i)" + pattern);
+            checked.add(pattern);
+        }
+        this.patterns = checked.toArray(new String[0]);
+        this.firstChars = new char[this.patterns.length][];
+        this.asciiCases = new String[this.patterns.length][];
+        for (int i = 0; i < this.patterns.length; i++) {
+            String pattern = this.patterns[i];
+            firstChars[i] = CASE_VARIANTS.computeIfAbsent(pattern.charAt(0), BasicSanitizer::caseVariants);
+            if (pattern.chars().allMatch(c -> c < 0x80)) {
+                asciiCases[i] = new String[]{pattern.toUpperCase(Locale.ROOT), pattern.toLowerCase(Locale.ROOT)};
+            }
+        }
+    }
+
+    public List<String> getPatterns() {
+        return List.of(patterns);
+    }
 
     public String sanitize(String prompt) {
         if (prompt == null || prompt.isEmpty()) {
@@ -21,10 +68,10 @@ public class BasicSanitizer {
         logger.info("Sanitizing prompt input");
         String sanitized = prompt;
 
-        for (String pattern : INJECTION_PATTERNS) {
-            if (sanitized.toLowerCase().contains(pattern.toLowerCase())) {
-                logger.warn("Detected potential injection pattern: {}", pattern);
-                sanitized = sanitized.replaceAll("(?i)" + pattern, "");
+        for (int i = 0; i < patterns.length; i++) {
+            if (contains(sanitized, i)) {
+                logger.warn("Detected potential injection pattern: {}", patterns[i]);
+                sanitized = sanitized.replaceAll("(?i)" + patterns[i], "");
             }
         }
 
@@ -37,11 +84,69 @@ public class BasicSanitizer {
             return true;
         }
 
-        for (String pattern : INJECTION_PATTERNS) {
-            if (prompt.toLowerCase().contains(pattern.toLowerCase())) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (contains(prompt, i)) {
                 return false;
             }
         }
         return true;
     }
+
+    /**
+     * Case-insensitive search for pattern {@code index} in place, rather than
+     * lower-casing a copy of the input for every pattern. Candidates are
+     * found with {@link String#indexOf(int, int)}, which is vectorized, for
+     * each case variant of the first character.
+     */
+    private boolean contains(String text, int index) {
+        String pattern = patterns[index];
+        int last = text.length() - pattern.length();
+        for (char first : firstChars[index]) {
+            for (int i = text.indexOf(first); i >= 0 && i <= last; i = text.indexOf(first, i + 1)) {
+                if (matchesAt(text, i, index)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares ASCII text against the pattern's two cases inline and leaves
+     * anything else, where case folding is less simple, to regionMatches.
+     */
+    private boolean matchesAt(String text, int at, int index) {
+        String pattern = patterns[index];
+        String[] cases = asciiCases[index];
+        if (cases != null) {
+            String upper = cases[0];
+            String lower = cases[1];
+            for (int j = 1; j < upper.length(); j++) {
+                char c = text.charAt(at + j);
+                if (c != upper.charAt(j) && c != lower.charAt(j)) {
+                    return c >= 0x80 && text.regionMatches(true, at, pattern, 0, pattern.length());
+                }
+            }
+            return true;
+        }
+        return text.regionMatches(true, at, pattern, 0, pattern.length());
+    }
+
+    /**
+     * Every character {@link String#regionMatches(boolean, int, String, int, int)}
+     * considers equal to {@code c} when ignoring case, such as {@code s},
+     * {@code S} and the long s for {@code s}.
+     */
+    private static char[] caseVariants(char c) {
+        char upper = Character.toUpperCase(c);
+        char lower = Character.toLowerCase(upper);
+        StringBuilder variants = new StringBuilder();
+        for (int candidate = Character.MIN_VALUE; candidate <= Character.MAX_VALUE; candidate++) {
+            char candidateUpper = Character.toUpperCase((char) candidate);
+            if (candidateUpper == upper || Character.toLowerCase(candidateUpper) == lower) {
+                variants.append((char) candidate);
+            }
+        }
+        return variants.toString().toCharArray();
+    }
 }
@@ -1,28 +1,98 @@
 package com.upss.core;
 
+import com.upss.audit.AuditFanOut;
+import com.upss.audit.AuditLogOptions;
+import com.upss.audit.AuditStreams;
+import com.upss.audit.AuditWriteEvent;
+import com.upss.audit.BackgroundAuditWriter;
+import com.upss.audit.SegmentedAuditLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.Flushable;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class LightweightAuditor {
+public class LightweightAuditor implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(LightweightAuditor.class);
     private final String auditLogPath;
+    private final String sinkName;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private final AuditStreams.Claim streamClaim;
+    private final SegmentedAuditLog segmentedLog;
+    private final AuditFanOut fanOut;
+    private final boolean fileInFanOut;
+    private final List<Flushable> flushOnClose = new CopyOnWriteArrayList<>();
+    private Thread shutdownHook;
 
     public LightweightAuditor(String auditLogPath) {
+        this(auditLogPath, 0, false);
+    }
+
+    /**
+     * Rotates the log into indexed segments once it reaches {@code maxSegmentBytes}
+     * so they can be searched with {@link com.upss.audit.AuditQueryEngine};
+     * {@code 0} keeps a single ever-growing file.
+     */
+    public LightweightAuditor(String auditLogPath, long maxSegmentBytes, boolean compressSegments) {
+        this(auditLogPath, new AuditLogOptions().segmentBytes(maxSegmentBytes).compressSegments(compressSegments));
+    }
+
+    public LightweightAuditor(String auditLogPath, AuditLogOptions options) {
         this.auditLogPath = auditLogPath;
+        this.sinkName = "file:" + new File(auditLogPath).getName();
         ensureLogFileExists();
+        this.streamClaim = options.getWriterId() != null ? claimStream(options.getWriterId()) : null;
+        this.segmentedLog = options.isSegmented() ? openSegmentedLog(options) : null;
+        this.fileInFanOut = segmentedLog != null && options.isAsync();
+        if (fileInFanOut || !options.getSinks().isEmpty()) {
+            this.fanOut = new AuditFanOut();
+            if (fileInFanOut) {
+                fanOut.addSink(segmentedLog, options.getQueueCapacity(), options.getMaxBatchSize(),
+                        BackgroundAuditWriter.OverflowPolicy.BLOCK);
+            }
+            for (AuditLogOptions.SinkSpec spec : options.getSinks()) {
+                fanOut.addSink(spec.getSink(), spec.getQueueCapacity(), options.getMaxBatchSize(),
+                        spec.getOverflowPolicy());
+            }
+            installShutdownHook();
+        } else {
+            this.fanOut = null;
+        }
     }
 
     public LightweightAuditor() {
         this("./config/audit/prompts.log");
     }
 
+    private AuditStreams.Claim claimStream(String writerId) {
+        try {
+            return AuditStreams.claim(Paths.get(auditLogPath), writerId);
+        } catch (IOException e) {
+            logger.error("Failed to claim per-process audit stream, writing to the shared log = {}", e);
+            return null;
+        }
+    }
+
+    private SegmentedAuditLog openSegmentedLog(AuditLogOptions options) {
+        Path path = streamClaim != null ? streamClaim.getStreamPath() : Paths.get(auditLogPath);
+        try {
+            return new SegmentedAuditLog(path, options);
+        } catch (IOException e) {
+            logger.error("Failed to open segmented audit log, falling back to single file = {}", e);
+            return null;
+        }
+    }
+
     private void ensureLogFileExists() {
         try {
             File logFile = new File(auditLogPath);
@@ -58,6 +128,26 @@ public class LightweightAuditor {
         logger.info(logEntry);
     }
 
+    public void logSampledAccess(String promptId, String action, String user, String status, double sampleRate) {
+        String timestamp = dateFormat.format(new Date());
+        String logEntry = String.format(
+                "[%s] ACTION=%s | PROMPT=%s | USER=%s | STATUS=%s | SAMPLE_RATE=%s",
+                timestamp, action, promptId, user, status, sampleRate
+        );
+        writeToLog(logEntry);
+        logger.info(logEntry);
+    }
+
+    public void logRollup(String promptId, String user, String status, long windowStart, long windowMillis, long count) {
+        String timestamp = dateFormat.format(new Date());
+        String logEntry = String.format(
+                "[%s] ROLLUP | PROMPT=%s | USER=%s | STATUS=%s | WINDOW=%s | WINDOW_SECONDS=%d | COUNT=%d",
+                timestamp, promptId, user, status, dateFormat.format(new Date(windowStart)), windowMillis / 1000, count
+        );
+        writeToLog(logEntry);
+        logger.info(logEntry);
+    }
+
     public void logSecurityEvent(String eventType, String promptId, String details) {
         String timestamp = dateFormat.format(new Date());
         String logEntry = String.format(
@@ -68,15 +158,116 @@ public class LightweightAuditor {
         logger.warn(logEntry);
     }
 
-    private synchronized void writeToLog(String entry) {
+    private void writeToLog(String entry) {
+        if (fanOut != null) {
+            fanOut.submit(entry);
+            if (fileInFanOut) {
+                return;
+            }
+        }
+        AuditWriteEvent event = new AuditWriteEvent();
+        event.begin();
+        if (segmentedLog != null) {
+            try {
+                segmentedLog.append(entry);
+                event.finish(segmentedLog.getName(), 1, true);
+            } catch (IOException e) {
+                event.finish(segmentedLog.getName(), 1, false);
+                logger.error("Failed to write audit log entry = {}", e);
+            }
+            return;
+        }
+        event.finish(sinkName, 1, appendToFile(entry));
+    }
+
+    private synchronized boolean appendToFile(String entry) {
         try (FileWriter fw = new FileWriter(auditLogPath, true)) {
             fw.write(entry + "\n");
+            return true;
         } catch (IOException e) {
             logger.error("Failed to write audit log entry = {}", e);
+            return false;
         }
     }
 
     public String getAuditLogPath() {
         return auditLogPath;
     }
+
+    /**
+     * Writer id of this process's stream, or {@code null} when writing to the
+     * shared log.
+     */
+    public String getWriterId() {
+        return streamClaim == null ? null : streamClaim.getWriterId();
+    }
+
+    /**
+     * Waits until entries logged so far have reached the file and every
+     * additional sink.
+     */
+    public void flush() {
+        if (fanOut != null) {
+            fanOut.flush();
+        }
+    }
+
+    /**
+     * Queue, lag and drop counters per sink; empty when writing synchronously.
+     */
+    public List<AuditFanOut.SinkStats> getSinkStats() {
+        return fanOut == null ? Collections.emptyList() : fanOut.getSinkStats();
+    }
+
+    /**
+     * Registers state (such as pending rollups) that must be flushed into the
+     * log before it is closed, including at JVM shutdown.
+     */
+    public void addFlushOnClose(Flushable flushable) {
+        flushOnClose.add(flushable);
+        installShutdownHook();
+    }
+
+    private synchronized void installShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::closeQuietly, "upss-audit-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Flushable flushable : flushOnClose) {
+            flushable.flush();
+        }
+        flushOnClose.clear();
+        Thread hook;
+        synchronized (this) {
+            hook = shutdownHook;
+        }
+        if (hook != null && hook != Thread.currentThread()) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // Already shutting down; the hook is running this close
+            }
+        }
+        if (fanOut != null) {
+            fanOut.close();
+        }
+        if (segmentedLog != null && !fileInFanOut) {
+            segmentedLog.close();
+        }
+        if (streamClaim != null) {
+            streamClaim.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            logger.error("Failed to close audit log = {}", e);
+        }
+    }
 }
@@ -0,0 +1,509 @@
+package com.upss.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A verified prompt catalog packed into one memory-mapped file, so a new JVM
+ * can serve prompts without parsing {@code prompts.json}, reading prompt files
+ * or hashing them. Opening a bundle maps it and reads the fixed-size header;
+ * everything else is read on demand: a lookup probes a hash table stored in
+ * the file, and a prompt's content is decoded (and, if requested, checked
+ * against its stored SHA-256) the first time it is loaded. Identical
+ * contents are stored once.
+ *
+ * <p>Each prompt's {@code approvedBy} key and detached signature are carried
+ * over from the catalog, so signatures can still be verified against trusted
+ * keys; a bundle built from a catalog that sets
+ * {@code security.signatureRequired} is flagged as such.
+ *
+ * <pre>
+ * header     magic "UPSSBND2", entry count, content count, table size, flags
+ *            and the offsets of the sections below
+ * entries    per prompt: id, version and risk level as (offset, length) into
+ *            the string pool, the index of its content, approvedBy as
+ *            (offset, length) into the pool (offset -1 if none) and its
+ *            signature as (offset, length) into the signatures
+ * contents   per distinct content: data offset, length, SHA-256
+ * table      open-addressing table of entry index + 1, keyed by FNV-1a of the id
+ * pool       UTF-8 strings
+ * signatures raw signature bytes
+ * data       UTF-8 prompt contents
+ * </pre>
+ */
+public final class PromptBundle {
+    private static final Logger logger = LoggerFactory.getLogger(PromptBundle.class);
+    private static final byte[] MAGIC = "UPSSBND2".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 8 + 4 * 4 + 6 * 8;
+    private static final int ENTRY_BYTES = 11 * 4;
+    private static final int FLAG_SIGNATURE_REQUIRED = 1;
+    private static final int CONTENT_BYTES = 8 + 4 + 32;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final int contentCount;
+    private final int tableSize;
+    private final int flags;
+    private final long entriesOffset;
+    private final long contentsOffset;
+    private final long tableOffset;
+    private final long poolOffset;
+    private final long signaturesOffset;
+    private final long dataOffset;
+    private final AtomicReferenceArray<Prompt> prompts;
+    private final AtomicReferenceArray<String> contents;
+    private final AtomicReferenceArray<Boolean> verified;
+    private final AtomicReferenceArray<Boolean> signed;
+
+    private PromptBundle(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES) {
+            throw new IOException("Not a prompt bundle: " + file);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a prompt bundle: " + file);
+        }
+        this.entryCount = buffer.getInt(8);
+        this.contentCount = buffer.getInt(12);
+        this.tableSize = buffer.getInt(16);
+        this.flags = buffer.getInt(20);
+        this.entriesOffset = buffer.getLong(24);
+        this.contentsOffset = buffer.getLong(32);
+        this.tableOffset = buffer.getLong(40);
+        this.poolOffset = buffer.getLong(48);
+        this.dataOffset = buffer.getLong(56);
+        this.signaturesOffset = buffer.getLong(64);
+        if (entryCount < 0 || contentCount < 0 || Integer.bitCount(tableSize) != 1 || dataOffset > buffer.capacity()) {
+            throw new IOException("Corrupt prompt bundle header: " + file);
+        }
+        this.prompts = new AtomicReferenceArray<>(entryCount);
+        this.contents = new AtomicReferenceArray<>(contentCount);
+        this.verified = new AtomicReferenceArray<>(contentCount);
+        this.signed = new AtomicReferenceArray<>(entryCount);
+    }
+
+    public static PromptBundle open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new PromptBundle(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the prompt, decoding it on first use, or {@code null} if the
+     * bundle does not contain it. With {@code verify}, content is checked
+     * against its stored SHA-256 once before it is first served.
+     */
+    public Prompt load(String promptId, boolean verify) throws PromptLoader.PromptLoadException {
+        return load(promptId, verify, null);
+    }
+
+    /**
+     * As {@link #load(String, boolean)}, and with {@code signatures} also
+     * checks the prompt's stored signature by its {@code approvedBy} key once
+     * before it is first served. The content is checked against its SHA-256
+     * first, as that is what was signed.
+     */
+    public Prompt load(String promptId, boolean verify, PromptSignatureVerifier signatures)
+            throws PromptLoader.PromptLoadException {
+        int entry = find(promptId);
+        if (entry < 0) {
+            return null;
+        }
+        Prompt prompt = prompts.get(entry);
+        if (prompt != null && (!verify || verified.get(contentIndex(entry)) != null)
+                && (signatures == null || signed.get(entry) != null)) {
+            return prompt;
+        }
+        int content = contentIndex(entry);
+        if ((verify || signatures != null) && verified.get(content) == null) {
+            if (!MessageDigest.isEqual(PromptDigests.newSha256().digest(contentBytes(content)), storedHash(content))) {
+                throw new PromptLoader.PromptLoadException("Checksum verification failed for: " + promptId);
+            }
+            verified.set(content, Boolean.TRUE);
+        }
+        if (signatures != null && signed.get(entry) == null) {
+            verifySignature(entry, promptId, signatures);
+            signed.set(entry, Boolean.TRUE);
+        }
+        if (prompt == null) {
+            prompt = new Prompt(promptId, content(content), string(entry, 2), string(entry, 4));
+            if (!prompts.compareAndSet(entry, null, prompt)) {
+                prompt = prompts.get(entry);
+            }
+        }
+        return prompt;
+    }
+
+    private void verifySignature(int entry, String promptId, PromptSignatureVerifier signatures)
+            throws PromptLoader.PromptLoadException {
+        String approvedBy = approvedBy(entry);
+        if (approvedBy == null) {
+            throw new PromptLoader.PromptLoadException("Prompt has no approvedBy key to verify its signature: "
+                    + promptId);
+        }
+        byte[] signature = new byte[entryField(entry, 10)];
+        if (signature.length == 0) {
+            throw new PromptLoader.PromptLoadException("Signature not found in bundle for: " + promptId);
+        }
+        buffer.get((int) (signaturesOffset + entryField(entry, 9)), signature);
+        if (!signatures.verify(storedHash(contentIndex(entry)), signature, approvedBy)) {
+            logger.error("Signature verification failed for prompt: {} (approvedBy: {})", promptId, approvedBy);
+            throw new PromptLoader.PromptLoadException("Signature verification failed for: " + promptId);
+        }
+        logger.debug("Signature verified for prompt: {}", promptId);
+    }
+
+    public boolean contains(String promptId) {
+        return find(promptId) >= 0;
+    }
+
+    public String getChecksum(String promptId) {
+        int entry = find(promptId);
+        return entry < 0 ? null : PromptDigests.format(storedHash(contentIndex(entry)));
+    }
+
+    public String getVersion(String promptId) {
+        int entry = find(promptId);
+        return entry < 0 ? null : string(entry, 2);
+    }
+
+    public String getApprovedBy(String promptId) {
+        int entry = find(promptId);
+        return entry < 0 ? null : approvedBy(entry);
+    }
+
+    /**
+     * Whether the catalog the bundle was built from required signatures.
+     */
+    public boolean isSignatureRequired() {
+        return (flags & FLAG_SIGNATURE_REQUIRED) != 0;
+    }
+
+    /**
+     * Prompt ids in bundle order; decoded on access.
+     */
+    public List<String> getPromptIds() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return string(index, 0);
+            }
+
+            @Override
+            public int size() {
+                return entryCount;
+            }
+        };
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public int getContentCount() {
+        return contentCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private int find(String promptId) {
+        if (entryCount == 0) {
+            return -1;
+        }
+        byte[] id = promptId.getBytes(StandardCharsets.UTF_8);
+        int mask = tableSize - 1;
+        for (int i = fnv1a(id) & mask; ; i = (i + 1) & mask) {
+            int entry = buffer.getInt((int) (tableOffset + 4L * i)) - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (stringEquals(entry, id)) {
+                return entry;
+            }
+        }
+    }
+
+    private int entryField(int entry, int field) {
+        return buffer.getInt((int) (entriesOffset + (long) entry * ENTRY_BYTES + 4L * field));
+    }
+
+    private int contentIndex(int entry) {
+        return entryField(entry, 6);
+    }
+
+    private boolean stringEquals(int entry, byte[] id) {
+        if (entryField(entry, 1) != id.length) {
+            return false;
+        }
+        int offset = (int) (poolOffset + entryField(entry, 0));
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(offset + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the pool string whose offset is entry field {@code field} and
+     * whose length is the next field.
+     */
+    private String string(int entry, int field) {
+        byte[] bytes = new byte[entryField(entry, field + 1)];
+        buffer.get((int) (poolOffset + entryField(entry, field)), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String approvedBy(int entry) {
+        return entryField(entry, 7) < 0 ? null : string(entry, 7);
+    }
+
+    private byte[] storedHash(int content) {
+        byte[] hash = new byte[32];
+        buffer.get((int) (contentsOffset + (long) content * CONTENT_BYTES + 12), hash);
+        return hash;
+    }
+
+    private byte[] contentBytes(int content) {
+        long record = contentsOffset + (long) content * CONTENT_BYTES;
+        byte[] bytes = new byte[buffer.getInt((int) record + 8)];
+        buffer.get((int) (dataOffset + buffer.getLong((int) record)), bytes);
+        return bytes;
+    }
+
+    private String content(int content) {
+        String decoded = contents.get(content);
+        if (decoded == null) {
+            decoded = new String(contentBytes(content), StandardCharsets.UTF_8);
+            if (!contents.compareAndSet(content, null, decoded)) {
+                decoded = contents.get(content);
+            }
+        }
+        return decoded;
+    }
+
+    static int fnv1a(byte[] bytes) {
+        int hash = 0x811c9dc5;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash & 0x7fffffff;
+    }
+
+    /**
+     * Writes {@code prompts} as a bundle, replacing {@code target} atomically.
+     */
+    public static void write(Path target, List<Prompt> prompts) throws IOException {
+        write(target, prompts, Collections.emptyMap(), false);
+    }
+
+    /**
+     * Writes {@code prompts} with the approvals of those listed in
+     * {@code approvals}, keyed by prompt id.
+     */
+    public static void write(Path target, List<Prompt> prompts, Map<String, Approval> approvals,
+                             boolean signatureRequired) throws IOException {
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        ByteArrayOutputStream signatures = new ByteArrayOutputStream();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        Map<String, Integer> poolOffsets = new HashMap<>();
+        Map<ByteBuffer, Integer> contentIndexes = new HashMap<>();
+        List<long[]> contentRecords = new ArrayList<>();
+        List<byte[]> contentHashes = new ArrayList<>();
+        int[][] entries = new int[prompts.size()][];
+        byte[][] ids = new byte[prompts.size()][];
+
+        for (int i = 0; i < prompts.size(); i++) {
+            Prompt prompt = prompts.get(i);
+            byte[] bytes = prompt.getContent().getBytes(StandardCharsets.UTF_8);
+            byte[] hash = PromptDigests.newSha256().digest(bytes);
+            Integer content = contentIndexes.get(ByteBuffer.wrap(hash));
+            if (content == null) {
+                content = contentRecords.size();
+                contentIndexes.put(ByteBuffer.wrap(hash), content);
+                contentRecords.add(new long[]{data.size(), bytes.length});
+                contentHashes.add(hash);
+                data.write(bytes);
+            }
+            ids[i] = prompt.getId().getBytes(StandardCharsets.UTF_8);
+            Approval approval = approvals.getOrDefault(prompt.getId(), Approval.NONE);
+            byte[] signature = approval.signature != null ? approval.signature : new byte[0];
+            entries[i] = new int[]{
+                    poolString(pool, poolOffsets, prompt.getId()), ids[i].length,
+                    poolString(pool, poolOffsets, prompt.getVersion()), utf8Length(prompt.getVersion()),
+                    poolString(pool, poolOffsets, prompt.getRiskLevel()), utf8Length(prompt.getRiskLevel()),
+                    content,
+                    approval.approvedBy != null ? poolString(pool, poolOffsets, approval.approvedBy) : -1,
+                    approval.approvedBy != null ? utf8Length(approval.approvedBy) : 0,
+                    signatures.size(), signature.length};
+            signatures.write(signature);
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(2, prompts.size() * 2 - 1)) << 1;
+        int[] table = new int[tableSize];
+        for (int i = 0; i < prompts.size(); i++) {
+            int slot = fnv1a(ids[i]) & (tableSize - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = i + 1;
+        }
+
+        long entriesOffset = HEADER_BYTES;
+        long contentsOffset = entriesOffset + (long) entries.length * ENTRY_BYTES;
+        long tableOffset = contentsOffset + (long) contentRecords.size() * CONTENT_BYTES;
+        long poolOffset = tableOffset + 4L * tableSize;
+        long signaturesOffset = poolOffset + pool.size();
+        long dataOffset = signaturesOffset + signatures.size();
+        if (dataOffset + data.size() > Integer.MAX_VALUE) {
+            throw new IOException("Prompt bundle would exceed 2 GB");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) poolOffset);
+        header.put(MAGIC).putInt(entries.length).putInt(contentRecords.size()).putInt(tableSize)
+                .putInt(signatureRequired ? FLAG_SIGNATURE_REQUIRED : 0)
+                .putLong(entriesOffset).putLong(contentsOffset).putLong(tableOffset).putLong(poolOffset).putLong(dataOffset)
+                .putLong(signaturesOffset);
+        for (int[] entry : entries) {
+            for (int field : entry) {
+                header.putInt(field);
+            }
+        }
+        for (int i = 0; i < contentRecords.size(); i++) {
+            header.putLong(contentRecords.get(i)[0]).putInt((int) contentRecords.get(i)[1]).put(contentHashes.get(i));
+        }
+        for (int slot : table) {
+            header.putInt(slot);
+        }
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            out.write(header.array());
+            pool.writeTo(out);
+            signatures.writeTo(out);
+            data.writeTo(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int poolString(ByteArrayOutputStream pool, Map<String, Integer> offsets, String value) {
+        Integer offset = offsets.get(value);
+        if (offset == null) {
+            offset = pool.size();
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            pool.write(bytes, 0, bytes.length);
+            offsets.put(value, offset);
+        }
+        return offset;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Loads and verifies every prompt of a configuration and packs them into
+     * a bundle, together with their approvals. Fails without writing anything
+     * if any prompt fails.
+     */
+    public static PromptLoader.PreloadReport build(String configPath, Path target) throws IOException,
+            PromptLoader.PromptLoadException {
+        List<Prompt> prompts = new ArrayList<>();
+        Map<String, Approval> approvals = new HashMap<>();
+        PromptLoader.PreloadReport report;
+        boolean signatureRequired;
+        try (PromptLoader loader = new PromptLoader(configPath, true, true)) {
+            report = loader.preload();
+            report.throwIfFailed();
+            PromptCatalog catalog = loader.getCatalog();
+            signatureRequired = catalog.getBooleanSecuritySetting("signatureRequired", false);
+            Path configDir = Paths.get(configPath).toAbsolutePath().getParent();
+            for (String promptId : catalog.getPromptIds()) {
+                prompts.add(loader.loadPrompt(promptId));
+                PromptCatalog.Entry entry = catalog.get(promptId);
+                if (entry.getApprovedBy() != null) {
+                    approvals.put(promptId, new Approval(entry.getApprovedBy(),
+                            PromptSignatureVerifier.readSignature(configDir.resolve(entry.getSignaturePath()))));
+                }
+            }
+        }
+        write(target, prompts, approvals, signatureRequired);
+        logger.info("Wrote prompt bundle {} with {} prompts", target, prompts.size());
+        return report;
+    }
+
+    /**
+     * Who approved a prompt and their detached signature of its SHA-256,
+     * either of which may be {@code null}.
+     */
+    public static final class Approval {
+        static final Approval NONE = new Approval(null, null);
+
+        private final String approvedBy;
+        private final byte[] signature;
+
+        public Approval(String approvedBy, byte[] signature) {
+            this.approvedBy = approvedBy;
+            this.signature = signature;
+        }
+    }
+
+    public static void main(String[] args) {
+        String configPath = "./config/prompts.json";
+        String outPath = "./config/prompts.bundle";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--config":
+                    configPath = args[i + 1];
+                    break;
+                case "--out":
+                    outPath = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Usage: PromptBundle [--config prompts.json] [--out prompts.bundle]");
+                    System.exit(2);
+            }
+        }
+        try {
+            PromptLoader.PreloadReport report = build(configPath, Paths.get(outPath));
+            PromptBundle bundle = open(Paths.get(outPath));
+            System.out.println("Packed " + report.getLoadedCount() + " prompts (" + bundle.getContentCount()
+                    + " distinct contents) into " + outPath);
+        } catch (PromptLoader.PromptLoadException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Failed to write bundle: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
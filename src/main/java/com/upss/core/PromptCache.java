@@ -0,0 +1,328 @@
+package com.upss.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable {@link Prompt} snapshots keyed by prompt id and version. An entry
+ * remembers the modification time and size of the file it was read from and
+ * what it was verified against (its checksum and, with signatures, its
+ * approver and signature file); it is served only while both still match, so a file is re-read and re-verified once per content change rather
+ * than once per load. Lookups are a single {@link ConcurrentHashMap} read plus
+ * a file stat and never take a lock.
+ *
+ * <p>At most {@link #setMaxResidentVersions maxResidentVersions} versions of
+ * each prompt are kept; caching one more evicts the least recently served
+ * version of that prompt, which is simply read again if asked for later.
+ */
+public class PromptCache {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> versionsById = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long revalidateMillis;
+    private volatile int maxResidentVersions;
+
+    static String key(String promptId, String version) {
+        return promptId + "@" + version;
+    }
+
+    /**
+     * Returns the cached prompt if its file is unchanged and it was verified
+     * against {@code expectedChecksum}, otherwise {@code null}. The loader
+     * passes a key that also covers the signature policy in force.
+     */
+    public Prompt get(String promptId, String version, Path file, String expectedChecksum) {
+        Entry entry = entries.get(key(promptId, version));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!Objects.equals(entry.checksum, expectedChecksum) || !isFresh(entry, file)) {
+            stale.increment();
+            misses.increment();
+            entries.remove(key(promptId, version), entry);
+            return null;
+        }
+        hits.increment();
+        entry.lastAccess = System.nanoTime();
+        return entry.prompt;
+    }
+
+    private boolean isFresh(Entry entry, Path file) {
+        long now = System.currentTimeMillis();
+        if (now - entry.validatedAt < revalidateMillis) {
+            return true;
+        }
+        FileStamp current = FileStamp.of(file);
+        if (current == null || !current.equals(entry.stamp)) {
+            return false;
+        }
+        entry.validatedAt = now;
+        return true;
+    }
+
+    /**
+     * Caches a prompt read from a file whose attributes were {@code stamp}
+     * before reading, so a concurrent edit is picked up on the next lookup.
+     */
+    public void put(Prompt prompt, FileStamp stamp, String checksum) {
+        if (stamp == null) {
+            return;
+        }
+        loads.increment();
+        entries.put(key(prompt.getId(), prompt.getVersion()), new Entry(prompt, stamp, checksum));
+        Set<String> versions = versionsById.computeIfAbsent(prompt.getId(), id -> ConcurrentHashMap.newKeySet());
+        versions.add(prompt.getVersion());
+        int limit = maxResidentVersions;
+        if (limit > 0 && versions.size() > limit) {
+            evict(prompt.getId(), versions, prompt.getVersion(), limit);
+        }
+    }
+
+    /**
+     * Drops the least recently served versions of a prompt, never
+     * {@code keep}, until at most {@code limit} are left. Only runs when a
+     * prompt is read from disk, so lookups stay lock-free.
+     */
+    private void evict(String promptId, Set<String> versions, String keep, int limit) {
+        synchronized (versions) {
+            while (versions.size() > limit) {
+                String victim = null;
+                long oldest = Long.MAX_VALUE;
+                for (String version : versions) {
+                    Entry entry = entries.get(key(promptId, version));
+                    if (entry == null) {
+                        victim = version;
+                        break;
+                    }
+                    if (!version.equals(keep) && entry.lastAccess < oldest) {
+                        victim = version;
+                        oldest = entry.lastAccess;
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                versions.remove(victim);
+                if (entries.remove(key(promptId, victim)) != null) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Versions of a prompt currently cached.
+     */
+    public Set<String> getResidentVersions(String promptId) {
+        Set<String> resident = new TreeSet<>();
+        for (String version : versionsById.getOrDefault(promptId, Collections.emptySet())) {
+            if (entries.containsKey(key(promptId, version))) {
+                resident.add(version);
+            }
+        }
+        return resident;
+    }
+
+    public void invalidate(String promptId) {
+        entries.keySet().removeIf(key -> key.startsWith(promptId + "@"));
+        versionsById.remove(promptId);
+    }
+
+    /**
+     * Drops entries whose id and version are not in {@code live}, e.g. after
+     * the catalog has been reloaded.
+     */
+    public void retain(Set<String> live) {
+        entries.keySet().retainAll(live);
+        versionsById.clear();
+        for (Entry entry : entries.values()) {
+            versionsById.computeIfAbsent(entry.prompt.getId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(entry.prompt.getVersion());
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        versionsById.clear();
+    }
+
+    /**
+     * Skips the file stat for entries validated less than this long ago;
+     * {@code 0} (the default) checks the file on every lookup.
+     */
+    public void setRevalidateMillis(long revalidateMillis) {
+        this.revalidateMillis = revalidateMillis;
+    }
+
+    /**
+     * Versions kept per prompt; {@code 0} (the default) keeps all of them.
+     */
+    public void setMaxResidentVersions(int maxResidentVersions) {
+        this.maxResidentVersions = Math.max(0, maxResidentVersions);
+    }
+
+    public int getMaxResidentVersions() {
+        return maxResidentVersions;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Zeroes the hit, miss and eviction counters; cached entries are kept.
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        stale.reset();
+        loads.reset();
+        evictions.reset();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), stale.sum(), loads.sum(), evictions.sum(), entries.size());
+    }
+
+    private static final class Entry {
+        final Prompt prompt;
+        final FileStamp stamp;
+        final String checksum;
+        volatile long validatedAt;
+        volatile long lastAccess;
+
+        Entry(Prompt prompt, FileStamp stamp, String checksum) {
+            this.prompt = prompt;
+            this.stamp = stamp;
+            this.checksum = checksum;
+            this.validatedAt = System.currentTimeMillis();
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Modification time and size of a prompt file.
+     */
+    public static final class FileStamp {
+        private final long modifiedMillis;
+        private final long size;
+
+        FileStamp(long modifiedMillis, long size) {
+            this.modifiedMillis = modifiedMillis;
+            this.size = size;
+        }
+
+        /**
+         * Returns {@code null} if the file cannot be read.
+         */
+        public static FileStamp of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        public long getModifiedMillis() {
+            return modifiedMillis;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp other = (FileStamp) o;
+            return modifiedMillis == other.modifiedMillis && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(modifiedMillis) * 31 + Long.hashCode(size);
+        }
+    }
+
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long stale;
+        private final long loads;
+        private final long evictions;
+        private final int size;
+
+        Stats(long hits, long misses, long stale, long loads, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.stale = stale;
+            this.loads = loads;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Misses caused by a changed file or checksum.
+         */
+        public long getStale() {
+            return stale;
+        }
+
+        /**
+         * Prompts read and verified into the cache.
+         */
+        public long getLoads() {
+            return loads;
+        }
+
+        /**
+         * Versions dropped to stay within the per-prompt residency limit.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PromptCache.Stats{hits=%d, misses=%d, stale=%d, loads=%d, evictions=%d, size=%d}",
+                    hits, misses, stale, loads, evictions, size);
+        }
+    }
+}
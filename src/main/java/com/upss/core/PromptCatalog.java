@@ -0,0 +1,473 @@
+package com.upss.core;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable view of {@code prompts.json}: the prompt entries and settings
+ * {@link PromptLoader} needs. The file is parsed with a streaming
+ * {@link JsonReader} straight into a compact index instead of a JSON tree:
+ * one slot per prompt in parallel arrays, versions and risk levels shared
+ * between entries, well-formed checksums kept as 32 raw bytes and fields the
+ * loader does not use skipped. {@link Entry} objects are built on first
+ * lookup. A reload builds a new catalog rather than changing this one.
+ *
+ * <p>Besides its default {@code version}, a prompt may declare older or newer
+ * ones under {@code "versions": {"1.1.0": {"path": ..., "checksum": ...}}};
+ * a version without its own path, risk level or approver inherits the
+ * prompt's.
+ */
+public final class PromptCatalog {
+    private static final PromptCatalog EMPTY = new PromptCatalog(false, new Builder(), new JsonObject(), new JsonObject());
+
+    private static final String[] VERSION_FIELDS = {null, "path", "riskLevel", "checksum", "signature", "approvedBy"};
+
+    private final boolean hasPrompts;
+    private final int size;
+    private final String[] ids;
+    private final String[] paths;
+    private final String[] versions;
+    private final String[] riskLevels;
+    private final String[] approvers;
+    private final byte[] checksums;
+    private final Map<Integer, String> irregularChecksums;
+    private final Map<Integer, String> signaturePaths;
+    private final Map<Integer, Entry[]> otherVersions;
+    private final int[] table;
+    private final AtomicReferenceArray<Entry> materialized;
+    private final JsonObject settings;
+    private final JsonObject security;
+
+    private PromptCatalog(boolean hasPrompts, Builder builder, JsonObject settings, JsonObject security) {
+        this.hasPrompts = hasPrompts;
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.paths = Arrays.copyOf(builder.paths, size);
+        this.versions = Arrays.copyOf(builder.versions, size);
+        this.riskLevels = Arrays.copyOf(builder.riskLevels, size);
+        this.approvers = Arrays.copyOf(builder.approvers, size);
+        this.checksums = Arrays.copyOf(builder.checksums, size * 32);
+        this.irregularChecksums = builder.irregularChecksums;
+        this.signaturePaths = builder.signaturePaths;
+        this.otherVersions = builder.otherVersions;
+        this.table = builder.buildTable();
+        this.materialized = new AtomicReferenceArray<>(size);
+        this.settings = settings;
+        this.security = security;
+    }
+
+    public static PromptCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Parses a configuration file; fails rather than returning a partial
+     * catalog.
+     */
+    public static PromptCatalog parse(File configFile) throws IOException {
+        try (Reader reader = Files.newBufferedReader(configFile.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid prompt configuration: " + configFile, e);
+        }
+    }
+
+    static PromptCatalog parse(Reader source) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        Builder builder = new Builder();
+        boolean hasPrompts = false;
+        JsonObject settings = new JsonObject();
+        JsonObject security = new JsonObject();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("prompts".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                hasPrompts = true;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    readEntry(reader, reader.nextName(), builder);
+                }
+                reader.endObject();
+            } else if ("settings".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                settings = JsonParser.parseReader(reader).getAsJsonObject();
+            } else if ("security".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                security = JsonParser.parseReader(reader).getAsJsonObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new PromptCatalog(hasPrompts, builder, settings, security);
+    }
+
+    private static void readEntry(JsonReader reader, String id, Builder builder) throws IOException {
+        String path = null;
+        String version = null;
+        String riskLevel = "medium";
+        String checksum = null;
+        String approvedBy = null;
+        String signature = null;
+        List<String[]> declaredVersions = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "path":
+                    path = reader.nextString();
+                    break;
+                case "version":
+                    version = reader.nextString();
+                    break;
+                case "riskLevel":
+                    riskLevel = reader.nextString();
+                    break;
+                case "checksum":
+                    checksum = reader.nextString();
+                    break;
+                case "approvedBy":
+                    approvedBy = reader.nextString();
+                    break;
+                case "signature":
+                    signature = reader.nextString();
+                    break;
+                case "versions":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        declaredVersions = readVersions(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        builder.add(id, path, version, riskLevel, checksum, approvedBy, signature);
+        if (declaredVersions != null) {
+            builder.addVersions(id, path, version, riskLevel, approvedBy, declaredVersions);
+        }
+    }
+
+    /**
+     * Reads the {@code versions} object as {version, path, riskLevel, checksum,
+     * signature, approvedBy} tuples; unset fields stay {@code null}.
+     */
+    private static List<String[]> readVersions(JsonReader reader) throws IOException {
+        List<String[]> declared = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String[] fields = new String[6];
+            fields[0] = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                int index = Arrays.asList(VERSION_FIELDS).indexOf(field);
+                if (index < 1 || reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else {
+                    fields[index] = reader.nextString();
+                }
+            }
+            reader.endObject();
+            declared.add(fields);
+        }
+        reader.endObject();
+        return declared;
+    }
+
+    public boolean hasPrompts() {
+        return hasPrompts;
+    }
+
+    public Entry get(String promptId) {
+        int slot = slotOf(promptId);
+        if (slot < 0) {
+            return null;
+        }
+        Entry entry = materialized.get(slot);
+        if (entry == null) {
+            entry = new Entry(ids[slot], paths[slot], versions[slot], riskLevels[slot], checksumOf(slot),
+                    approvers[slot], signaturePaths.get(slot));
+            materialized.compareAndSet(slot, null, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Every declared version of a prompt, the default one first; empty if the
+     * prompt is unknown.
+     */
+    public List<Entry> getVersions(String promptId) {
+        int slot = slotOf(promptId);
+        if (slot < 0) {
+            return Collections.emptyList();
+        }
+        Entry[] others = otherVersions.get(slot);
+        if (others == null) {
+            return Collections.singletonList(get(promptId));
+        }
+        List<Entry> all = new ArrayList<>(others.length + 1);
+        all.add(get(promptId));
+        Collections.addAll(all, others);
+        return all;
+    }
+
+    private int slotOf(String promptId) {
+        if (size == 0) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int i = spread(promptId.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (slot < 0) {
+                return -1;
+            }
+            if (ids[slot].equals(promptId)) {
+                return slot;
+            }
+        }
+    }
+
+    private String checksumOf(int slot) {
+        String irregular = irregularChecksums.get(slot);
+        if (irregular != null) {
+            return irregular;
+        }
+        byte[] hash = Arrays.copyOfRange(checksums, slot * 32, slot * 32 + 32);
+        for (byte b : hash) {
+            if (b != 0) {
+                return PromptDigests.format(hash);
+            }
+        }
+        // All-zero means absent; a real all-zero digest would be stored as irregular
+        return null;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Prompt ids in declaration order.
+     */
+    public List<String> getPromptIds() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return ids[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean getBooleanSetting(String name, boolean defaultValue) {
+        return settings.has(name) ? settings.get(name).getAsBoolean() : defaultValue;
+    }
+
+    public long getLongSetting(String name, long defaultValue) {
+        return settings.has(name) ? settings.get(name).getAsLong() : defaultValue;
+    }
+
+    public boolean getBooleanSecuritySetting(String name, boolean defaultValue) {
+        JsonElement value = security.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsBoolean() : defaultValue;
+    }
+
+    public String getSecuritySetting(String name, String defaultValue) {
+        JsonElement value = security.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : defaultValue;
+    }
+
+    private static final class Builder {
+        private final Map<String, Integer> slots = new HashMap<>();
+        private final Map<String, String> pool = new HashMap<>();
+        private final Map<Integer, String> irregularChecksums = new HashMap<>();
+        private final Map<Integer, String> signaturePaths = new HashMap<>();
+        private final Map<Integer, Entry[]> otherVersions = new HashMap<>();
+        private String[] ids = new String[16];
+        private String[] paths = new String[16];
+        private String[] versions = new String[16];
+        private String[] riskLevels = new String[16];
+        private String[] approvers = new String[16];
+        private byte[] checksums = new byte[16 * 32];
+        private int size;
+
+        void add(String id, String path, String version, String riskLevel, String checksum, String approvedBy,
+                 String signature) {
+            Integer existing = slots.get(id);
+            int slot = existing != null ? existing : size++;
+            if (existing == null) {
+                slots.put(id, slot);
+                if (slot == ids.length) {
+                    int capacity = ids.length * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    paths = Arrays.copyOf(paths, capacity);
+                    versions = Arrays.copyOf(versions, capacity);
+                    riskLevels = Arrays.copyOf(riskLevels, capacity);
+                    approvers = Arrays.copyOf(approvers, capacity);
+                    checksums = Arrays.copyOf(checksums, capacity * 32);
+                }
+            }
+            ids[slot] = id;
+            paths[slot] = path;
+            versions[slot] = share(version);
+            riskLevels[slot] = share(riskLevel);
+            approvers[slot] = share(approvedBy);
+            irregularChecksums.remove(slot);
+            signaturePaths.remove(slot);
+            if (signature != null) {
+                signaturePaths.put(slot, signature);
+            }
+            otherVersions.remove(slot);
+            Arrays.fill(checksums, slot * 32, slot * 32 + 32, (byte) 0);
+            byte[] hash = PromptDigests.parse(checksum);
+            if (hash != null && !isZero(hash)) {
+                System.arraycopy(hash, 0, checksums, slot * 32, 32);
+            } else if (checksum != null) {
+                irregularChecksums.put(slot, checksum);
+            }
+        }
+
+        void addVersions(String id, String path, String version, String riskLevel, String approvedBy,
+                         List<String[]> declared) {
+            List<Entry> entries = new ArrayList<>(declared.size());
+            for (String[] fields : declared) {
+                if (fields[0].equals(version)) {
+                    continue;
+                }
+                entries.add(new Entry(id, fields[1] != null ? fields[1] : path, share(fields[0]),
+                        share(fields[2] != null ? fields[2] : riskLevel), fields[3],
+                        share(fields[5] != null ? fields[5] : approvedBy), fields[4]));
+            }
+            if (!entries.isEmpty()) {
+                otherVersions.put(slots.get(id), entries.toArray(new Entry[0]));
+            }
+        }
+
+        private String share(String value) {
+            return value == null ? null : pool.computeIfAbsent(value, v -> v);
+        }
+
+        private static boolean isZero(byte[] hash) {
+            for (byte b : hash) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Open-addressing table of slot + 1, sized to stay at most half full.
+         */
+        int[] buildTable() {
+            int capacity = Integer.highestOneBit(Math.max(2, size * 2 - 1)) << 1;
+            int[] table = new int[capacity];
+            int mask = capacity - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int i = spread(ids[slot].hashCode()) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = slot + 1;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Metadata of one prompt as declared in the configuration.
+     */
+    public static final class Entry {
+        private final String id;
+        private final String path;
+        private final String version;
+        private final String riskLevel;
+        private final String checksum;
+        private final String approvedBy;
+        private final String signaturePath;
+
+        Entry(String id, String path, String version, String riskLevel, String checksum, String approvedBy,
+              String signaturePath) {
+            this.id = id;
+            this.path = path;
+            this.version = version;
+            this.riskLevel = riskLevel;
+            this.checksum = checksum;
+            this.approvedBy = approvedBy;
+            this.signaturePath = signaturePath;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getRiskLevel() {
+            return riskLevel;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Id of the trusted key expected to have signed the prompt file.
+         */
+        public String getApprovedBy() {
+            return approvedBy;
+        }
+
+        /**
+         * Detached signature file, relative like {@link #getPath()}; defaults
+         * to the prompt file with a {@code .sig} suffix.
+         */
+        public String getSignaturePath() {
+            return signaturePath != null ? signaturePath
+                    : path != null ? path + PromptSignatureVerifier.SIGNATURE_SUFFIX : null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.upss.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the prompt configuration and prompt directories and runs a reload
+ * once changes have settled for {@code debounceMillis}. Bursts of events, such
+ * as an editor's save or a deployment copying many files, cause one reload.
+ * Reloads run on the watcher's own thread, never on a caller's.
+ */
+public class PromptCatalogWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PromptCatalogWatcher.class);
+
+    private final WatchService watchService;
+    private final Runnable reload;
+    private final long debounceMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Thread thread;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private ScheduledFuture<?> pending;
+    private volatile boolean running = true;
+
+    public PromptCatalogWatcher(Collection<Path> directories, long debounceMillis, Runnable reload) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.reload = reload;
+        this.debounceMillis = debounceMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread reloader = new Thread(runnable, "upss-prompt-reload");
+            reloader.setDaemon(true);
+            return reloader;
+        });
+        watch(directories);
+        this.thread = new Thread(this::run, "upss-prompt-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Adds directories to the watch set; already watched ones are ignored.
+     */
+    public synchronized void watch(Collection<Path> directories) {
+        Set<Path> watched = new HashSet<>(keys.values());
+        for (Path directory : directories) {
+            Path normalized = directory.toAbsolutePath().normalize();
+            if (watched.contains(normalized)) {
+                continue;
+            }
+            try {
+                WatchKey key = normalized.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                keys.put(key, normalized);
+                watched.add(normalized);
+            } catch (IOException e) {
+                logger.warn("Cannot watch prompt directory {} = {}", normalized, e.toString());
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            key.pollEvents();
+            if (!key.reset()) {
+                synchronized (this) {
+                    keys.remove(key);
+                }
+            }
+            schedule();
+        }
+    }
+
+    private synchronized void schedule() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(this::runReload, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void runReload() {
+        try {
+            reload.run();
+        } catch (RuntimeException e) {
+            logger.error("Prompt catalog reload failed = {}", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+        scheduler.shutdownNow();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.upss.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed prompt text: contents are keyed by their SHA-256, so the
+ * same text loaded under several ids or versions, or from several copies of a
+ * file, is held once. Entries are weakly referenced and disappear once no
+ * {@link Prompt} uses them.
+ */
+public class PromptContentStore {
+    private final ConcurrentMap<Key, ContentRef> contents = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Returns the stored string for {@code sha256}, storing {@code content}
+     * if there is none. {@code sha256} must be the hash of the UTF-8 bytes the
+     * content was decoded from.
+     */
+    public String intern(byte[] sha256, String content) {
+        expunge();
+        lookups.increment();
+        Key key = new Key(sha256);
+        while (true) {
+            ContentRef existing = contents.get(key);
+            String stored = existing == null ? null : existing.get();
+            if (stored != null) {
+                if (stored != content) {
+                    shared.increment();
+                    bytesSaved.add(2L * content.length());
+                }
+                return stored;
+            }
+            ContentRef created = new ContentRef(key, content, collected);
+            if (existing == null ? contents.putIfAbsent(key, created) == null : contents.replace(key, existing, created)) {
+                return content;
+            }
+        }
+    }
+
+    private void expunge() {
+        ContentRef ref;
+        while ((ref = (ContentRef) collected.poll()) != null) {
+            contents.remove(ref.key, ref);
+        }
+    }
+
+    /**
+     * Distinct contents currently held.
+     */
+    public int size() {
+        expunge();
+        return contents.size();
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Lookups answered with an already stored copy.
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    /**
+     * Approximate heap not spent on duplicate copies, counting two bytes per char.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private static final class ContentRef extends WeakReference<String> {
+        final Key key;
+
+        ContentRef(Key key, String content, ReferenceQueue<String> queue) {
+            super(content, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+        private final byte[] hash;
+        private final int hashCode;
+
+        Key(byte[] hash) {
+            this.hash = hash.clone();
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
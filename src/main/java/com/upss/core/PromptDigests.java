@@ -0,0 +1,88 @@
+package com.upss.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 checksums in the {@code sha256:<hex>} form used by
+ * {@code prompts.json}, computed over raw file bytes so they do not depend on
+ * the platform charset. Files are streamed through a bounded buffer and
+ * expected checksums are compared in constant time.
+ */
+public final class PromptDigests {
+    public static final String PREFIX = "sha256:";
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private PromptDigests() {
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Digests a file without holding more than one buffer of it in memory.
+     */
+    public static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(channel.size(), BUFFER_BYTES)));
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    public static String format(byte[] hash) {
+        char[] chars = new char[PREFIX.length() + hash.length * 2];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        int position = PREFIX.length();
+        for (byte b : hash) {
+            chars[position++] = HEX[(b >> 4) & 0xf];
+            chars[position++] = HEX[b & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes {@code sha256:<hex>}; returns {@code null} if it is not a
+     * well-formed SHA-256 checksum.
+     */
+    public static byte[] parse(String checksum) {
+        if (checksum == null || !checksum.startsWith(PREFIX) || checksum.length() != PREFIX.length() + 64) {
+            return null;
+        }
+        byte[] hash = new byte[32];
+        for (int i = 0; i < hash.length; i++) {
+            int high = Character.digit(checksum.charAt(PREFIX.length() + 2 * i), 16);
+            int low = Character.digit(checksum.charAt(PREFIX.length() + 2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            hash[i] = (byte) ((high << 4) | low);
+        }
+        return hash;
+    }
+
+    /**
+     * Compares a computed hash with an expected checksum in time independent
+     * of where they differ.
+     */
+    public static boolean matches(byte[] hash, String expectedChecksum) {
+        byte[] expected = parse(expectedChecksum);
+        return expected != null && MessageDigest.isEqual(hash, expected);
+    }
+}
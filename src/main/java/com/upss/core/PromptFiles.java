@@ -0,0 +1,102 @@
+package com.upss.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * Bulk reading of prompt files as UTF-8. The size is checked before anything
+ * is read, so an oversized file costs one stat rather than a full read. Small
+ * files are read with a single channel read into an exact-size array; files
+ * of at least {@link #MAP_THRESHOLD_BYTES} are memory-mapped and decoded
+ * straight from the mapping. A {@link MessageDigest} can be fed the same
+ * bytes during the read, so verifying a checksum needs no second pass and no
+ * re-encoded copy of the content.
+ */
+public final class PromptFiles {
+    public static final long MAP_THRESHOLD_BYTES = 1024 * 1024;
+
+    private PromptFiles() {
+    }
+
+    /**
+     * Reads {@code file} as UTF-8, rejecting files larger than
+     * {@code maxBytes}; {@code 0} means no limit.
+     */
+    public static String readUtf8(Path file, long maxBytes) throws IOException {
+        return readUtf8(file, maxBytes, null, MAP_THRESHOLD_BYTES);
+    }
+
+    /**
+     * Like {@link #readUtf8(Path, long)}, also updating {@code digest} with
+     * the raw bytes read.
+     */
+    public static String readUtf8(Path file, long maxBytes, MessageDigest digest) throws IOException {
+        return readUtf8(file, maxBytes, digest, MAP_THRESHOLD_BYTES);
+    }
+
+    static String readUtf8(Path file, long maxBytes, MessageDigest digest, long mapThreshold) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            checkSize(file, size, maxBytes);
+            if (size >= mapThreshold) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (digest != null) {
+                    digest.update(mapped.duplicate());
+                }
+                return StandardCharsets.UTF_8.decode(mapped).toString();
+            }
+
+            byte[] bytes = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    // Truncated while reading
+                    break;
+                }
+            }
+            if (digest != null) {
+                digest.update(bytes, 0, buffer.position());
+            }
+            return new String(bytes, 0, buffer.position(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void checkSize(Path file, long size, long maxBytes) throws PromptTooLargeException {
+        if (maxBytes > 0 && size > maxBytes) {
+            throw new PromptTooLargeException(file, size, maxBytes);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new PromptTooLargeException(file, size, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Thrown when a prompt file is larger than {@code settings.maxPromptSize}.
+     */
+    public static class PromptTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long size;
+        private final long maxBytes;
+
+        public PromptTooLargeException(Path file, long size, long maxBytes) {
+            super("Prompt file " + file + " is " + size + " bytes, limit is " + maxBytes);
+            this.size = size;
+            this.maxBytes = maxBytes;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+    }
+}
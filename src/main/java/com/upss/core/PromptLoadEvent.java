@@ -0,0 +1,64 @@
+package com.upss.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one {@link PromptLoader#loadPrompt} call. The loader fills
+ * in where the prompt came from while it resolves it; nothing is committed
+ * unless the event is enabled.
+ */
+@Name(PromptLoadEvent.NAME)
+@Label("Prompt Load")
+@Category({"UPSS", "Prompts"})
+@Description("Resolution of one prompt by the PromptLoader")
+@StackTrace(false)
+final class PromptLoadEvent extends Event {
+    static final String NAME = "com.upss.PromptLoad";
+    static final String PRELOADED = "preloaded";
+    static final String CACHE = "cache";
+    static final String FILE = "file";
+    static final String BUNDLE = "bundle";
+
+    @Label("Prompt Id")
+    String promptId;
+
+    @Label("Version Spec")
+    String versionSpec;
+
+    @Label("Version")
+    @Description("Version that was loaded, empty if the load failed")
+    String version;
+
+    @Label("Source")
+    @Description("preloaded, cache, file or bundle")
+    String source;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Bytes Read")
+    @DataAmount(DataAmount.BYTES)
+    long bytesRead;
+
+    @Label("Verification Time")
+    @Description("Finishing the SHA-256 digest and checking it against the catalog checksum and signature; "
+            + "hashing itself is streamed with the read")
+    @Timespan(Timespan.NANOSECONDS)
+    long verificationNanos;
+
+    void finish(String promptId, String versionSpec, Prompt prompt) {
+        if (shouldCommit()) {
+            this.promptId = promptId;
+            this.versionSpec = versionSpec;
+            this.version = prompt == null ? null : prompt.getVersion();
+            commit();
+        }
+    }
+}
@@ -1,125 +1,727 @@
 package com.upss.core;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
-public class PromptLoader {
+public class PromptLoader implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(PromptLoader.class);
+    public static final long DEFAULT_RELOAD_DEBOUNCE_MILLIS = 250;
+    public static final int DEFAULT_MAX_RESIDENT_VERSIONS = 3;
+    public static final String DEFAULT_TRUSTED_KEYS_PATH = "trusted-keys";
     private final String configPath;
     private final boolean enableValidation;
     private final boolean requireChecksum;
-    private JsonObject configuration;
+    private final boolean verifyBundleSignatures;
+    private final PromptCache cache = new PromptCache();
+    private final PromptContentStore contentStore = new PromptContentStore();
+    private final PromptSignatureVerifier signatures = new PromptSignatureVerifier(TrustedKeyStore.empty());
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final LongAdder preloadedHits = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failedReloads = new LongAdder();
+    private PromptCatalogWatcher watcher;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private volatile int maxResidentVersions = -1;
 
     public PromptLoader(String configPath, boolean enableValidation, boolean requireChecksum) {
         this.configPath = configPath;
         this.enableValidation = enableValidation;
         this.requireChecksum = requireChecksum;
-        loadConfiguration();
+        this.verifyBundleSignatures = false;
+        this.snapshot.set(new Snapshot(loadConfiguration(), null, Collections.emptyMap(), Collections.emptyMap(), 0));
+        configureResidency(getCatalog());
+        configureSignatures(getCatalog());
+        if (getCatalog().getBooleanSetting("allowHotReload", false)) {
+            try {
+                enableHotReload(DEFAULT_RELOAD_DEBOUNCE_MILLIS);
+            } catch (IOException e) {
+                logger.error("Failed to enable prompt hot reload", e);
+            }
+        }
     }
 
     public PromptLoader(String configPath) {
         this(configPath, true, true);
     }
 
-    private void loadConfiguration() {
+    private PromptLoader(PromptBundle bundle, boolean requireChecksum, String trustedKeysPath) throws IOException {
+        this.configPath = bundle.getFile().toString();
+        this.enableValidation = true;
+        this.requireChecksum = requireChecksum;
+        this.verifyBundleSignatures = trustedKeysPath != null;
+        checkBundleSignatures(bundle);
+        if (verifyBundleSignatures) {
+            signatures.setKeyStore(loadTrustedKeys(new File(trustedKeysPath)));
+        }
+        this.snapshot.set(new Snapshot(PromptCatalog.empty(), bundle, Collections.emptyMap(), Collections.emptyMap(), 0));
+    }
+
+    /**
+     * Serves prompts from a {@link PromptBundle} built by
+     * {@code PromptBundle --config prompts.json --out prompts.bundle} instead
+     * of {@code prompts.json} and prompt files. With {@code requireChecksum},
+     * each content is checked against its stored SHA-256 the first time it is
+     * served. {@link #reload()} re-opens the bundle file. Bundles built from
+     * a catalog that sets {@code security.signatureRequired} are refused; open
+     * those with trusted keys.
+     */
+    public static PromptLoader fromBundle(String bundlePath, boolean requireChecksum) throws IOException {
+        return fromBundle(bundlePath, requireChecksum, null);
+    }
+
+    /**
+     * As {@link #fromBundle(String, boolean)}, and verifies each prompt's
+     * signature stored in the bundle against the public keys in
+     * {@code trustedKeysPath} the first time it is served.
+     */
+    public static PromptLoader fromBundle(String bundlePath, boolean requireChecksum, String trustedKeysPath)
+            throws IOException {
+        return new PromptLoader(PromptBundle.open(Paths.get(bundlePath)), requireChecksum, trustedKeysPath);
+    }
+
+    private void checkBundleSignatures(PromptBundle bundle) throws IOException {
+        if (bundle.isSignatureRequired() && !verifyBundleSignatures) {
+            throw new IOException("Prompt bundle requires signatures, open it with trusted keys: " + bundle.getFile());
+        }
+    }
+
+    private void configureResidency(PromptCatalog catalog) {
+        cache.setMaxResidentVersions(maxResidentVersions >= 0 ? maxResidentVersions
+                : (int) catalog.getLongSetting("maxResidentVersions", DEFAULT_MAX_RESIDENT_VERSIONS));
+    }
+
+    /**
+     * Loads the trusted keys when {@code security.signatureRequired} is set,
+     * from {@code security.trustedKeysPath} relative to the configuration.
+     * Cached prompts are dropped if the keys changed, so they are verified
+     * again with the new ones. Unreadable keys leave the store empty, which
+     * rejects every signature.
+     */
+    private void configureSignatures(PromptCatalog catalog) {
+        if (!catalog.getBooleanSecuritySetting("signatureRequired", false)) {
+            return;
+        }
+        TrustedKeyStore keys = loadTrustedKeys(
+                resolvePromptFile(catalog.getSecuritySetting("trustedKeysPath", DEFAULT_TRUSTED_KEYS_PATH)));
+        if (!keys.equals(signatures.getKeyStore())) {
+            signatures.setKeyStore(keys);
+            cache.clear();
+        }
+    }
+
+    private static TrustedKeyStore loadTrustedKeys(File directory) {
+        TrustedKeyStore keys = TrustedKeyStore.empty();
         try {
-            File configFile = new File(configPath);
-            if (!configFile.exists()) {
-                logger.warn("Configuration file not found at: {}", configPath);
-                this.configuration = new JsonObject();
-                return;
-            }
+            keys = TrustedKeyStore.load(directory.toPath());
+        } catch (IOException e) {
+            logger.error("Failed to load trusted keys from {}", directory, e);
+        }
+        if (keys.size() == 0) {
+            logger.warn("Signatures are required but no trusted keys were found in: {}", directory);
+        }
+        return keys;
+    }
 
-            FileReader reader = new FileReader(configFile);
-            this.configuration = JsonParser.parseReader(reader).getAsJsonObject();
-            reader.close();
+    private PromptCatalog loadConfiguration() {
+        File configFile = new File(configPath);
+        if (!configFile.exists()) {
+            logger.warn("Configuration file not found at: {}", configPath);
+            return PromptCatalog.empty();
+        }
+        try {
+            PromptCatalog catalog = PromptCatalog.parse(configFile);
             logger.info("Configuration loaded successfully from: {}", configPath);
-        } catch (IOException | IllegalStateException e) {
+            return catalog;
+        } catch (IOException e) {
             logger.error("Failed to load configuration", e);
-            this.configuration = new JsonObject();
+            return PromptCatalog.empty();
         }
     }
 
     public Prompt loadPrompt(String promptId) throws PromptLoadException {
+        PromptLoadEvent event = new PromptLoadEvent();
+        event.begin();
+        Prompt prompt = null;
+        try {
+            prompt = resolve(promptId, event);
+            return prompt;
+        } finally {
+            event.finish(promptId, null, prompt);
+        }
+    }
+
+    private Prompt resolve(String promptId, PromptLoadEvent event) throws PromptLoadException {
         logger.debug("Loading prompt: {}", promptId);
 
-        if (!configuration.has("prompts")) {
+        Snapshot current = snapshot.get();
+        Prompt verified = current.prompts.get(promptId);
+        if (verified != null) {
+            preloadedHits.increment();
+            event.source = PromptLoadEvent.PRELOADED;
+            event.cacheHit = true;
+            return verified;
+        }
+        // A prompt that failed to preload is retried, so a fixed file is picked up without a reload
+        Prompt prompt = current.bundle != null ? load(current.bundle, promptId, event)
+                : load(current.catalog, promptId, event);
+        if (current.failures.containsKey(promptId)) {
+            recovered(current, prompt);
+        }
+        return prompt;
+    }
+
+    /**
+     * Moves a prompt that failed in the last preload or reload but has loaded
+     * since into the published prompts, unless a newer catalog replaced them.
+     */
+    private void recovered(Snapshot loadedFrom, Prompt prompt) {
+        String promptId = prompt.getId();
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.catalog != loadedFrom.catalog || current.bundle != loadedFrom.bundle
+                    || !current.failures.containsKey(promptId)) {
+                return;
+            }
+            Map<String, Prompt> prompts = new HashMap<>(current.prompts);
+            prompts.put(promptId, prompt);
+            Map<String, String> failures = new TreeMap<>(current.failures);
+            failures.remove(promptId);
+            if (snapshot.compareAndSet(current, new Snapshot(current.catalog, current.bundle,
+                    Collections.unmodifiableMap(prompts), Collections.unmodifiableMap(failures), current.generation))) {
+                logger.info("Prompt recovered after failing to preload: {}", promptId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads the highest declared version of a prompt matching
+     * {@code versionSpec}: {@code latest}, an exact version or a semver range
+     * such as {@code ^1.2.0} (see {@link VersionSpec}). Versions other than
+     * the default one are read on demand and kept within the
+     * {@code maxResidentVersions} limit per prompt.
+     */
+    public Prompt loadPrompt(String promptId, String versionSpec) throws PromptLoadException {
+        PromptLoadEvent event = new PromptLoadEvent();
+        event.begin();
+        Prompt prompt = null;
+        try {
+            prompt = resolve(promptId, versionSpec, event);
+            return prompt;
+        } finally {
+            event.finish(promptId, versionSpec, prompt);
+        }
+    }
+
+    private Prompt resolve(String promptId, String versionSpec, PromptLoadEvent event) throws PromptLoadException {
+        VersionSpec spec;
+        try {
+            spec = VersionSpec.parse(versionSpec);
+        } catch (IllegalArgumentException e) {
+            throw new PromptLoadException(e.getMessage(), e);
+        }
+        logger.debug("Loading prompt: {} (version spec: {})", promptId, spec);
+
+        Snapshot current = snapshot.get();
+        if (current.bundle != null) {
+            String version = current.bundle.getVersion(promptId);
+            if (version != null && !spec.matches(version)) {
+                throw new PromptLoadException("No version of " + promptId + " matches " + spec);
+            }
+            return resolve(promptId, event);
+        }
+        if (!current.catalog.hasPrompts()) {
             throw new PromptLoadException("No prompts defined in configuration");
         }
+        List<PromptCatalog.Entry> versions = current.catalog.getVersions(promptId);
+        if (versions.isEmpty()) {
+            throw new PromptLoadException("Prompt not found: " + promptId);
+        }
+        PromptCatalog.Entry entry = spec.select(versions, PromptCatalog.Entry::getVersion);
+        if (entry == null) {
+            throw new PromptLoadException("No version of " + promptId + " matches " + spec);
+        }
+        if (entry == versions.get(0)) {
+            return resolve(promptId, event);
+        }
+        return load(current.catalog, entry, event);
+    }
 
-        JsonObject prompts = configuration.getAsJsonObject("prompts");
-        if (!prompts.has(promptId)) {
+    /**
+     * Declared versions of a prompt, lowest first.
+     */
+    public List<String> getAvailableVersions(String promptId) {
+        Snapshot current = snapshot.get();
+        if (current.bundle != null) {
+            String version = current.bundle.getVersion(promptId);
+            return version != null ? Collections.singletonList(version) : Collections.emptyList();
+        }
+        List<String> versions = new ArrayList<>();
+        for (PromptCatalog.Entry entry : current.catalog.getVersions(promptId)) {
+            if (entry.getVersion() != null) {
+                versions.add(entry.getVersion());
+            }
+        }
+        versions.sort(VersionSpec::compare);
+        return versions;
+    }
+
+    private Prompt load(PromptBundle bundle, String promptId, PromptLoadEvent event) throws PromptLoadException {
+        event.source = PromptLoadEvent.BUNDLE;
+        Prompt prompt = bundle.load(promptId, requireChecksum, verifyBundleSignatures ? signatures : null);
+        if (prompt == null) {
             throw new PromptLoadException("Prompt not found: " + promptId);
         }
+        return prompt;
+    }
 
-        JsonObject promptConfig = prompts.getAsJsonObject(promptId);
-        String path = promptConfig.get("path").getAsString();
-        String version = promptConfig.get("version").getAsString();
-        String riskLevel = promptConfig.has("riskLevel") ? promptConfig.get("riskLevel").getAsString() : "medium";
-        String expectedChecksum = promptConfig.has("checksum") ? promptConfig.get("checksum").getAsString() : null;
+    private Prompt load(PromptCatalog catalog, String promptId, PromptLoadEvent event) throws PromptLoadException {
+        if (!catalog.hasPrompts()) {
+            throw new PromptLoadException("No prompts defined in configuration");
+        }
 
-        // Load prompt content
-        String content = loadPromptFile(path);
+        PromptCatalog.Entry entry = catalog.get(promptId);
+        if (entry == null) {
+            throw new PromptLoadException("Prompt not found: " + promptId);
+        }
+        return load(catalog, entry, event);
+    }
+
+    private Prompt load(PromptCatalog catalog, PromptCatalog.Entry entry, PromptLoadEvent event)
+            throws PromptLoadException {
+        String promptId = entry.getId();
+        if (entry.getPath() == null || entry.getVersion() == null) {
+            throw new PromptLoadException("Prompt configuration needs a path and a version: " + promptId);
+        }
+        String path = entry.getPath();
+        String version = entry.getVersion();
+        String riskLevel = entry.getRiskLevel();
+        String expectedChecksum = entry.getChecksum();
+
+        Path promptPath = resolvePromptFile(path).toPath();
+        boolean signatureRequired = catalog.getBooleanSecuritySetting("signatureRequired", false);
+        String verifiedWith = verificationKey(entry, signatureRequired);
+        Prompt cached = cache.get(promptId, version, promptPath, verifiedWith);
+        if (cached != null && cached.getRiskLevel().equals(riskLevel)) {
+            logger.debug("Serving cached prompt: {} (version: {})", promptId, version);
+            event.source = PromptLoadEvent.CACHE;
+            event.cacheHit = true;
+            return cached;
+        }
+        event.source = PromptLoadEvent.FILE;
+
+        // Stamp before reading so that an edit racing with the read invalidates the entry
+        PromptCache.FileStamp stamp = PromptCache.FileStamp.of(promptPath);
+        MessageDigest digest = PromptDigests.newSha256();
+        String content = loadPromptFile(path, catalog.getLongSetting("maxPromptSize", 0), digest);
+        event.bytesRead = stamp != null ? stamp.getSize() : content.length();
+        long verifyStart = System.nanoTime();
+        byte[] hash = digest.digest();
 
         if (requireChecksum && expectedChecksum != null) {
-            String actualChecksum = calculateChecksum(content);
-            if (!actualChecksum.equals(expectedChecksum)) {
+            if (!PromptDigests.matches(hash, expectedChecksum)) {
                 logger.error("Checksum mismatch for prompt: {}", promptId);
                 throw new PromptLoadException("Checksum verification failed for: " + promptId);
             }
             logger.debug("Checksum verified for prompt: {}", promptId);
         }
+        if (signatureRequired) {
+            verifySignature(entry, hash);
+        }
+        event.verificationNanos = System.nanoTime() - verifyStart;
 
         logger.info("Successfully loaded prompt: {} (version: {})", promptId, version);
-        return new Prompt(promptId, content, version, riskLevel);
+        Prompt prompt = new Prompt(promptId, contentStore.intern(hash, content), version, riskLevel);
+        cache.put(prompt, stamp, verifiedWith);
+        return prompt;
+    }
+
+    /**
+     * What a cached prompt must have been verified against to be served: its
+     * checksum and, when signatures are required, its approver and the stamp
+     * of its signature file, taken before the signature is read.
+     */
+    private String verificationKey(PromptCatalog.Entry entry, boolean signatureRequired) {
+        String checksum = requireChecksum ? entry.getChecksum() : null;
+        if (!signatureRequired) {
+            return checksum;
+        }
+        PromptCache.FileStamp signature = PromptCache.FileStamp.of(resolvePromptFile(entry.getSignaturePath()).toPath());
+        return checksum + "|" + entry.getApprovedBy() + "|"
+                + (signature != null ? signature.getModifiedMillis() + ":" + signature.getSize() : "-");
+    }
+
+    private void verifySignature(PromptCatalog.Entry entry, byte[] hash) throws PromptLoadException {
+        String promptId = entry.getId();
+        if (entry.getApprovedBy() == null) {
+            throw new PromptLoadException("Prompt has no approvedBy key to verify its signature: " + promptId);
+        }
+        byte[] signature;
+        try {
+            signature = PromptSignatureVerifier.readSignature(resolvePromptFile(entry.getSignaturePath()).toPath());
+        } catch (IOException e) {
+            throw new PromptLoadException("Failed to read signature for: " + promptId, e);
+        }
+        if (signature == null) {
+            throw new PromptLoadException("Signature file not found for: " + promptId);
+        }
+        if (!signatures.verify(hash, signature, entry.getApprovedBy())) {
+            logger.error("Signature verification failed for prompt: {} (approvedBy: {})", promptId,
+                    entry.getApprovedBy());
+            throw new PromptLoadException("Signature verification failed for: " + promptId);
+        }
+        logger.debug("Signature verified for prompt: {}", promptId);
+    }
+
+    private File resolvePromptFile(String relativePath) {
+        File configDir = new File(configPath).getParentFile();
+        return new File(configDir, relativePath);
     }
 
-    private String loadPromptFile(String relativePath) throws PromptLoadException {
+    private String loadPromptFile(String relativePath, long maxPromptSize, MessageDigest digest)
+            throws PromptLoadException {
+        File promptFile = resolvePromptFile(relativePath);
+        if (!promptFile.exists()) {
+            throw new PromptLoadException("Prompt file not found: " + promptFile.getAbsolutePath());
+        }
         try {
-            File configDir = new File(configPath).getParentFile();
-            File promptFile = new File(configDir, relativePath);
+            return PromptFiles.readUtf8(promptFile.toPath(), maxPromptSize, digest);
+        } catch (PromptFiles.PromptTooLargeException e) {
+            logger.error("Prompt file exceeds maxPromptSize: {}", e.getMessage());
+            throw new PromptLoadException("Prompt file exceeds maxPromptSize: " + relativePath, e);
+        } catch (IOException e) {
+            logger.error("Failed to load prompt file", e);
+            throw new PromptLoadException("Failed to load prompt file", e);
+        }
+    }
 
-            if (!promptFile.exists()) {
-                throw new PromptLoadException("Prompt file not found: " + promptFile.getAbsolutePath());
+    /**
+     * Watches the configuration and prompt directories and, once changes
+     * settle, reloads the catalog on a background thread. Loads are served
+     * from the previous catalog until the new one is published, and keep it
+     * if the new one cannot be parsed.
+     */
+    public synchronized void enableHotReload(long debounceMillis) throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        reload();
+        watcher = new PromptCatalogWatcher(watchedDirectories(getCatalog()), debounceMillis, this::reload);
+        logger.info("Hot reload enabled for: {}", configPath);
+    }
+
+    public synchronized boolean isHotReloadEnabled() {
+        return watcher != null;
+    }
+
+    /**
+     * Re-reads the configuration and every prompt it declares, as
+     * {@link #preload()} does, and swaps the result in atomically. Prompts
+     * that failed are reported by {@link #loadPrompt}. Returns {@code false},
+     * keeping the current catalog, if the configuration cannot be parsed.
+     */
+    public synchronized boolean reload() {
+        PromptCatalog catalog = PromptCatalog.empty();
+        PromptBundle bundle = null;
+        try {
+            if (snapshot.get().bundle != null) {
+                bundle = PromptBundle.open(Paths.get(configPath));
+                checkBundleSignatures(bundle);
+            } else {
+                catalog = PromptCatalog.parse(new File(configPath));
             }
-            
-            StringBuilder content = new StringBuilder();
-            try (FileReader reader = new FileReader(promptFile)) {
-                int c;
-                while ((c = reader.read()) != -1) {
-                    content.append((char) c);
+        } catch (IOException e) {
+            logger.error("Failed to reload configuration, keeping the current catalog", e);
+            failedReloads.increment();
+            return false;
+        }
+
+        configureResidency(catalog);
+        configureSignatures(catalog);
+        PreloadReport report = loadAll(catalog, bundle, parallelism);
+        publish(catalog, bundle, report);
+        if (watcher != null) {
+            watcher.watch(watchedDirectories(catalog));
+        }
+        reloads.increment();
+        logger.info("Prompt catalog reloaded: {} (generation {})", report, getCatalogGeneration());
+        return true;
+    }
+
+    /**
+     * Loads and verifies every prompt of the current catalog on all cores and
+     * publishes them, so later loads are served from memory. Failures do not
+     * stop the preload; they are collected in the report and reported by
+     * {@link #loadPrompt}. Call before the service reports ready.
+     */
+    public PreloadReport preload() {
+        return preload(Runtime.getRuntime().availableProcessors());
+    }
+
+    public synchronized PreloadReport preload(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        Snapshot current = snapshot.get();
+        PreloadReport report = loadAll(current.catalog, current.bundle, this.parallelism);
+        publish(current.catalog, current.bundle, report);
+        logger.info("Prompt catalog preloaded: {}", report);
+        return report;
+    }
+
+    private PreloadReport loadAll(PromptCatalog catalog, PromptBundle bundle, int threads) {
+        long start = System.nanoTime();
+        Map<String, Prompt> prompts = new ConcurrentHashMap<>();
+        Map<String, String> failures = new ConcurrentHashMap<>();
+        List<String> promptIds = new ArrayList<>(bundle != null ? bundle.getPromptIds() : catalog.getPromptIds());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> promptIds.parallelStream().forEach(promptId -> {
+                PromptLoadEvent event = new PromptLoadEvent();
+                event.begin();
+                Prompt prompt = null;
+                try {
+                    prompt = bundle != null ? load(bundle, promptId, event) : load(catalog, promptId, event);
+                    prompts.put(promptId, prompt);
+                } catch (PromptLoadException | RuntimeException e) {
+                    failures.put(promptId, e.getMessage() != null ? e.getMessage() : e.toString());
+                } finally {
+                    event.finish(promptId, null, prompt);
                 }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Prompt preload failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        for (String promptId : promptIds) {
+            if (!prompts.containsKey(promptId)) {
+                failures.putIfAbsent(promptId, "Preload interrupted before loading: " + promptId);
             }
+        }
+        return new PreloadReport(new HashMap<>(prompts), new TreeMap<>(failures),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-            return content.toString();
-        } catch (IOException e) {
-        	logger.error("Failed to load prompt file", e);
-            throw new PromptLoadException("Failed to load prompt file", e);
+    private void publish(PromptCatalog catalog, PromptBundle bundle, PreloadReport report) {
+        Set<String> live = new HashSet<>();
+        for (Prompt prompt : report.prompts.values()) {
+            live.add(PromptCache.key(prompt.getId(), prompt.getVersion()));
         }
+        cache.retain(live);
+        snapshot.set(new Snapshot(catalog, bundle, Collections.unmodifiableMap(report.prompts),
+                report.getFailures(), snapshot.get().generation + 1));
+    }
+
+    private Set<Path> watchedDirectories(PromptCatalog catalog) {
+        Set<Path> directories = new LinkedHashSet<>();
+        File configDir = new File(configPath).getAbsoluteFile().getParentFile();
+        directories.add(configDir.toPath());
+        for (String promptId : catalog.getPromptIds()) {
+            String path = catalog.get(promptId).getPath();
+            if (path != null) {
+                File parent = resolvePromptFile(path).getAbsoluteFile().getParentFile();
+                if (parent != null && parent.isDirectory()) {
+                    directories.add(parent.toPath());
+                }
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * The configuration file or bundle prompts are loaded from.
+     */
+    public String getConfigPath() {
+        return configPath;
+    }
+
+    public PromptCatalog getCatalog() {
+        return snapshot.get().catalog;
+    }
+
+    /**
+     * Incremented every time a reloaded catalog is published.
+     */
+    public long getCatalogGeneration() {
+        return snapshot.get().generation;
+    }
+
+    /**
+     * Prompts declared by the current catalog or bundle.
+     */
+    public int getCatalogSize() {
+        Snapshot current = snapshot.get();
+        return current.bundle != null ? current.bundle.getPromptIds().size() : current.catalog.getPromptIds().size();
+    }
+
+    public long getReloadCount() {
+        return reloads.sum();
+    }
+
+    /**
+     * Reloads that kept the previous catalog because the new one could not
+     * be read.
+     */
+    public long getFailedReloadCount() {
+        return failedReloads.sum();
     }
 
+    /**
+     * Loads served from the preloaded snapshot, which bypass the
+     * {@link #getCacheStats() cache} and its counters.
+     */
+    public long getPreloadedHits() {
+        return preloadedHits.sum();
+    }
+
+    /**
+     * Zeroes the cache, preload and reload counters.
+     */
+    public void resetStats() {
+        cache.resetStats();
+        preloadedHits.reset();
+        reloads.reset();
+        failedReloads.reset();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    public PromptCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Skips re-checking prompt files for cached prompts validated less than
+     * this long ago; {@code 0} (the default) checks on every load.
+     */
+    public void setCacheRevalidateMillis(long revalidateMillis) {
+        cache.setRevalidateMillis(revalidateMillis);
+    }
+
+    /**
+     * Signature checks made and avoided; checks only happen when a prompt is
+     * read from disk, never on cached loads.
+     */
+    public PromptSignatureVerifier.Stats getSignatureStats() {
+        return signatures.getStats();
+    }
+
+    /**
+     * Where prompt contents are deduplicated by SHA-256.
+     */
+    public PromptContentStore getContentStore() {
+        return contentStore;
+    }
+
+    /**
+     * Versions kept in memory per prompt, overriding
+     * {@code settings.maxResidentVersions}; {@code 0} keeps all of them.
+     */
+    public void setMaxResidentVersions(int maxResidentVersions) {
+        this.maxResidentVersions = Math.max(0, maxResidentVersions);
+        cache.setMaxResidentVersions(this.maxResidentVersions);
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Checksum of {@code content} encoded as UTF-8, which for a prompt file is
+     * the checksum of its bytes.
+     */
     public String calculateChecksum(String content) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+        return PromptDigests.format(PromptDigests.newSha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Verifies a file against a {@code sha256:<hex>} checksum by streaming its
+     * bytes, without decoding it.
+     */
+    public boolean verifyChecksum(Path file, String expectedChecksum) throws IOException {
+        return PromptDigests.matches(PromptDigests.sha256(file), expectedChecksum);
+    }
+
+    /**
+     * Outcome of loading a whole catalog: what loaded and, per prompt id, why
+     * the rest did not.
+     */
+    public static class PreloadReport {
+        private final Map<String, Prompt> prompts;
+        private final Map<String, String> failures;
+        private final long elapsedMillis;
+
+        PreloadReport(Map<String, Prompt> prompts, Map<String, String> failures, long elapsedMillis) {
+            this.prompts = prompts;
+            this.failures = Collections.unmodifiableMap(failures);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        public int getLoadedCount() {
+            return prompts.size();
+        }
+
+        public Map<String, String> getFailures() {
+            return failures;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Throws one exception listing every failed prompt, if any failed.
+         */
+        public void throwIfFailed() throws PromptLoadException {
+            if (failures.isEmpty()) {
+                return;
             }
-            return "sha256:" + hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("SHA-256 algorithm not available", e);
-            throw new RuntimeException("Checksum calculation failed", e);
+            StringBuilder message = new StringBuilder()
+                    .append(failures.size()).append(" prompt(s) failed to load:");
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                message.append("\n  ").append(failure.getKey()).append(": ").append(failure.getValue());
+            }
+            throw new PromptLoadException(message.toString());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PreloadReport{loaded=%d, failed=%d, elapsed=%dms}",
+                    prompts.size(), failures.size(), elapsedMillis);
         }
     }
 
@@ -132,4 +734,26 @@ public class PromptLoader {
             super(message, cause);
         }
     }
+
+    /**
+     * What {@link #loadPrompt} serves from: a catalog or a bundle and, after a
+     * preload or reload, every prompt of it already loaded and verified.
+     * Never modified once published.
+     */
+    private static final class Snapshot {
+        final PromptCatalog catalog;
+        final PromptBundle bundle;
+        final Map<String, Prompt> prompts;
+        final Map<String, String> failures;
+        final long generation;
+
+        Snapshot(PromptCatalog catalog, PromptBundle bundle, Map<String, Prompt> prompts, Map<String, String> failures,
+                 long generation) {
+            this.catalog = catalog;
+            this.bundle = bundle;
+            this.prompts = prompts;
+            this.failures = failures;
+            this.generation = generation;
+        }
+    }
 }
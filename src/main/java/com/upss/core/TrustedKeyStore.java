@@ -0,0 +1,127 @@
+package com.upss.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Public keys allowed to sign prompt files, read from a local directory with
+ * one {@code <keyId>.pub} file per key. A key file holds an X.509
+ * SubjectPublicKeyInfo, PEM armoured or bare base64; Ed25519, Ed448, EC and
+ * RSA keys are accepted. The key id is what {@code approvedBy} in
+ * {@code prompts.json} refers to.
+ */
+public final class TrustedKeyStore {
+    private static final TrustedKeyStore EMPTY = new TrustedKeyStore(Collections.emptyMap());
+    private static final String[] KEY_ALGORITHMS = {"Ed25519", "Ed448", "EC", "RSA"};
+
+    private final Map<String, PublicKey> keys;
+
+    private TrustedKeyStore(Map<String, PublicKey> keys) {
+        this.keys = Collections.unmodifiableMap(keys);
+    }
+
+    public static TrustedKeyStore empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads every {@code *.pub} file of a directory; a missing directory
+     * gives an empty store.
+     *
+     * @throws IOException if a key file cannot be read or parsed
+     */
+    public static TrustedKeyStore load(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return EMPTY;
+        }
+        Map<String, PublicKey> keys = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.pub")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String keyId = name.substring(0, name.length() - ".pub".length());
+                try {
+                    keys.put(keyId, parsePublicKey(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII)));
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    throw new IOException("Invalid trusted key: " + file, e);
+                }
+            }
+        }
+        return new TrustedKeyStore(keys);
+    }
+
+    /**
+     * Parses a PEM or base64 X.509 public key of any supported algorithm.
+     */
+    public static PublicKey parsePublicKey(String text) throws GeneralSecurityException {
+        String base64 = text.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(Base64.getDecoder().decode(base64));
+        GeneralSecurityException failure = null;
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            } catch (GeneralSecurityException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * PEM form of a public key, as read by {@link #parsePublicKey}.
+     */
+    public static String toPem(PublicKey key) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(key.getEncoded())
+                + "\n-----END PUBLIC KEY-----\n";
+    }
+
+    public PublicKey get(String keyId) {
+        return keys.get(keyId);
+    }
+
+    public Set<String> getKeyIds() {
+        return keys.keySet();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TrustedKeyStore)) {
+            return false;
+        }
+        Map<String, PublicKey> other = ((TrustedKeyStore) o).keys;
+        if (!keys.keySet().equals(other.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, PublicKey> entry : keys.entrySet()) {
+            if (!Arrays.equals(entry.getValue().getEncoded(), other.get(entry.getKey()).getEncoded())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return keys.keySet().hashCode();
+    }
+}
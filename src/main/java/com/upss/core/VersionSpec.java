@@ -0,0 +1,305 @@
+package com.upss.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Which version of a prompt to load: {@code latest} (or {@code *}), an exact
+ * version such as {@code 1.2.0}, or a semver range. Ranges are
+ * {@code ^1.2.0} (same major), {@code ~1.2.0} (same minor), wildcards such as
+ * {@code 1.x} or {@code 1.2.*}, and comparator sets such as
+ * {@code >=1.0.0 <2.0.0}, optionally joined with {@code ||}. Pre-release
+ * versions only match exact specs, or {@code latest} when nothing else exists.
+ */
+public final class VersionSpec {
+    private static final VersionSpec LATEST = new VersionSpec("latest", null, Collections.emptyList());
+
+    private final String text;
+    private final String exact;
+    private final List<List<Comparator>> alternatives;
+
+    private VersionSpec(String text, String exact, List<List<Comparator>> alternatives) {
+        this.text = text;
+        this.exact = exact;
+        this.alternatives = alternatives;
+    }
+
+    public static VersionSpec latest() {
+        return LATEST;
+    }
+
+    /**
+     * Parses a spec; {@code null} or blank means latest.
+     *
+     * @throws IllegalArgumentException if the spec is not understood
+     */
+    public static VersionSpec parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.trim().equals("latest") || spec.trim().equals("*")) {
+            return LATEST;
+        }
+        String trimmed = spec.trim();
+        if (Semver.parse(trimmed) != null) {
+            return new VersionSpec(trimmed, trimmed, Collections.emptyList());
+        }
+        List<List<Comparator>> alternatives = new ArrayList<>();
+        for (String alternative : trimmed.split("\\|\\|")) {
+            List<Comparator> comparators = new ArrayList<>();
+            for (String part : alternative.trim().split("\\s+")) {
+                addRange(part, comparators, spec);
+            }
+            alternatives.add(comparators);
+        }
+        return new VersionSpec(trimmed, null, alternatives);
+    }
+
+    private static void addRange(String part, List<Comparator> comparators, String spec) {
+        if (part.startsWith("^") || part.startsWith("~")) {
+            Semver base = Semver.parsePartial(part.substring(1));
+            if (base == null) {
+                throw new IllegalArgumentException("Invalid version spec: " + spec);
+            }
+            Semver upper;
+            if (base.parts == 1) {
+                upper = new Semver(base.major + 1, 0, 0);
+            } else if (part.startsWith("~")) {
+                upper = new Semver(base.major, base.minor + 1, 0);
+            } else if (base.major > 0) {
+                upper = new Semver(base.major + 1, 0, 0);
+            } else if (base.minor > 0 || base.parts == 2) {
+                upper = new Semver(0, base.minor + 1, 0);
+            } else {
+                upper = new Semver(0, 0, base.patch + 1);
+            }
+            comparators.add(new Comparator(">=", base));
+            comparators.add(new Comparator("<", upper));
+            return;
+        }
+        for (String operator : new String[]{">=", "<=", ">", "<", "="}) {
+            if (part.startsWith(operator)) {
+                Semver version = Semver.parsePartial(part.substring(operator.length()));
+                if (version == null) {
+                    throw new IllegalArgumentException("Invalid version spec: " + spec);
+                }
+                comparators.add(new Comparator(operator, version));
+                return;
+            }
+        }
+        String[] pieces = part.split("\\.");
+        int fixed = 0;
+        while (fixed < pieces.length && fixed < 3 && !isWildcard(pieces[fixed])) {
+            fixed++;
+        }
+        Semver base = Semver.parsePartial(String.join(".", Arrays.copyOf(pieces, fixed)));
+        boolean wildcards = pieces.length <= 3;
+        for (int i = fixed; i < pieces.length; i++) {
+            wildcards &= isWildcard(pieces[i]);
+        }
+        if (fixed == 0 || base == null || fixed == pieces.length || !wildcards) {
+            throw new IllegalArgumentException("Invalid version spec: " + spec);
+        }
+        comparators.add(new Comparator(">=", base));
+        comparators.add(new Comparator("<", fixed == 1 ? new Semver(base.major + 1, 0, 0)
+                : new Semver(base.major, base.minor + 1, 0)));
+    }
+
+    private static boolean isWildcard(String piece) {
+        return piece.equals("x") || piece.equals("X") || piece.equals("*");
+    }
+
+    public boolean isLatest() {
+        return this == LATEST;
+    }
+
+    public boolean matches(String version) {
+        if (isLatest()) {
+            return true;
+        }
+        if (exact != null) {
+            return exact.equals(version);
+        }
+        Semver parsed = Semver.parse(version);
+        if (parsed == null || parsed.preRelease != null) {
+            return false;
+        }
+        for (List<Comparator> comparators : alternatives) {
+            boolean all = true;
+            for (Comparator comparator : comparators) {
+                all &= comparator.test(parsed);
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The highest candidate matching this spec, or {@code null}.
+     */
+    public <T> T select(Collection<T> candidates, Function<T, String> version) {
+        T best = null;
+        T bestPreRelease = null;
+        for (T candidate : candidates) {
+            String value = version.apply(candidate);
+            if (value == null || !matches(value)) {
+                continue;
+            }
+            Semver parsed = Semver.parse(value);
+            if (parsed != null && parsed.preRelease != null && exact == null) {
+                if (bestPreRelease == null || compare(value, version.apply(bestPreRelease)) > 0) {
+                    bestPreRelease = candidate;
+                }
+            } else if (best == null || compare(value, version.apply(best)) > 0) {
+                best = candidate;
+            }
+        }
+        return best != null ? best : bestPreRelease;
+    }
+
+    /**
+     * Orders versions by semver precedence; versions that are not semver sort
+     * below those that are, and among themselves by text.
+     */
+    public static int compare(String a, String b) {
+        Semver left = Semver.parse(a);
+        Semver right = Semver.parse(b);
+        if (left == null || right == null) {
+            return left != null ? 1 : right != null ? -1 : a.compareTo(b);
+        }
+        return left.compareTo(right);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static final class Comparator {
+        final String operator;
+        final Semver version;
+
+        Comparator(String operator, Semver version) {
+            this.operator = operator;
+            this.version = version;
+        }
+
+        boolean test(Semver candidate) {
+            int c = candidate.compareTo(version);
+            switch (operator) {
+                case ">=":
+                    return c >= 0;
+                case "<=":
+                    return c <= 0;
+                case ">":
+                    return c > 0;
+                case "<":
+                    return c < 0;
+                default:
+                    return c == 0;
+            }
+        }
+    }
+
+    static final class Semver implements Comparable<Semver> {
+        final int major;
+        final int minor;
+        final int patch;
+        final String preRelease;
+        final int parts;
+
+        Semver(int major, int minor, int patch) {
+            this(major, minor, patch, null, 3);
+        }
+
+        private Semver(int major, int minor, int patch, String preRelease, int parts) {
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.preRelease = preRelease;
+            this.parts = parts;
+        }
+
+        /**
+         * Parses {@code MAJOR.MINOR.PATCH[-PRERELEASE][+BUILD]}, or returns {@code null}.
+         */
+        static Semver parse(String text) {
+            Semver version = parsePartial(text);
+            return version != null && version.parts == 3 ? version : null;
+        }
+
+        /**
+         * Like {@link #parse} but also accepts {@code MAJOR} and {@code MAJOR.MINOR}.
+         */
+        static Semver parsePartial(String text) {
+            String core = text;
+            int plus = core.indexOf('+');
+            if (plus >= 0) {
+                core = core.substring(0, plus);
+            }
+            String preRelease = null;
+            int dash = core.indexOf('-');
+            if (dash >= 0) {
+                preRelease = core.substring(dash + 1);
+                core = core.substring(0, dash);
+                if (preRelease.isEmpty()) {
+                    return null;
+                }
+            }
+            String[] pieces = core.split("\\.", -1);
+            if (pieces.length > 3 || (preRelease != null && pieces.length != 3)) {
+                return null;
+            }
+            int[] numbers = new int[3];
+            for (int i = 0; i < pieces.length; i++) {
+                if (pieces[i].isEmpty() || pieces[i].length() > 9 || !pieces[i].chars().allMatch(Character::isDigit)) {
+                    return null;
+                }
+                numbers[i] = Integer.parseInt(pieces[i]);
+            }
+            return new Semver(numbers[0], numbers[1], numbers[2], preRelease, pieces.length);
+        }
+
+        @Override
+        public int compareTo(Semver other) {
+            int c = Integer.compare(major, other.major);
+            if (c == 0) {
+                c = Integer.compare(minor, other.minor);
+            }
+            if (c == 0) {
+                c = Integer.compare(patch, other.patch);
+            }
+            if (c != 0 || (preRelease == null && other.preRelease == null)) {
+                return c;
+            }
+            if (preRelease == null || other.preRelease == null) {
+                return preRelease == null ? 1 : -1;
+            }
+            return comparePreRelease(preRelease, other.preRelease);
+        }
+
+        private static int comparePreRelease(String a, String b) {
+            String[] left = a.split("\\.");
+            String[] right = b.split("\\.");
+            for (int i = 0; i < Math.min(left.length, right.length); i++) {
+                boolean leftNumeric = left[i].chars().allMatch(Character::isDigit);
+                boolean rightNumeric = right[i].chars().allMatch(Character::isDigit);
+                int c;
+                if (leftNumeric && rightNumeric) {
+                    c = Long.compare(Long.parseLong(left[i]), Long.parseLong(right[i]));
+                } else if (leftNumeric != rightNumeric) {
+                    c = leftNumeric ? -1 : 1;
+                } else {
+                    c = left[i].compareTo(right[i]);
+                }
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Integer.compare(left.length, right.length);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.upss.corpus;
+
+/**
+ * One input of a test corpus. {@code malicious} is the ground truth a
+ * detector is judged against: whether the text carries an injection attempt,
+ * however well hidden, not whether {@link com.upss.core.BasicSanitizer}
+ * happens to flag it.
+ */
+public class CorpusEntry {
+    private final long id;
+    private final CorpusGenerator.Category category;
+    private final String technique;
+    private final boolean malicious;
+    private final String signature;
+    private final String text;
+
+    public CorpusEntry(long id, CorpusGenerator.Category category, String technique, boolean malicious,
+                       String signature, String text) {
+        this.id = id;
+        this.category = category;
+        this.technique = technique;
+        this.malicious = malicious;
+        this.signature = signature;
+        this.text = text;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public CorpusGenerator.Category getCategory() {
+        return category;
+    }
+
+    /**
+     * How the text was built within its category, e.g. {@code homoglyph} or
+     * {@code split-boundary}.
+     */
+    public String getTechnique() {
+        return technique;
+    }
+
+    public boolean isMalicious() {
+        return malicious;
+    }
+
+    /**
+     * The sanitizer pattern the text was built around, {@code null} if none.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "CorpusEntry{id=" + id + ", category=" + category + ", technique=" + technique
+                + ", malicious=" + malicious + ", length=" + text.length() + "}";
+    }
+}
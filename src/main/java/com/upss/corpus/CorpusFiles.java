@@ -0,0 +1,182 @@
+package com.upss.corpus;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corpus file format: JSON Lines, one {@link CorpusEntry} per line, e.g.
+ * <pre>
+ * {"id":7,"category":"OBFUSCATED","technique":"homoglyph","malicious":true,"signature":"eval","text":"..."}
+ * </pre>
+ * Files ending in {@code .gz} are gzip-compressed. Entries are read and
+ * written one at a time, so corpora larger than the heap can be streamed.
+ *
+ * <p>Any other file is read as recorded inputs, one per line, skipping blank
+ * lines and {@code #} comments. Nothing is known about those, so they are
+ * {@code RECORDED} entries that are not marked malicious.
+ */
+public final class CorpusFiles {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CorpusFiles() {
+    }
+
+    /**
+     * Whether {@code file} is named like a corpus file ({@code .jsonl} or
+     * {@code .jsonl.gz}).
+     */
+    public static boolean isCorpusFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".jsonl") || name.endsWith(".jsonl.gz");
+    }
+
+    /**
+     * Writes {@code entries} to {@code file}, replacing it, and returns how
+     * many were written.
+     */
+    public static long write(Path file, Stream<CorpusEntry> entries) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        long count = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            JsonWriter json = new JsonWriter(writer);
+            // One top-level object per line
+            json.setLenient(true);
+            for (Iterator<CorpusEntry> it = entries.iterator(); it.hasNext(); ) {
+                writeEntry(json, it.next());
+                writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lazily reads the entries of {@code file}; close the stream to release
+     * the file.
+     */
+    public static Stream<CorpusEntry> read(Path file) throws IOException {
+        if (!isCorpusFile(file)) {
+            long[] ids = new long[1];
+            return Files.lines(file, StandardCharsets.UTF_8)
+                    .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                    .map(line -> new CorpusEntry(ids[0]++, CorpusGenerator.Category.RECORDED, "line", false, null,
+                            line));
+        }
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        JsonReader json = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                BUFFER_SIZE));
+        json.setLenient(true);
+        Iterator<CorpusEntry> entries = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return json.peek() != JsonToken.END_DOCUMENT;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read corpus " + file, e);
+                }
+            }
+
+            @Override
+            public CorpusEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return readEntry(json);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read corpus " + file, e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entries,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        json.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    static void writeEntry(JsonWriter json, CorpusEntry entry) throws IOException {
+        json.beginObject();
+        json.name("id").value(entry.getId());
+        json.name("category").value(entry.getCategory().name());
+        json.name("technique").value(entry.getTechnique());
+        json.name("malicious").value(entry.isMalicious());
+        if (entry.getSignature() != null) {
+            json.name("signature").value(entry.getSignature());
+        }
+        json.name("text").value(entry.getText());
+        json.endObject();
+    }
+
+    static CorpusEntry readEntry(JsonReader json) throws IOException {
+        long id = 0;
+        CorpusGenerator.Category category = null;
+        String technique = null;
+        boolean malicious = false;
+        String signature = null;
+        String text = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id":
+                    id = json.nextLong();
+                    break;
+                case "category":
+                    category = CorpusGenerator.Category.valueOf(json.nextString());
+                    break;
+                case "technique":
+                    technique = json.nextString();
+                    break;
+                case "malicious":
+                    malicious = json.nextBoolean();
+                    break;
+                case "signature":
+                    signature = json.nextString();
+                    break;
+                case "text":
+                    text = json.nextString();
+                    break;
+                default:
+                    // Fields added by later versions
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        if (category == null || text == null) {
+            throw new IOException("Corpus entry " + id + " has no category or text at " + json.getPath());
+        }
+        return new CorpusEntry(id, category, technique, malicious, signature, text);
+    }
+}
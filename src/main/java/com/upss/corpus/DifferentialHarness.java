@@ -0,0 +1,449 @@
+package com.upss.corpus;
+
+import com.upss.core.BasicSanitizer;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs a candidate sanitizer engine side by side with the reference
+ * {@link BasicSanitizer#isClean} over one or more corpora. A candidate may
+ * be stricter than the reference, flagging inputs it lets through, but must
+ * never pass an input the reference flags. Every divergence is reported with
+ * the input shrunk to a minimal reproducer, along with the time each engine
+ * took over the same inputs.
+ *
+ * <p>{@code --candidate com.example.FastSanitizer --corpus recorded.txt --count 100000}
+ * checks a class with a no-argument constructor and an
+ * {@code isClean(String)} method, or a {@code Predicate<String>} that
+ * returns whether an input is clean, against the named corpora and a
+ * generated one; see {@link #main} for all options.
+ */
+public class DifferentialHarness {
+    public static final int DEFAULT_MAX_DIVERGENCES = 1000;
+    public static final int DEFAULT_MINIMIZE_BUDGET = 2000;
+
+    public static final int DEFAULT_WARMUP_ROUNDS = 5;
+
+    private static final int WARMUP_ENTRIES = 2000;
+    private static final int BATCH_ENTRIES = 256;
+    private static final long BATCH_CHARS = 1 << 20;
+
+    public enum Kind {
+        /** The candidate passed an input the reference flags. */
+        MISSED,
+        /** The candidate flagged an input the reference passes. */
+        STRICTER,
+        /** The candidate threw. */
+        ERROR
+    }
+
+    private final Predicate<String> reference;
+    private final Predicate<String> candidate;
+    private int maxDivergences = DEFAULT_MAX_DIVERGENCES;
+    private int minimizeBudget = DEFAULT_MINIMIZE_BUDGET;
+    private int warmupRounds = DEFAULT_WARMUP_ROUNDS;
+
+    public DifferentialHarness(Predicate<String> candidate) {
+        this(new BasicSanitizer()::isClean, candidate);
+    }
+
+    /**
+     * Both predicates return whether an input is clean.
+     */
+    public DifferentialHarness(Predicate<String> reference, Predicate<String> candidate) {
+        this.reference = reference;
+        this.candidate = candidate;
+    }
+
+    /**
+     * Divergences of each kind kept in the report; later ones are only
+     * counted.
+     */
+    public DifferentialHarness withMaxDivergences(int maxDivergences) {
+        this.maxDivergences = maxDivergences;
+        return this;
+    }
+
+    /**
+     * Engine calls spent shrinking each divergent input.
+     */
+    public DifferentialHarness withMinimizeBudget(int minimizeBudget) {
+        this.minimizeBudget = minimizeBudget;
+        return this;
+    }
+
+    /**
+     * Passes over a 2,000-entry generated corpus run before timing starts.
+     */
+    public DifferentialHarness withWarmupRounds(int warmupRounds) {
+        this.warmupRounds = warmupRounds;
+        return this;
+    }
+
+    /**
+     * Compares the engines on every entry of {@code entries}, after warming
+     * both up on a small generated corpus so neither is timed in the
+     * interpreter. Each engine is timed over whole batches of entries, since
+     * reading the clock per entry would cost more than a short entry.
+     */
+    public Report run(Stream<CorpusEntry> entries) {
+        List<String> warmup = new ArrayList<>(WARMUP_ENTRIES);
+        if (warmupRounds > 0) {
+            new CorpusGenerator(0).withWeight(CorpusGenerator.Category.SCALED, 0).stream(WARMUP_ENTRIES)
+                    .forEach(entry -> warmup.add(entry.getText()));
+        }
+        for (int round = 0; round < warmupRounds; round++) {
+            for (String text : warmup) {
+                reference.test(text);
+                safeTest(candidate, text);
+            }
+        }
+
+        Report report = new Report();
+        List<CorpusEntry> batch = new ArrayList<>(BATCH_ENTRIES);
+        long batchChars = 0;
+        long batches = 0;
+        for (Iterator<CorpusEntry> it = entries.iterator(); it.hasNext(); ) {
+            CorpusEntry entry = it.next();
+            batch.add(entry);
+            batchChars += entry.getText().length();
+            if (batch.size() == BATCH_ENTRIES || batchChars >= BATCH_CHARS || !it.hasNext()) {
+                // Alternate which engine runs first so neither always gets the warm cache
+                compare(batch, (batches++ & 1) == 0, report);
+                batch.clear();
+                batchChars = 0;
+            }
+        }
+        return report;
+    }
+
+    private void compare(List<CorpusEntry> batch, boolean referenceFirst, Report report) {
+        boolean[] referenceClean = new boolean[batch.size()];
+        Object[] candidateVerdicts = new Object[batch.size()];
+        if (referenceFirst) {
+            report.referenceNanos += timeReference(batch, referenceClean);
+            report.candidateNanos += timeCandidate(batch, candidateVerdicts);
+        } else {
+            report.candidateNanos += timeCandidate(batch, candidateVerdicts);
+            report.referenceNanos += timeReference(batch, referenceClean);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            CorpusEntry entry = batch.get(i);
+            Object candidateVerdict = candidateVerdicts[i];
+            report.compared++;
+            report.bytes += entry.getText().length();
+            Kind kind = classify(referenceClean[i], candidateVerdict);
+            if (kind != null) {
+                report.add(kind, maxDivergences, () -> new Divergence(kind, entry,
+                        minimize(entry.getText(), kind), describe(candidateVerdict)));
+            }
+        }
+    }
+
+    private long timeReference(List<CorpusEntry> batch, boolean[] verdicts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < verdicts.length; i++) {
+            verdicts[i] = reference.test(batch.get(i).getText());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long timeCandidate(List<CorpusEntry> batch, Object[] verdicts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < verdicts.length; i++) {
+            verdicts[i] = safeTest(candidate, batch.get(i).getText());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Object safeTest(Predicate<String> engine, String text) {
+        try {
+            return engine.test(text);
+        } catch (RuntimeException | StackOverflowError e) {
+            return e;
+        }
+    }
+
+    private static Kind classify(boolean referenceClean, Object candidateVerdict) {
+        if (candidateVerdict instanceof Throwable) {
+            return Kind.ERROR;
+        }
+        boolean candidateClean = (Boolean) candidateVerdict;
+        if (candidateClean == referenceClean) {
+            return null;
+        }
+        return candidateClean ? Kind.MISSED : Kind.STRICTER;
+    }
+
+    private static String describe(Object candidateVerdict) {
+        return candidateVerdict instanceof Throwable ? candidateVerdict.toString() : null;
+    }
+
+    /**
+     * Delta debugging: removes ever smaller chunks of the input for as long
+     * as the engines still diverge the same way, within the call budget.
+     */
+    String minimize(String input, Kind kind) {
+        String current = input;
+        int chunk = (current.length() + 1) / 2;
+        int calls = 0;
+        while (current.length() > 1 && calls < minimizeBudget) {
+            boolean reduced = false;
+            for (int start = 0; start < current.length() && calls < minimizeBudget; ) {
+                String smaller = current.substring(0, start)
+                        + current.substring(Math.min(current.length(), start + chunk));
+                calls += 2;
+                if (!smaller.isEmpty() && classify(reference.test(smaller), safeTest(candidate, smaller)) == kind) {
+                    // Keep the position: the next chunk has moved into it
+                    current = smaller;
+                    reduced = true;
+                } else {
+                    start += chunk;
+                }
+            }
+            if (!reduced) {
+                if (chunk == 1) {
+                    break;
+                }
+                chunk = (chunk + 1) / 2;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * One input on which the engines disagree.
+     */
+    public static class Divergence {
+        private final Kind kind;
+        private final CorpusEntry entry;
+        private final String reproducer;
+        private final String error;
+
+        Divergence(Kind kind, CorpusEntry entry, String reproducer, String error) {
+            this.kind = kind;
+            this.entry = entry;
+            this.reproducer = reproducer;
+            this.error = error;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public CorpusEntry getEntry() {
+            return entry;
+        }
+
+        /**
+         * The shortest input found that still diverges the same way.
+         */
+        public String getReproducer() {
+            return reproducer;
+        }
+
+        /**
+         * What the candidate threw, for {@link Kind#ERROR}.
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s id=%d %s/%s reproducer=%s (from %d chars)%s", kind, entry.getId(),
+                    entry.getCategory(), entry.getTechnique(), quote(reproducer), entry.getText().length(),
+                    error == null ? "" : " " + error);
+        }
+
+        private static String quote(String text) {
+            StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    quoted.append('\\').append(c);
+                } else if (c < 0x20 || c > 0x7E) {
+                    quoted.append(String.format("\\u%04X", (int) c));
+                } else {
+                    quoted.append(c);
+                }
+            }
+            return quoted.append('"').toString();
+        }
+    }
+
+    /**
+     * Outcome of one run; times are the sum over all compared inputs.
+     */
+    public static class Report {
+        private final Map<Kind, List<Divergence>> divergences = new EnumMap<>(Kind.class);
+        private final Map<Kind, Long> counts = new EnumMap<>(Kind.class);
+        private long compared;
+        private long bytes;
+        private long referenceNanos;
+        private long candidateNanos;
+
+        Report() {
+            for (Kind kind : Kind.values()) {
+                divergences.put(kind, new ArrayList<>());
+                counts.put(kind, 0L);
+            }
+        }
+
+        private void add(Kind kind, int max, Supplier<Divergence> divergence) {
+            counts.merge(kind, 1L, Long::sum);
+            if (divergences.get(kind).size() < max) {
+                divergences.get(kind).add(divergence.get());
+            }
+        }
+
+        /**
+         * Whether the candidate never passed an input the reference flags and
+         * never threw.
+         */
+        public boolean isSafe() {
+            return getCount(Kind.MISSED) == 0 && getCount(Kind.ERROR) == 0;
+        }
+
+        public long getCompared() {
+            return compared;
+        }
+
+        public long getCount(Kind kind) {
+            return counts.get(kind);
+        }
+
+        public List<Divergence> getDivergences(Kind kind) {
+            return Collections.unmodifiableList(divergences.get(kind));
+        }
+
+        public long getReferenceNanos() {
+            return referenceNanos;
+        }
+
+        public long getCandidateNanos() {
+            return candidateNanos;
+        }
+
+        /**
+         * How many times faster the candidate was; above 1 means faster.
+         */
+        public double getSpeedup() {
+            return candidateNanos == 0 ? 0.0 : (double) referenceNanos / candidateNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Compared %d inputs (%d chars): %s%n", compared, bytes,
+                    isSafe() ? "candidate is safe to use" : "CANDIDATE MISSES DETECTIONS");
+            out.printf("Reference %.1f ms, candidate %.1f ms, speedup %.2fx%n", referenceNanos / 1e6,
+                    candidateNanos / 1e6, getSpeedup());
+            for (Kind kind : Kind.values()) {
+                long count = getCount(kind);
+                out.printf("%-9s %d%n", kind, count);
+                for (Divergence divergence : divergences.get(kind)) {
+                    out.println("  " + divergence);
+                }
+                if (count > divergences.get(kind).size()) {
+                    out.printf("  ... %d more not shown%n", count - divergences.get(kind).size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adapts {@code className} to an engine: a {@code Predicate<String>} or
+     * any class with an {@code isClean(String)} method returning boolean.
+     */
+    @SuppressWarnings("unchecked")
+    static Predicate<String> loadEngine(String className) throws ReflectiveOperationException {
+        Object engine = Class.forName(className).getDeclaredConstructor().newInstance();
+        if (engine instanceof Predicate) {
+            return (Predicate<String>) engine;
+        }
+        Method isClean = engine.getClass().getMethod("isClean", String.class);
+        if (isClean.getReturnType() != boolean.class) {
+            throw new NoSuchMethodException(className + ".isClean(String) does not return boolean");
+        }
+        return text -> {
+            try {
+                return (boolean) isClean.invoke(engine, text);
+            } catch (ReflectiveOperationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "error");
+        }
+        String candidateClass = null;
+        List<String> corpora = new ArrayList<>();
+        long seed = 42;
+        long count = 10_000;
+        int maxDivergences = DEFAULT_MAX_DIVERGENCES;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--candidate":
+                    candidateClass = value;
+                    break;
+                case "--corpus":
+                    corpora.add(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--count":
+                    count = Long.parseLong(value);
+                    break;
+                case "--max-divergences":
+                    maxDivergences = Integer.parseInt(value);
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        }
+        if (args.length % 2 != 0 || candidateClass == null) {
+            usage();
+            return;
+        }
+
+        DifferentialHarness harness = new DifferentialHarness(loadEngine(candidateClass))
+                .withMaxDivergences(maxDivergences);
+        Stream<CorpusEntry> entries = new CorpusGenerator(seed).stream(count);
+        for (String corpus : corpora) {
+            entries = Stream.concat(entries, CorpusFiles.read(Paths.get(corpus)));
+        }
+        Report report;
+        try (Stream<CorpusEntry> all = entries) {
+            report = harness.run(all);
+        }
+        report.print(System.out);
+        if (!report.isSafe()) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: DifferentialHarness --candidate class [--corpus file]... [--seed n] [--count n]"
+                + " [--max-divergences n]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,77 @@
+package com.upss.management;
+
+import com.upss.audit.AuditFanOut;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Queue and write counters of one audit sink as published over JMX.
+ */
+public class AuditSinkStats {
+    private final String name;
+    private final String overflowPolicy;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long lag;
+    private final long written;
+    private final long failed;
+    private final long dropped;
+    private final long lastWriteMillis;
+
+    @ConstructorParameters({"name", "overflowPolicy", "queueDepth", "queueCapacity", "lag", "written", "failed",
+            "dropped", "lastWriteMillis"})
+    public AuditSinkStats(String name, String overflowPolicy, int queueDepth, int queueCapacity, long lag,
+                          long written, long failed, long dropped, long lastWriteMillis) {
+        this.name = name;
+        this.overflowPolicy = overflowPolicy;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.lag = lag;
+        this.written = written;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.lastWriteMillis = lastWriteMillis;
+    }
+
+    static AuditSinkStats of(AuditFanOut.SinkStats stats) {
+        return new AuditSinkStats(stats.getName(), stats.getOverflowPolicy().name(), stats.getQueueDepth(),
+                stats.getQueueCapacity(), stats.getLag(), stats.getWritten(), stats.getFailed(), stats.getDropped(),
+                stats.getLastWriteMillis());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+}
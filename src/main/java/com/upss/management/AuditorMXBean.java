@@ -0,0 +1,36 @@
+package com.upss.management;
+
+import java.util.List;
+
+/**
+ * Management interface of a {@link com.upss.core.LightweightAuditor},
+ * registered as {@code com.upss:type=Auditor,name=<name>}. Queue figures are
+ * summed over its asynchronous sinks and are zero when it writes
+ * synchronously.
+ */
+public interface AuditorMXBean {
+
+    String getAuditLogPath();
+
+    int getSinkCount();
+
+    int getQueueDepth();
+
+    /**
+     * Entries accepted but not yet handed to their sink.
+     */
+    long getLag();
+
+    long getWritten();
+
+    long getFailed();
+
+    long getDropped();
+
+    List<AuditSinkStats> getSinks();
+
+    /**
+     * Blocks until every entry logged so far has been written.
+     */
+    void flush();
+}
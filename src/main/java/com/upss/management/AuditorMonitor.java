@@ -0,0 +1,89 @@
+package com.upss.management;
+
+import com.upss.audit.AuditFanOut;
+import com.upss.core.LightweightAuditor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the queue and write counters of a {@link LightweightAuditor}'s
+ * sinks. They are read from the writers' atomic counters and queue sizes,
+ * without taking the queue locks the hot path uses.
+ */
+public class AuditorMonitor implements AuditorMXBean {
+    private final LightweightAuditor auditor;
+
+    public AuditorMonitor(LightweightAuditor auditor) {
+        this.auditor = auditor;
+    }
+
+    @Override
+    public String getAuditLogPath() {
+        return auditor.getAuditLogPath();
+    }
+
+    @Override
+    public int getSinkCount() {
+        return auditor.getSinkStats().size();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            depth += stats.getQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getLag() {
+        long lag = 0;
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            lag += stats.getLag();
+        }
+        return lag;
+    }
+
+    @Override
+    public long getWritten() {
+        long written = 0;
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            written += stats.getWritten();
+        }
+        return written;
+    }
+
+    @Override
+    public long getFailed() {
+        long failed = 0;
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            failed += stats.getFailed();
+        }
+        return failed;
+    }
+
+    @Override
+    public long getDropped() {
+        long dropped = 0;
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            dropped += stats.getDropped();
+        }
+        return dropped;
+    }
+
+    @Override
+    public List<AuditSinkStats> getSinks() {
+        List<AuditSinkStats> sinks = new ArrayList<>();
+        for (AuditFanOut.SinkStats stats : auditor.getSinkStats()) {
+            sinks.add(AuditSinkStats.of(stats));
+        }
+        return sinks;
+    }
+
+    @Override
+    public void flush() {
+        auditor.flush();
+    }
+}
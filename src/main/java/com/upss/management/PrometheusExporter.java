@@ -0,0 +1,368 @@
+package com.upss.management;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.upss.audit.AuditFanOut;
+import com.upss.core.LightweightAuditor;
+import com.upss.core.PromptLoader;
+import com.upss.metrics.LatencyHistogram;
+import com.upss.middleware.PipelineMetrics;
+import com.upss.middleware.SecurityPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves pipeline, prompt loader and auditor metrics at {@code /metrics} in
+ * the Prometheus text exposition format, from the JDK's embedded HTTP server
+ * bound to the loopback interface. Histograms are rendered straight from the
+ * live {@link LatencyHistogram}s into fixed buckets, and the text and its
+ * UTF-8 encoding are built in buffers kept across scrapes, so a scrape
+ * allocates next to nothing however often it happens.
+ */
+public class PrometheusExporter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusExporter.class);
+    public static final int DEFAULT_PORT = 9464;
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** 1 µs to 10 s, in nanoseconds. */
+    static final long[] LATENCY_BOUNDS_NANOS = {
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000, 100_000_000, 250_000_000,
+            500_000_000, 1_000_000_000, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+    /** Input lengths, in characters. */
+    static final long[] INPUT_SIZE_BOUNDS = {16, 64, 256, 1_024, 4_096, 16_384, 65_536, 262_144, 1_048_576};
+
+    private static final String[] LATENCY_LE = labelValues(LATENCY_BOUNDS_NANOS, 9);
+    private static final String[] INPUT_SIZE_LE = labelValues(INPUT_SIZE_BOUNDS, 0);
+
+    private final Map<String, SecurityPipeline> pipelines = new LinkedHashMap<>();
+    private final Map<String, PromptLoader> loaders = new LinkedHashMap<>();
+    private final Map<String, LightweightAuditor> auditors = new LinkedHashMap<>();
+    private final StringBuilder text = new StringBuilder(16 * 1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final long[] cumulative = new long[Math.max(LATENCY_BOUNDS_NANOS.length, INPUT_SIZE_BOUNDS.length)];
+    private ByteBuffer bytes = ByteBuffer.allocate(16 * 1024);
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds to {@code localhost:port}, {@code 0} picking a free port; call
+     * {@link #start()} to begin serving.
+     */
+    public PrometheusExporter(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upss-metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+    }
+
+    public PrometheusExporter start() {
+        server.start();
+        logger.info("Serving Prometheus metrics at http://{}:{}/metrics", server.getAddress().getHostString(),
+                getPort());
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public synchronized PrometheusExporter register(SecurityPipeline pipeline, String name) {
+        pipelines.put(name, pipeline);
+        return this;
+    }
+
+    public synchronized PrometheusExporter register(PromptLoader loader, String name) {
+        loaders.put(name, loader);
+        return this;
+    }
+
+    public synchronized PrometheusExporter register(LightweightAuditor auditor, String name) {
+        auditors.put(name, auditor);
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            synchronized (this) {
+                ByteBuffer body = encode(render());
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.remaining());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body.array(), 0, body.remaining());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to render metrics = {}", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private ByteBuffer encode(CharSequence chars) {
+        while (true) {
+            encoder.reset();
+            bytes.clear();
+            CoderResult result = encoder.encode(CharBuffer.wrap(chars), bytes, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(bytes);
+            }
+            if (!result.isOverflow()) {
+                bytes.flip();
+                return bytes;
+            }
+            bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+        }
+    }
+
+    /**
+     * Renders every registered component into the shared text buffer.
+     */
+    synchronized CharSequence render() {
+        text.setLength(0);
+        renderPipelines();
+        renderLoaders();
+        renderAuditors();
+        return text;
+    }
+
+    private void renderPipelines() {
+        if (pipelines.isEmpty()) {
+            return;
+        }
+        header("upss_pipeline_executions_total", "counter", "Pipeline executions by result.");
+        for (Map.Entry<String, SecurityPipeline> entry : pipelines.entrySet()) {
+            PipelineMetrics metrics = entry.getValue().getMetrics();
+            sample("upss_pipeline_executions_total", "pipeline", entry.getKey(), "result", "passed", null, null)
+                    .append(metrics.getPassed()).append('\n');
+            sample("upss_pipeline_executions_total", "pipeline", entry.getKey(), "result", "failed", null, null)
+                    .append(metrics.getFailed()).append('\n');
+        }
+
+        header("upss_pipeline_latency_seconds", "histogram", "End-to-end SecurityPipeline.execute time.");
+        for (Map.Entry<String, SecurityPipeline> entry : pipelines.entrySet()) {
+            latencyHistogram("upss_pipeline_latency_seconds", entry.getValue().getMetrics().getLatency(),
+                    "pipeline", entry.getKey(), null, null);
+        }
+
+        header("upss_pipeline_input_size_chars", "histogram", "Length of user inputs.");
+        for (Map.Entry<String, SecurityPipeline> entry : pipelines.entrySet()) {
+            histogram("upss_pipeline_input_size_chars", entry.getValue().getMetrics().getInputSizes(),
+                    INPUT_SIZE_BOUNDS, INPUT_SIZE_LE, 1, "pipeline", entry.getKey(), null, null);
+        }
+
+        header("upss_pipeline_stage_latency_seconds", "histogram", "Time spent in each middleware.");
+        for (Map.Entry<String, SecurityPipeline> entry : pipelines.entrySet()) {
+            List<PipelineMetrics.Stage> stages = entry.getValue().getMetrics().getStages();
+            for (int i = 0; i < stages.size(); i++) {
+                latencyHistogram("upss_pipeline_stage_latency_seconds", stages.get(i).getLatency(),
+                        "pipeline", entry.getKey(), "stage", stages.get(i).getName());
+            }
+        }
+
+        header("upss_pipeline_stage_rejections_total", "counter",
+                "Requests a middleware stopped, by reason: rejected the input or threw.");
+        for (Map.Entry<String, SecurityPipeline> entry : pipelines.entrySet()) {
+            List<PipelineMetrics.Stage> stages = entry.getValue().getMetrics().getStages();
+            for (int i = 0; i < stages.size(); i++) {
+                PipelineMetrics.Stage stage = stages.get(i);
+                sample("upss_pipeline_stage_rejections_total", "pipeline", entry.getKey(), "stage", stage.getName(),
+                        "reason", "rejected").append(stage.getFailures()).append('\n');
+                sample("upss_pipeline_stage_rejections_total", "pipeline", entry.getKey(), "stage", stage.getName(),
+                        "reason", "exception").append(stage.getExceptions()).append('\n');
+            }
+        }
+    }
+
+    private void renderLoaders() {
+        if (loaders.isEmpty()) {
+            return;
+        }
+        header("upss_prompt_cache_hits_total", "counter", "Prompt loads served from memory, by source.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_cache_hits_total", "loader", entry.getKey(), "source", "cache", null, null)
+                    .append(entry.getValue().getCacheStats().getHits()).append('\n');
+            sample("upss_prompt_cache_hits_total", "loader", entry.getKey(), "source", "preloaded", null, null)
+                    .append(entry.getValue().getPreloadedHits()).append('\n');
+        }
+
+        header("upss_prompt_cache_misses_total", "counter", "Prompt loads that had to read the prompt file.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_cache_misses_total", "loader", entry.getKey(), null, null, null, null)
+                    .append(entry.getValue().getCacheStats().getMisses()).append('\n');
+        }
+
+        header("upss_prompt_cache_stale_total", "counter", "Cache misses caused by a changed file or checksum.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_cache_stale_total", "loader", entry.getKey(), null, null, null, null)
+                    .append(entry.getValue().getCacheStats().getStale()).append('\n');
+        }
+
+        header("upss_prompt_cache_evictions_total", "counter", "Versions evicted by the per-prompt residency limit.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_cache_evictions_total", "loader", entry.getKey(), null, null, null, null)
+                    .append(entry.getValue().getCacheStats().getEvictions()).append('\n');
+        }
+
+        header("upss_prompt_cache_entries", "gauge", "Prompt versions held in the cache.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_cache_entries", "loader", entry.getKey(), null, null, null, null)
+                    .append(entry.getValue().getCacheStats().getSize()).append('\n');
+        }
+
+        header("upss_prompt_catalog_prompts", "gauge", "Prompts declared by the current catalog.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_catalog_prompts", "loader", entry.getKey(), null, null, null, null)
+                    .append(entry.getValue().getCatalogSize()).append('\n');
+        }
+
+        header("upss_prompt_catalog_reloads_total", "counter", "Catalog reloads by result.");
+        for (Map.Entry<String, PromptLoader> entry : loaders.entrySet()) {
+            sample("upss_prompt_catalog_reloads_total", "loader", entry.getKey(), "result", "success", null, null)
+                    .append(entry.getValue().getReloadCount()).append('\n');
+            sample("upss_prompt_catalog_reloads_total", "loader", entry.getKey(), "result", "failure", null, null)
+                    .append(entry.getValue().getFailedReloadCount()).append('\n');
+        }
+    }
+
+    private void renderAuditors() {
+        if (auditors.isEmpty()) {
+            return;
+        }
+        header("upss_audit_sink_lag", "gauge", "Audit entries accepted but not yet handed to the sink.");
+        for (Map.Entry<String, LightweightAuditor> entry : auditors.entrySet()) {
+            for (AuditFanOut.SinkStats stats : entry.getValue().getSinkStats()) {
+                sample("upss_audit_sink_lag", "auditor", entry.getKey(), "sink", stats.getName(), null, null)
+                        .append(stats.getLag()).append('\n');
+            }
+        }
+
+        header("upss_audit_sink_queue_depth", "gauge", "Audit entries waiting in the sink's queue.");
+        for (Map.Entry<String, LightweightAuditor> entry : auditors.entrySet()) {
+            for (AuditFanOut.SinkStats stats : entry.getValue().getSinkStats()) {
+                sample("upss_audit_sink_queue_depth", "auditor", entry.getKey(), "sink", stats.getName(), null, null)
+                        .append(stats.getQueueDepth()).append('\n');
+            }
+        }
+
+        header("upss_audit_sink_entries_total", "counter", "Audit entries by outcome: written, failed or dropped.");
+        for (Map.Entry<String, LightweightAuditor> entry : auditors.entrySet()) {
+            for (AuditFanOut.SinkStats stats : entry.getValue().getSinkStats()) {
+                sample("upss_audit_sink_entries_total", "auditor", entry.getKey(), "sink", stats.getName(),
+                        "outcome", "written").append(stats.getWritten()).append('\n');
+                sample("upss_audit_sink_entries_total", "auditor", entry.getKey(), "sink", stats.getName(),
+                        "outcome", "failed").append(stats.getFailed()).append('\n');
+                sample("upss_audit_sink_entries_total", "auditor", entry.getKey(), "sink", stats.getName(),
+                        "outcome", "dropped").append(stats.getDropped()).append('\n');
+            }
+        }
+    }
+
+    private void header(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends {@code name{labels} } up to the value; unused label pairs are
+     * {@code null}.
+     */
+    private StringBuilder sample(String name, String key1, String value1, String key2, String value2,
+                                 String key3, String value3) {
+        return sampleWithSuffix(name, "", key1, value1, key2, value2, key3, value3);
+    }
+
+    private StringBuilder sampleWithSuffix(String name, String suffix, String key1, String value1, String key2,
+                                           String value2, String key3, String value3) {
+        text.append(name).append(suffix).append('{');
+        label(key1, value1, true);
+        label(key2, value2, false);
+        label(key3, value3, false);
+        return text.append("} ");
+    }
+
+    private void label(String key, String value, boolean first) {
+        if (key == null) {
+            return;
+        }
+        if (!first) {
+            text.append(',');
+        }
+        text.append(key).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                text.append('\\').append(c);
+            } else if (c == '\n') {
+                text.append("\\n");
+            } else {
+                text.append(c);
+            }
+        }
+        text.append('"');
+    }
+
+    private void latencyHistogram(String name, LatencyHistogram histogram, String key1, String value1,
+                                  String key2, String value2) {
+        histogram(name, histogram, LATENCY_BOUNDS_NANOS, LATENCY_LE, 1e-9, key1, value1, key2, value2);
+    }
+
+    private void histogram(String name, LatencyHistogram histogram, long[] bounds, String[] le, double scale,
+                           String key1, String value1, String key2, String value2) {
+        long count = histogram.getCumulativeCounts(bounds, cumulative);
+        for (int i = 0; i < bounds.length; i++) {
+            sampleWithSuffix(name, "_bucket", key1, value1, key2, value2, "le", le[i])
+                    .append(cumulative[i]).append('\n');
+        }
+        sampleWithSuffix(name, "_bucket", key1, value1, key2, value2, "le", "+Inf").append(count).append('\n');
+        StringBuilder sum = sampleWithSuffix(name, "_sum", key1, value1, key2, value2, null, null);
+        if (scale == 1) {
+            sum.append(histogram.getSum()).append('\n');
+        } else {
+            sum.append(histogram.getSum() * scale).append('\n');
+        }
+        sampleWithSuffix(name, "_count", key1, value1, key2, value2, null, null).append(count).append('\n');
+    }
+
+    private static String[] labelValues(long[] bounds, int scale) {
+        String[] values = new String[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            values[i] = BigDecimal.valueOf(bounds[i], scale).stripTrailingZeros().toPlainString();
+        }
+        return values;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package com.upss.management;
+
+/**
+ * Management interface of a {@link com.upss.core.PromptLoader}, registered
+ * as {@code com.upss:type=PromptLoader,name=<name>}.
+ */
+public interface PromptLoaderMXBean {
+
+    String getConfigPath();
+
+    int getCatalogSize();
+
+    /**
+     * Incremented every time a preloaded or reloaded catalog is published.
+     */
+    long getCatalogGeneration();
+
+    long getReloadCount();
+
+    long getFailedReloadCount();
+
+    /**
+     * Loads served from the preloaded catalog.
+     */
+    long getPreloadedHits();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * Share of loads served from memory, preloaded or cached.
+     */
+    double getCacheHitRatio();
+
+    int getCachedPrompts();
+
+    long getCacheEvictions();
+
+    long getSignatureVerifications();
+
+    long getSignatureRejections();
+
+    /**
+     * Re-reads and re-verifies the catalog; returns {@code false} if it could
+     * not be read and the previous one is still served.
+     */
+    boolean reload();
+
+    void resetCounters();
+}
@@ -0,0 +1,95 @@
+package com.upss.management;
+
+import com.upss.core.PromptCache;
+import com.upss.core.PromptLoader;
+
+/**
+ * Publishes a {@link PromptLoader}'s catalog, cache and signature counters.
+ * All of them are striped adders or immutable snapshots, so reading them
+ * never blocks a load.
+ */
+public class PromptLoaderMonitor implements PromptLoaderMXBean {
+    private final PromptLoader loader;
+
+    public PromptLoaderMonitor(PromptLoader loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public String getConfigPath() {
+        return loader.getConfigPath();
+    }
+
+    @Override
+    public int getCatalogSize() {
+        return loader.getCatalogSize();
+    }
+
+    @Override
+    public long getCatalogGeneration() {
+        return loader.getCatalogGeneration();
+    }
+
+    @Override
+    public long getReloadCount() {
+        return loader.getReloadCount();
+    }
+
+    @Override
+    public long getFailedReloadCount() {
+        return loader.getFailedReloadCount();
+    }
+
+    @Override
+    public long getPreloadedHits() {
+        return loader.getPreloadedHits();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return loader.getCacheStats().getHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return loader.getCacheStats().getMisses();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        PromptCache.Stats stats = loader.getCacheStats();
+        long hits = loader.getPreloadedHits() + stats.getHits();
+        long total = hits + stats.getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public int getCachedPrompts() {
+        return loader.getCacheStats().getSize();
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return loader.getCacheStats().getEvictions();
+    }
+
+    @Override
+    public long getSignatureVerifications() {
+        return loader.getSignatureStats().getVerifications();
+    }
+
+    @Override
+    public long getSignatureRejections() {
+        return loader.getSignatureStats().getRejected();
+    }
+
+    @Override
+    public boolean reload() {
+        return loader.reload();
+    }
+
+    @Override
+    public void resetCounters() {
+        loader.resetStats();
+    }
+}
@@ -0,0 +1,62 @@
+package com.upss.management;
+
+import java.util.List;
+
+/**
+ * Management interface of a {@link com.upss.middleware.SecurityPipeline},
+ * registered as {@code com.upss:type=SecurityPipeline,name=<name>}. Counters
+ * cover the time since the pipeline was created or last reset; latencies are
+ * in nanoseconds.
+ */
+public interface SecurityPipelineMXBean {
+
+    long getExecutions();
+
+    long getPassed();
+
+    long getFailed();
+
+    /**
+     * Executions per second since the counters were last reset.
+     */
+    double getThroughput();
+
+    /**
+     * Share of executions rejected by any stage.
+     */
+    double getRejectionRate();
+
+    long getLatencyP50Nanos();
+
+    long getLatencyP99Nanos();
+
+    long getLatencyMaxNanos();
+
+    long getInputSizeP50();
+
+    long getInputSizeP99();
+
+    /**
+     * One entry per middleware, in pipeline order.
+     */
+    List<StageStats> getStages();
+
+    /**
+     * Rule set of the first sanitizer in the pipeline, empty if there is none.
+     */
+    List<String> getSanitizerPatterns();
+
+    /**
+     * Replaces the rule set of every sanitizer in the pipeline with
+     * {@code patterns}, one per line or separated by commas, and returns how
+     * many sanitizers were updated.
+     */
+    int setSanitizerPatterns(String patterns);
+
+    /**
+     * Puts every sanitizer back on the default rule set.
+     */
+    int resetSanitizerPatterns();
+
+    void resetCounters();
+}
@@ -0,0 +1,206 @@
+package com.upss.management;
+
+import com.upss.core.BasicSanitizer;
+import com.upss.core.LightweightAuditor;
+import com.upss.metrics.LatencyHistogram;
+import com.upss.middleware.PipelineMetrics;
+import com.upss.middleware.SecurityMiddleware;
+import com.upss.middleware.SecurityPipeline;
+import com.upss.middleware.impl.AuditorMiddleware;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.security.auth.Subject;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
+import java.security.AccessController;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a pipeline's {@link PipelineMetrics}. A scrape reading several
+ * attributes is served from one snapshot, taken at most once a second, and
+ * taking it only reads the lock-free counters the pipeline records into.
+ * Rule set changes are written to the pipeline's audit log as security events.
+ */
+public class SecurityPipelineMonitor implements SecurityPipelineMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(SecurityPipelineMonitor.class);
+    static final long SNAPSHOT_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SecurityPipeline pipeline;
+    private volatile PipelineMetrics.Snapshot snapshot;
+    private volatile long snapshotNanos;
+
+    public SecurityPipelineMonitor(SecurityPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    private PipelineMetrics.Snapshot snapshot() {
+        PipelineMetrics.Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current == null || now - snapshotNanos > SNAPSHOT_MAX_AGE_NANOS) {
+            current = pipeline.getMetrics().snapshot();
+            snapshot = current;
+            snapshotNanos = now;
+        }
+        return current;
+    }
+
+    @Override
+    public long getExecutions() {
+        return snapshot().getExecutions();
+    }
+
+    @Override
+    public long getPassed() {
+        return snapshot().getPassed();
+    }
+
+    @Override
+    public long getFailed() {
+        return snapshot().getFailed();
+    }
+
+    @Override
+    public double getThroughput() {
+        return snapshot().getThroughput();
+    }
+
+    @Override
+    public double getRejectionRate() {
+        PipelineMetrics.Snapshot current = snapshot();
+        return current.getExecutions() == 0 ? 0.0 : (double) current.getFailed() / current.getExecutions();
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return snapshot().getLatency().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return snapshot().getLatency().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLatencyMaxNanos() {
+        return snapshot().getLatency().getMax();
+    }
+
+    @Override
+    public long getInputSizeP50() {
+        return snapshot().getInputSizes().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getInputSizeP99() {
+        return snapshot().getInputSizes().getValueAtPercentile(99);
+    }
+
+    @Override
+    public List<StageStats> getStages() {
+        List<StageStats> stages = new ArrayList<>();
+        for (PipelineMetrics.StageSnapshot stage : snapshot().getStages()) {
+            LatencyHistogram.Snapshot latency = stage.getLatency();
+            stages.add(new StageStats(stage.getName(), stage.getInvocations(), stage.getFailures(),
+                    stage.getExceptions(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                    latency.getSum()));
+        }
+        return stages;
+    }
+
+    @Override
+    public List<String> getSanitizerPatterns() {
+        List<SanitizerMiddleware> sanitizers = sanitizers();
+        return sanitizers.isEmpty() ? Collections.emptyList() : sanitizers.get(0).getPatterns();
+    }
+
+    @Override
+    public int setSanitizerPatterns(String patterns) {
+        List<String> parsed = new ArrayList<>();
+        for (String pattern : patterns.split("[,\\r\\n]+")) {
+            if (!pattern.trim().isEmpty()) {
+                parsed.add(pattern.trim());
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("No sanitizer patterns given");
+        }
+        return setPatterns("SANITIZER_PATTERNS_SET", parsed);
+    }
+
+    @Override
+    public int resetSanitizerPatterns() {
+        return setPatterns("SANITIZER_PATTERNS_RESET", BasicSanitizer.DEFAULT_PATTERNS);
+    }
+
+    private int setPatterns(String eventType, List<String> patterns) {
+        int previous = getSanitizerPatterns().size();
+        List<SanitizerMiddleware> sanitizers = sanitizers();
+        for (SanitizerMiddleware sanitizer : sanitizers) {
+            sanitizer.setPatterns(patterns);
+        }
+        String details = String.format("patterns %d -> %d, sanitizers=%d, caller=%s",
+                previous, patterns.size(), sanitizers.size(), caller());
+        List<LightweightAuditor> auditors = auditors();
+        if (auditors.isEmpty()) {
+            logger.warn("{} with no auditor in the pipeline: {}", eventType, details);
+        }
+        for (LightweightAuditor auditor : auditors) {
+            auditor.logSecurityEvent(eventType, "-", details);
+        }
+        return sanitizers.size();
+    }
+
+    /**
+     * Authenticated JMX principals and the remote host, when the operation
+     * came in over a JMX connector; "local" for in-process calls.
+     */
+    @SuppressWarnings("removal")
+    private static String caller() {
+        StringBuilder caller = new StringBuilder();
+        Subject subject = Subject.getSubject(AccessController.getContext());
+        if (subject != null) {
+            for (Principal principal : subject.getPrincipals()) {
+                caller.append(caller.length() == 0 ? "" : ",").append(principal.getName());
+            }
+        }
+        try {
+            caller.append(caller.length() == 0 ? "" : "@").append(RemoteServer.getClientHost());
+        } catch (ServerNotActiveException e) {
+            // not an RMI call
+        }
+        return caller.length() == 0 ? "local" : caller.toString();
+    }
+
+    private List<LightweightAuditor> auditors() {
+        List<LightweightAuditor> auditors = new ArrayList<>();
+        for (SecurityMiddleware middleware : pipeline.getMiddlewares()) {
+            if (middleware instanceof AuditorMiddleware
+                    && !auditors.contains(((AuditorMiddleware) middleware).getAuditor())) {
+                auditors.add(((AuditorMiddleware) middleware).getAuditor());
+            }
+        }
+        return auditors;
+    }
+
+    private List<SanitizerMiddleware> sanitizers() {
+        List<SanitizerMiddleware> sanitizers = new ArrayList<>();
+        for (SecurityMiddleware middleware : pipeline.getMiddlewares()) {
+            if (middleware instanceof SanitizerMiddleware) {
+                sanitizers.add((SanitizerMiddleware) middleware);
+            }
+        }
+        return sanitizers;
+    }
+
+    @Override
+    public void resetCounters() {
+        pipeline.getMetrics().reset();
+        snapshot = null;
+    }
+}
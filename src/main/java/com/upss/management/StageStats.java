@@ -0,0 +1,70 @@
+package com.upss.management;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Counters and latency of one pipeline stage as published over JMX.
+ */
+public class StageStats {
+    private final String name;
+    private final long invocations;
+    private final long failures;
+    private final long exceptions;
+    private final long latencyP50Nanos;
+    private final long latencyP99Nanos;
+    private final long totalNanos;
+
+    @ConstructorParameters({"name", "invocations", "failures", "exceptions", "latencyP50Nanos", "latencyP99Nanos",
+            "totalNanos"})
+    public StageStats(String name, long invocations, long failures, long exceptions, long latencyP50Nanos,
+                      long latencyP99Nanos, long totalNanos) {
+        this.name = name;
+        this.invocations = invocations;
+        this.failures = failures;
+        this.exceptions = exceptions;
+        this.latencyP50Nanos = latencyP50Nanos;
+        this.latencyP99Nanos = latencyP99Nanos;
+        this.totalNanos = totalNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Requests this stage rejected.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Share of this stage's invocations it rejected or threw on.
+     */
+    public double getRejectionRate() {
+        return invocations == 0 ? 0.0 : (double) (failures + exceptions) / invocations;
+    }
+
+    public long getLatencyP50Nanos() {
+        return latencyP50Nanos;
+    }
+
+    public long getLatencyP99Nanos() {
+        return latencyP99Nanos;
+    }
+
+    /**
+     * Time spent in this stage over all invocations.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+}
@@ -0,0 +1,70 @@
+package com.upss.management;
+
+import com.upss.core.LightweightAuditor;
+import com.upss.core.PromptLoader;
+import com.upss.middleware.SecurityPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers UPSS components with the platform MBean server under the
+ * {@code com.upss} domain. Registering a name that is already taken replaces
+ * the previous bean, so a component re-created on restart keeps its name.
+ */
+public final class UpssMBeans {
+    private static final Logger logger = LoggerFactory.getLogger(UpssMBeans.class);
+    public static final String DOMAIN = "com.upss";
+
+    private UpssMBeans() {
+    }
+
+    public static ObjectName register(SecurityPipeline pipeline, String name) {
+        return register(new SecurityPipelineMonitor(pipeline), "SecurityPipeline", name);
+    }
+
+    public static ObjectName register(PromptLoader loader, String name) {
+        return register(new PromptLoaderMonitor(loader), "PromptLoader", name);
+    }
+
+    public static ObjectName register(LightweightAuditor auditor, String name) {
+        return register(new AuditorMonitor(auditor), "Auditor", name);
+    }
+
+    public static void unregister(ObjectName objectName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to unregister MBean {} = {}", objectName, e);
+        }
+    }
+
+    static ObjectName objectName(String type, String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid MBean name: " + name, e);
+        }
+    }
+
+    private static ObjectName register(Object monitor, String type, String name) {
+        ObjectName objectName = objectName(type, name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            unregister(objectName);
+            server.registerMBean(monitor, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean " + objectName, e);
+        }
+        logger.info("Registered MBean {}", objectName);
+        return objectName;
+    }
+}
@@ -0,0 +1,258 @@
+package com.upss.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HdrHistogram-style log-linear buckets:
+ * every power of two is split into linear sub-buckets, enough for three
+ * significant digits by default, so any recorded value is reported within
+ * 0.1% using a fixed amount of memory, however many values are recorded.
+ * Fewer digits need proportionally less memory. Values are in nanoseconds by
+ * convention; values above the highest trackable one are clamped to it.
+ *
+ * <p>{@link #recordCorrected} compensates for coordinated omission: a
+ * recorder that could not issue requests while one was stalled adds the
+ * requests it should have issued meanwhile, with the latencies they would have
+ * seen.
+ */
+public class LatencyHistogram {
+    public static final long DEFAULT_HIGHEST_TRACKABLE = TimeUnit.HOURS.toNanos(1);
+
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private final int subBucketHalfMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final long highestTrackable;
+    private final AtomicLongArray counts;
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE);
+    }
+
+    public LatencyHistogram(long highestTrackable) {
+        this(highestTrackable, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @param significantDigits 1 to 3; each digit less takes about eight times
+     *                          less memory
+     */
+    public LatencyHistogram(long highestTrackable, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 3) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 3: " + significantDigits);
+        }
+        long subBuckets = 2 * (long) Math.pow(10, significantDigits);
+        this.subBucketHalfMagnitude = 64 - Long.numberOfLeadingZeros(subBuckets - 1) - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfMagnitude;
+        this.subBucketMask = (2L << subBucketHalfMagnitude) - 1;
+        if (highestTrackable < 2L * subBucketHalfCount) {
+            throw new IllegalArgumentException("Highest trackable value too small: " + highestTrackable);
+        }
+        this.highestTrackable = highestTrackable;
+        this.counts = new AtomicLongArray(indexOf(highestTrackable) + 1);
+    }
+
+    private int bucketOf(long value) {
+        return Math.max(0, 63 - Long.numberOfLeadingZeros(value | subBucketMask) - subBucketHalfMagnitude);
+    }
+
+    int indexOf(long value) {
+        int bucket = bucketOf(value);
+        int subBucket = (int) (value >>> bucket);
+        return ((bucket + 1) << subBucketHalfMagnitude) + subBucket - subBucketHalfCount;
+    }
+
+    long lowestValueAt(int index) {
+        int bucket = (index >> subBucketHalfMagnitude) - 1;
+        long subBucket = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucket < 0) {
+            subBucket -= subBucketHalfCount;
+            bucket = 0;
+        }
+        return subBucket << bucket;
+    }
+
+    long highestValueAt(int index) {
+        int bucket = Math.max(0, (index >> subBucketHalfMagnitude) - 1);
+        return lowestValueAt(index) + (1L << bucket) - 1;
+    }
+
+    public void record(long value) {
+        long clamped = Math.min(Math.max(0, value), highestTrackable);
+        counts.incrementAndGet(indexOf(clamped));
+        totalSum.add(clamped);
+        // Only new extremes pay for a CAS
+        if (clamped < min.get()) {
+            min.accumulateAndGet(clamped, Math::min);
+        }
+        if (clamped > max.get()) {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    /**
+     * Records {@code value} and, if it exceeds {@code expectedInterval}
+     * between requests, the values of the requests that would have been
+     * issued during the stall: {@code value - expectedInterval},
+     * {@code value - 2 * expectedInterval}, ... down to the interval.
+     */
+    public void recordCorrected(long value, long expectedInterval) {
+        record(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            record(missing);
+        }
+    }
+
+    /**
+     * Consistent enough copy for reporting; values recorded while it is taken
+     * may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(this, copy, total, totalSum.sum(), total == 0 ? 0 : min.get(), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalSum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    /**
+     * Fills {@code into} with the number of values at or below each of the
+     * ascending {@code bounds}, as {@link Snapshot#getCountAtOrBelow} would,
+     * and returns the total count. Reads the live counts in a single pass
+     * without copying them, for exporters with fixed bucket boundaries.
+     */
+    public long getCumulativeCounts(long[] bounds, long[] into) {
+        int bound = 0;
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            while (bound < bounds.length && (bounds[bound] < 0 || i > indexOf(bounds[bound]))) {
+                into[bound++] = seen;
+            }
+            seen += counts.get(i);
+        }
+        while (bound < bounds.length) {
+            into[bound++] = seen;
+        }
+        return seen;
+    }
+
+    public long getHighestTrackable() {
+        return highestTrackable;
+    }
+
+    /**
+     * Immutable copy of a histogram's counts.
+     */
+    public static final class Snapshot {
+        private final LatencyHistogram layout;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(LatencyHistogram layout, long[] counts, long count, long sum, long min, long max) {
+            this.layout = layout;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * Smallest recorded value, within the histogram's precision, that
+         * {@code percentile} percent of the values are at or below.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(layout.highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Values recorded at or below {@code value}, counting a bucket that
+         * straddles it as fully below.
+         */
+        public long getCountAtOrBelow(long value) {
+            if (value < 0) {
+                return 0;
+            }
+            int last = Math.min(counts.length - 1, layout.indexOf(value));
+            long seen = 0;
+            for (int i = 0; i <= last; i++) {
+                seen += counts[i];
+            }
+            return seen;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LatencyHistogram.Snapshot{count=%d, mean=%.0f, p50=%d, p99=%d, p99.9=%d, max=%d}",
+                    count, getMean(), getValueAtPercentile(50), getValueAtPercentile(99),
+                    getValueAtPercentile(99.9), max);
+        }
+    }
+}
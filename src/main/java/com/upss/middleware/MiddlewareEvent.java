@@ -0,0 +1,49 @@
+package com.upss.middleware;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@link SecurityMiddleware#process} call, so that stage
+ * costs line up with GC and I/O in the same recording. When the event is not
+ * enabled, {@code begin} and {@code finish} reduce to a flag check.
+ */
+@Name(MiddlewareEvent.NAME)
+@Label("Middleware Invocation")
+@Category({"UPSS", "Security Pipeline"})
+@Description("One security middleware processing one request")
+@StackTrace(false)
+final class MiddlewareEvent extends Event {
+    static final String NAME = "com.upss.MiddlewareInvocation";
+    static final String PASSED = "PASSED";
+    static final String FAILED = "FAILED";
+    static final String EXCEPTION = "EXCEPTION";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Prompt Id")
+    String promptId;
+
+    @Label("Input Length")
+    @Description("Length of the user input in characters")
+    int inputLength;
+
+    @Label("Outcome")
+    @Description("PASSED, FAILED (rejected the request) or EXCEPTION")
+    String outcome;
+
+    void finish(SecurityMiddleware middleware, PipelineResult result, String outcome) {
+        if (shouldCommit()) {
+            stage = middleware.getName();
+            promptId = result.getPrompt() == null ? null : result.getPrompt().getId();
+            inputLength = result.getUserInput() == null ? 0 : result.getUserInput().length();
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
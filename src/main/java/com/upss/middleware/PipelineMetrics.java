@@ -0,0 +1,296 @@
+package com.upss.middleware;
+
+import com.upss.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in instrumentation of a {@link SecurityPipeline}: per middleware, a
+ * latency histogram and counters of invocations, rejections and exceptions;
+ * for the whole pipeline, end-to-end latency, outcomes and the distribution
+ * of input sizes. Recording is lock-free (striped adders and atomic histogram
+ * buckets) and adds no allocation to a request, so it stays on in
+ * production; {@link #snapshot()} shows where the time goes without a
+ * profiler.
+ */
+public class PipelineMetrics {
+    static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram latency = new LatencyHistogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final LatencyHistogram inputSizes = new LatencyHistogram(Integer.MAX_VALUE, SIGNIFICANT_DIGITS);
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long sinceNanos = System.nanoTime();
+
+    Stage addStage(String name) {
+        Stage stage = new Stage(name);
+        stages.add(stage);
+        return stage;
+    }
+
+    void recordExecution(int inputLength, long nanos, boolean executionPassed) {
+        latency.record(nanos);
+        inputSizes.record(inputLength);
+        (executionPassed ? passed : failed).increment();
+    }
+
+    /**
+     * Zeroes every histogram and counter, e.g. to measure an interval.
+     */
+    public void reset() {
+        for (Stage stage : stages) {
+            stage.reset();
+        }
+        latency.reset();
+        inputSizes.reset();
+        passed.reset();
+        failed.reset();
+        sinceNanos = System.nanoTime();
+    }
+
+    /**
+     * Live recorders, one per middleware in pipeline order, for exporters
+     * that read them in place instead of taking a {@link #snapshot()}.
+     */
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Live end-to-end latency, in nanoseconds.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Live distribution of input lengths, in characters.
+     */
+    public LatencyHistogram getInputSizes() {
+        return inputSizes;
+    }
+
+    public long getPassed() {
+        return passed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public Snapshot snapshot() {
+        List<StageSnapshot> stageSnapshots = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            stageSnapshots.add(stage.snapshot());
+        }
+        return new Snapshot(Collections.unmodifiableList(stageSnapshots), latency.snapshot(), inputSizes.snapshot(),
+                passed.sum(), failed.sum(), System.nanoTime() - sinceNanos);
+    }
+
+    /**
+     * Recorder for one middleware position in the pipeline.
+     */
+    public static final class Stage {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder exceptions = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, boolean rejected) {
+            latency.record(nanos);
+            if (rejected) {
+                failures.increment();
+            }
+        }
+
+        void recordException(long nanos) {
+            latency.record(nanos);
+            exceptions.increment();
+        }
+
+        void reset() {
+            latency.reset();
+            failures.reset();
+            exceptions.reset();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Live time spent in this middleware, in nanoseconds; its count is
+         * the number of invocations.
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getExceptions() {
+            return exceptions.sum();
+        }
+
+        StageSnapshot snapshot() {
+            LatencyHistogram.Snapshot latencySnapshot = latency.snapshot();
+            return new StageSnapshot(name, latencySnapshot.getCount(), failures.sum(), exceptions.sum(),
+                    latencySnapshot);
+        }
+    }
+
+    /**
+     * Counters and latency of one middleware. Invocations include the ones
+     * that rejected the request or threw.
+     */
+    public static final class StageSnapshot {
+        private final String name;
+        private final long invocations;
+        private final long failures;
+        private final long exceptions;
+        private final LatencyHistogram.Snapshot latency;
+
+        StageSnapshot(String name, long invocations, long failures, long exceptions, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.invocations = invocations;
+            this.failures = failures;
+            this.exceptions = exceptions;
+            this.latency = latency;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Requests this middleware rejected.
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Requests on which this middleware threw.
+         */
+        public long getExceptions() {
+            return exceptions;
+        }
+
+        /**
+         * Time spent in this middleware, in nanoseconds.
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Point-in-time copy of a pipeline's metrics.
+     */
+    public static final class Snapshot {
+        private final List<StageSnapshot> stages;
+        private final LatencyHistogram.Snapshot latency;
+        private final LatencyHistogram.Snapshot inputSizes;
+        private final long passed;
+        private final long failed;
+        private final long elapsedNanos;
+
+        Snapshot(List<StageSnapshot> stages, LatencyHistogram.Snapshot latency, LatencyHistogram.Snapshot inputSizes,
+                 long passed, long failed, long elapsedNanos) {
+            this.stages = stages;
+            this.latency = latency;
+            this.inputSizes = inputSizes;
+            this.passed = passed;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * One entry per middleware, in pipeline order.
+         */
+        public List<StageSnapshot> getStages() {
+            return stages;
+        }
+
+        /**
+         * End-to-end time of {@link SecurityPipeline#execute}, in nanoseconds.
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        /**
+         * Lengths of the user inputs, in characters.
+         */
+        public LatencyHistogram.Snapshot getInputSizes() {
+            return inputSizes;
+        }
+
+        public long getExecutions() {
+            return passed + failed;
+        }
+
+        public long getPassed() {
+            return passed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Time covered by the counters: since the pipeline was created or
+         * its metrics were last reset.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Executions per second over {@link #getElapsedNanos()}.
+         */
+        public double getThroughput() {
+            return elapsedNanos <= 0 ? 0.0 : getExecutions() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * The stages as a table, slowest total time first.
+         */
+        @Override
+        public String toString() {
+            List<StageSnapshot> byTime = new ArrayList<>(stages);
+            byTime.sort((a, b) -> Long.compare(b.getLatency().getSum(), a.getLatency().getSum()));
+            StringBuilder table = new StringBuilder(String.format(
+                    "PipelineMetrics{executions=%d, passed=%d, failed=%d, p50=%dns, p99=%dns, input p50=%d, input p99=%d}%n",
+                    getExecutions(), passed, failed, latency.getValueAtPercentile(50),
+                    latency.getValueAtPercentile(99), inputSizes.getValueAtPercentile(50),
+                    inputSizes.getValueAtPercentile(99)));
+            table.append(String.format("%-24s %12s %10s %10s %12s %12s %12s%n",
+                    "stage", "invocations", "failures", "exceptions", "p50 (ns)", "p99 (ns)", "total (ms)"));
+            for (StageSnapshot stage : byTime) {
+                table.append(String.format("%-24s %12d %10d %10d %12d %12d %12.1f%n", stage.getName(),
+                        stage.getInvocations(), stage.getFailures(), stage.getExceptions(),
+                        stage.getLatency().getValueAtPercentile(50), stage.getLatency().getValueAtPercentile(99),
+                        stage.getLatency().getSum() / 1e6));
+            }
+            return table.toString();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +16,8 @@ public class SecurityPipeline {
     private static final Logger logger = LoggerFactory.getLogger(SecurityPipeline.class);
     private final List<SecurityMiddleware> middlewares = new ArrayList<>();
     private final Map<String, Object> context = new HashMap<>();
+    private final List<PipelineMetrics.Stage> stages = new ArrayList<>();
+    private final PipelineMetrics metrics = new PipelineMetrics();
 
     public SecurityPipeline withContext(String key, Object value) {
         context.put(key, value);
@@ -23,6 +26,7 @@ public class SecurityPipeline {
 
     public SecurityPipeline use(SecurityMiddleware middleware) {
         middlewares.add(middleware);
+        stages.add(metrics.addStage(middleware.getName()));
         logger.info("Added middleware: {}", middleware.getClass().getSimpleName());
         return this;
     }
@@ -30,20 +34,31 @@ public class SecurityPipeline {
     public PipelineResult execute(Prompt prompt, String userInput) {
         logger.debug("Executing security pipeline for prompt: {}", prompt.getId());
         
+        long start = System.nanoTime();
         PipelineResult result = new PipelineResult(prompt, userInput);
         result.addContext(context);
 
-        for (SecurityMiddleware middleware : middlewares) {
+        long stageStart = start;
+        for (int i = 0; i < middlewares.size(); i++) {
+            SecurityMiddleware middleware = middlewares.get(i);
             logger.debug("Executing middleware: {}", middleware.getClass().getSimpleName());
+            MiddlewareEvent event = new MiddlewareEvent();
+            event.begin();
             try {
                 middleware.process(result);
-                
+                long now = System.nanoTime();
+                stages.get(i).record(now - stageStart, !result.isPassed());
+                stageStart = now;
+                event.finish(middleware, result, result.isPassed() ? MiddlewareEvent.PASSED : MiddlewareEvent.FAILED);
+
                 if (!result.isPassed()) {
                     logger.warn("Security check failed at middleware: {}", middleware.getClass().getSimpleName());
                     result.addError(middleware.getClass().getSimpleName(), result.getLastError());
                     break;
                 }
             } catch (Exception e) {
+                stages.get(i).recordException(System.nanoTime() - stageStart);
+                event.finish(middleware, result, MiddlewareEvent.EXCEPTION);
                 logger.error("Error executing middleware: {}", middleware.getClass().getSimpleName(), e);
                 result.fail("Middleware execution error: " + e.getMessage());
                 result.addError(middleware.getClass().getSimpleName(), e.getMessage());
@@ -51,14 +66,28 @@ public class SecurityPipeline {
             }
         }
 
+        metrics.recordExecution(userInput == null ? 0 : userInput.length(), System.nanoTime() - start,
+                result.isPassed());
         logger.info("Pipeline execution completed. Result: {}", result.isPassed() ? "PASSED" : "FAILED");
         return result;
     }
 
+    /**
+     * Per-middleware latency and outcome counters, recorded on every
+     * execution.
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
     public int getMiddlewareCount() {
         return middlewares.size();
     }
 
+    public List<SecurityMiddleware> getMiddlewares() {
+        return Collections.unmodifiableList(middlewares);
+    }
+
     @Override
     public String toString() {
         return String.format("SecurityPipeline{middlewares=%d}", middlewares.size());
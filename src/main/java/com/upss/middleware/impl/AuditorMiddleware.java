@@ -1,17 +1,38 @@
 package com.upss.middleware.impl;
 
+import com.upss.audit.AuditPolicy;
+import com.upss.audit.AuditRollup;
 import com.upss.core.LightweightAuditor;
 import com.upss.middleware.PipelineResult;
 import com.upss.middleware.SecurityMiddleware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class AuditorMiddleware implements SecurityMiddleware {
+import java.io.Closeable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AuditorMiddleware implements SecurityMiddleware, Closeable {
     private static final Logger logger = LoggerFactory.getLogger(AuditorMiddleware.class);
     private final LightweightAuditor auditor;
+    private final AuditPolicy policy;
+    private final AuditRollup rollup;
+    private final LongAdder sampledOut = new LongAdder();
 
     public AuditorMiddleware(LightweightAuditor auditor) {
+        this(auditor, AuditPolicy.full());
+    }
+
+    public AuditorMiddleware(LightweightAuditor auditor, AuditPolicy policy) {
         this.auditor = auditor;
+        this.policy = policy;
+        if (policy.getMode() == AuditPolicy.Mode.AGGREGATED) {
+            this.rollup = new AuditRollup(policy.getWindowMillis(), (promptId, user, windowStart, windowMillis, count) ->
+                    auditor.logRollup(promptId, user, "PASSED", windowStart, windowMillis, count));
+            auditor.addFlushOnClose(rollup::close);
+        } else {
+            this.rollup = null;
+        }
     }
 
     public AuditorMiddleware() {
@@ -31,15 +52,35 @@ public class AuditorMiddleware implements SecurityMiddleware {
             sessionId = "no-session";
         }
 
-        auditor.logAccess(promptId, "EXECUTE", user, result.isPassed() ? "PASSED" : "FAILED");
-
-        if (!result.isPassed()) {
+        if (result.isPassed()) {
+            auditPassed(promptId, user);
+        } else {
+            auditor.logAccess(promptId, "EXECUTE", user, "FAILED");
             auditor.logSecurityEvent("SECURITY_CHECK_FAILED", promptId, result.getLastError());
         }
 
         logger.debug("Audit log entry created for prompt: {}", promptId);
     }
 
+    private void auditPassed(String promptId, String user) {
+        switch (policy.getMode()) {
+            case SAMPLED:
+                if (ThreadLocalRandom.current().nextDouble() < policy.getSampleRate()) {
+                    auditor.logSampledAccess(promptId, "EXECUTE", user, "PASSED", policy.getSampleRate());
+                } else {
+                    sampledOut.increment();
+                }
+                break;
+            case AGGREGATED:
+                if (!rollup.record(promptId, user)) {
+                    auditor.logAccess(promptId, "EXECUTE", user, "PASSED");
+                }
+                break;
+            default:
+                auditor.logAccess(promptId, "EXECUTE", user, "PASSED");
+        }
+    }
+
     @Override
     public String getName() {
         return "AuditorMiddleware";
@@ -48,4 +89,25 @@ public class AuditorMiddleware implements SecurityMiddleware {
     public LightweightAuditor getAuditor() {
         return auditor;
     }
+
+    public AuditPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * PASSED executions that the sampling policy chose not to write.
+     */
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    /**
+     * Writes any pending rollups; the auditor also does this when it closes.
+     */
+    @Override
+    public void close() {
+        if (rollup != null) {
+            rollup.close();
+        }
+    }
 }
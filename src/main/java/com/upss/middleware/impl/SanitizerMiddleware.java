@@ -6,12 +6,23 @@ import com.upss.middleware.SecurityMiddleware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 public class SanitizerMiddleware implements SecurityMiddleware {
     private static final Logger logger = LoggerFactory.getLogger(SanitizerMiddleware.class);
-    private final BasicSanitizer sanitizer = new BasicSanitizer();
+    private volatile BasicSanitizer sanitizer;
+
+    public SanitizerMiddleware() {
+        this(BasicSanitizer.DEFAULT_PATTERNS);
+    }
+
+    public SanitizerMiddleware(List<String> patterns) {
+        this.sanitizer = new BasicSanitizer(patterns);
+    }
 
     @Override
     public void process(PipelineResult result) {
+        BasicSanitizer sanitizer = this.sanitizer;
         String userInput = result.getUserInput();
         logger.debug("Sanitizing user input for prompt: {}", result.getPrompt().getId());
 
@@ -26,6 +37,19 @@ public class SanitizerMiddleware implements SecurityMiddleware {
         logger.debug("Input sanitization passed");
     }
 
+    public List<String> getPatterns() {
+        return sanitizer.getPatterns();
+    }
+
+    /**
+     * Swaps in a new rule set; requests already being processed finish with
+     * the previous one.
+     */
+    public void setPatterns(List<String> patterns) {
+        sanitizer = new BasicSanitizer(patterns);
+        logger.info("Sanitizer rule set replaced with {} patterns", patterns.size());
+    }
+
     @Override
     public String getName() {
         return "SanitizerMiddleware";
@@ -48,15 +48,23 @@ public class ValidatorMiddleware implements SecurityMiddleware {
         logger.debug("Input validation passed");
     }
 
+    /**
+     * Whether the input survives a UTF-8 round trip, which only unpaired
+     * surrogates do not; checked in place instead of encoding a copy.
+     */
     private boolean isValidEncoding(String input) {
-        try {
-            byte[] bytes = input.getBytes("UTF-8");
-            String decoded = new String(bytes, "UTF-8");
-            return decoded.equals(input);
-        } catch (Exception e) {
-            logger.error("Encoding validation failed", e);
-            return false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isHighSurrogate(c)) {
+                if (i + 1 == input.length() || !Character.isLowSurrogate(input.charAt(i + 1))) {
+                    return false;
+                }
+                i++;
+            } else if (Character.isLowSurrogate(c)) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
@@ -0,0 +1,58 @@
+package com.upss.allocation;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures the bytes a warmed-up call allocates on the calling thread with
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}. Calls
+ * are first run often enough for the JIT to compile them, and with escape
+ * analysis, and the lowest of several measured rounds is reported so that
+ * one-off allocations such as a lazy cache fill do not count.
+ */
+final class AllocationMeter {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static final int WARMUP_CALLS = 50_000;
+    static final int MEASURED_CALLS = 10_000;
+    static final int ROUNDS = 5;
+
+    /** Keeps results alive so the JIT cannot drop the measured calls. */
+    private static volatile long sink;
+
+    private AllocationMeter() {
+    }
+
+    static boolean isSupported() {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        if (!THREADS.isThreadAllocatedMemoryEnabled()) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    /**
+     * Bytes allocated per call of {@code call}, whose result is consumed.
+     */
+    static double bytesPerCall(LongSupplier call) {
+        long consumed = 0;
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            consumed += call.getAsLong();
+        }
+        long thread = Thread.currentThread().getId();
+        double lowest = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = THREADS.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                consumed += call.getAsLong();
+            }
+            long after = THREADS.getThreadAllocatedBytes(thread);
+            lowest = Math.min(lowest, (after - before) / (double) MEASURED_CALLS);
+        }
+        sink = consumed;
+        return lowest;
+    }
+}
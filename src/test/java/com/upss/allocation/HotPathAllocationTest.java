@@ -0,0 +1,78 @@
+package com.upss.allocation;
+
+import com.upss.core.BasicSanitizer;
+import com.upss.core.Prompt;
+import com.upss.middleware.PipelineResult;
+import com.upss.middleware.SecurityPipeline;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails the build when a hot-path call allocates more per warmed-up call
+ * than its budget in {@code allocation-budgets.properties}. A budget can be
+ * overridden with {@code -Dupss.allocation.<name>=<bytes>}.
+ */
+public class HotPathAllocationTest {
+
+    private static final String CLEAN_INPUT =
+            "Summarize the quarterly report and list the three biggest risks with one mitigation each.";
+
+    private static final Properties budgets = new Properties();
+
+    private final Prompt prompt = new Prompt("allocation", "You are a helpful assistant.", "1.0.0", "critical");
+
+    @BeforeClass
+    public static void loadBudgets() throws IOException {
+        assumeTrue("Thread allocation counters are not supported by this JVM", AllocationMeter.isSupported());
+        try (InputStream in = HotPathAllocationTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            assertNotNull("allocation-budgets.properties is missing", in);
+            budgets.load(in);
+        }
+    }
+
+    private static void assertWithinBudget(String name, double bytesPerCall) {
+        String budget = System.getProperty("upss.allocation." + name, budgets.getProperty(name));
+        assertNotNull("No allocation budget configured for " + name, budget);
+        assertTrue(String.format("%s allocates %.1f bytes per call, over its budget of %s", name, bytesPerCall,
+                budget), bytesPerCall <= Double.parseDouble(budget));
+    }
+
+    @Test
+    public void testSanitizerIsClean() {
+        BasicSanitizer sanitizer = new BasicSanitizer();
+
+        assertWithinBudget("BasicSanitizer.isClean",
+                AllocationMeter.bytesPerCall(() -> sanitizer.isClean(CLEAN_INPUT) ? 1 : 0));
+    }
+
+    @Test
+    public void testValidatorProcess() {
+        ValidatorMiddleware validator = new ValidatorMiddleware();
+        PipelineResult result = new PipelineResult(prompt, CLEAN_INPUT);
+
+        assertWithinBudget("ValidatorMiddleware.process", AllocationMeter.bytesPerCall(() -> {
+            validator.process(result);
+            return result.isPassed() ? 1 : 0;
+        }));
+    }
+
+    @Test
+    public void testPipelineExecute() {
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .withContext("user", "allocation-test")
+                .use(new ValidatorMiddleware())
+                .use(new SanitizerMiddleware());
+
+        assertWithinBudget("SecurityPipeline.execute",
+                AllocationMeter.bytesPerCall(() -> pipeline.execute(prompt, CLEAN_INPUT).isPassed() ? 1 : 0));
+    }
+}
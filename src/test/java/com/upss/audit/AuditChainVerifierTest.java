@@ -0,0 +1,200 @@
+package com.upss.audit;
+
+import com.upss.core.LightweightAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the audit hash chain and AuditChainVerifier
+ */
+public class AuditChainVerifierTest {
+
+    private static final byte[] KEY = "test-audit-key".getBytes(StandardCharsets.UTF_8);
+
+    private String testDir;
+    private Path activeLog;
+
+    @Before
+    public void setUp() {
+        testDir = System.getProperty("java.io.tmpdir") + File.separator + "upss_chain_test_" + System.nanoTime();
+        new File(testDir).mkdirs();
+        activeLog = Paths.get(testDir, "prompts.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(testDir).delete();
+    }
+
+    private void writeEntries(AuditLogOptions options, int count) throws IOException {
+        LightweightAuditor auditor = new LightweightAuditor(activeLog.toString(), options);
+        for (int i = 0; i < count; i++) {
+            auditor.logAccess("securityAnalyst", "EXECUTE", "user-" + (i % 3), "PASSED");
+        }
+        auditor.close();
+    }
+
+    @Test
+    public void testIntactChainVerifies() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048).compressSegments(true), 200);
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null, 4).verify();
+
+        assertTrue("Untouched log should verify: " + report.getFailures(), report.isValid());
+        assertEquals(200, report.getRecords());
+        assertTrue("Rotated segments should be sealed", report.getResults().get(0).isSealed());
+        assertTrue(Files.exists(AuditHashChain.sealPath(AuditSegments.segmentPath(activeLog, 1))));
+    }
+
+    @Test
+    public void testChainEnabledOnNonEmptyLogVerifies() throws IOException {
+        writeEntries(new AuditLogOptions(), 20);
+        long unchained = Files.size(activeLog);
+        writeEntries(new AuditLogOptions().hashChain(true), 30);
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertTrue("Records from before chaining must not fail verification: " + report.getFailures(),
+                report.isValid());
+        assertEquals(30, report.getRecords());
+        assertEquals(unchained, report.getResults().get(0).getUnchainedBytes());
+
+        String content = new String(Files.readAllBytes(activeLog), StandardCharsets.UTF_8);
+        int chained = content.indexOf('\n', (int) unchained);
+        Files.write(activeLog, (content.substring(0, chained) + content.substring(chained).replaceFirst("user-", "USER-"))
+                .getBytes(StandardCharsets.UTF_8));
+        assertFalse("Chained records are still protected",
+                new AuditChainVerifier(activeLog.toString(), null).verify().isValid());
+    }
+
+    @Test
+    public void testSegmentsRotatedBeforeChainingAreAccepted() throws IOException {
+        writeEntries(new AuditLogOptions().segmentBytes(2048), 100);
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048), 100);
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+        assertTrue("Segments from before chaining must not fail verification: " + report.getFailures(),
+                report.isValid());
+        assertTrue(report.getResults().get(0).toString(), report.getResults().get(0).toString().contains("UNCHAINED"));
+
+        // Stripping the chain from the first chained segment must not pass it off as unchained
+        long firstChained = 1;
+        while (!Files.exists(AuditHashChain.chainPath(AuditSegments.segmentPath(activeLog, firstChained)))) {
+            firstChained++;
+        }
+        Path segment = AuditSegments.segmentPath(activeLog, firstChained);
+        Files.delete(AuditHashChain.chainPath(segment));
+        Files.delete(AuditHashChain.sealPath(segment));
+        assertFalse(new AuditChainVerifier(activeLog.toString(), null).verify().isValid());
+    }
+
+    @Test
+    public void testEditedRecordIsDetected() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048).maxBatchSize(8), 200);
+        Path segment = AuditSegments.segmentPath(activeLog, 2);
+        String content = new String(Files.readAllBytes(segment), StandardCharsets.UTF_8);
+        Files.write(segment, content.replaceFirst("STATUS=PASSED", "STATUS=FAILED").getBytes(StandardCharsets.UTF_8));
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertFalse("Edited segment should fail verification", report.isValid());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(segment.getFileName().toString(), report.getFailures().get(0).getSegment());
+    }
+
+    @Test
+    public void testDeletedSegmentIsDetected() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048).maxBatchSize(8), 200);
+        Path segment = AuditSegments.segmentPath(activeLog, 2);
+        Files.delete(segment);
+        Files.delete(AuditSegments.indexPath(segment));
+        Files.delete(AuditHashChain.chainPath(segment));
+        Files.delete(AuditHashChain.sealPath(segment));
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertFalse("A missing segment should break the chain", report.isValid());
+    }
+
+    @Test
+    public void testDeletedOldestSegmentsAreDetected() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048).maxBatchSize(8), 200);
+        Path segment = AuditSegments.segmentPath(activeLog, 1);
+        String anchor = AuditHashChain.readSeal(AuditHashChain.sealPath(segment)).get("head");
+        Files.delete(segment);
+        Files.delete(AuditSegments.indexPath(segment));
+        Files.delete(AuditHashChain.chainPath(segment));
+        Files.delete(AuditHashChain.sealPath(segment));
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertFalse("Deleting the oldest segment should break the chain", report.isValid());
+        assertEquals(AuditSegments.segmentPath(activeLog, 2).getFileName().toString(),
+                report.getFailures().get(0).getSegment());
+        assertTrue("Pruning is accepted against the pruned segment's head",
+                new AuditChainVerifier(activeLog.toString(), null).withTrustedAnchor(anchor).verify().isValid());
+    }
+
+    @Test
+    public void testAppendedRecordIsDetected() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true), 10);
+        Files.write(activeLog, "[2026-02-07 16:43:23] ACTION=EXECUTE | PROMPT=x | USER=y | STATUS=PASSED\n"
+                .getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.APPEND);
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertFalse("Records outside the chain should be reported", report.isValid());
+    }
+
+    @Test
+    public void testHmacKeyIsRequiredToVerify() throws IOException {
+        writeEntries(new AuditLogOptions().hmacKey(KEY).segmentBytes(2048), 100);
+
+        assertTrue(new AuditChainVerifier(activeLog.toString(), KEY).verify().isValid());
+        assertFalse("Verifying without the key should fail",
+                new AuditChainVerifier(activeLog.toString(), null).verify().isValid());
+    }
+
+    @Test
+    public void testChainContinuesAfterRestart() throws IOException {
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048), 50);
+        writeEntries(new AuditLogOptions().hashChain(true).segmentBytes(2048), 50);
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+
+        assertTrue("Reopened log should extend the same chain: " + report.getFailures(), report.isValid());
+        assertEquals(100, report.getRecords());
+    }
+
+    @Test
+    public void testBackgroundWriterBatchesEntries() throws IOException {
+        SegmentedAuditLog log = new SegmentedAuditLog(activeLog, new AuditLogOptions().hashChain(true));
+        BackgroundAuditWriter writer = new BackgroundAuditWriter(log, 1024, 64);
+        for (int i = 0; i < 500; i++) {
+            writer.submit("[2026-02-07 16:43:23] ACTION=EXECUTE | PROMPT=p | USER=u" + i + " | STATUS=PASSED");
+        }
+        writer.flush();
+
+        assertEquals(500, writer.getWrittenCount());
+        assertTrue("Batches should hold several entries", writer.getBatchCount() >= 8);
+        assertEquals(500, Files.readAllLines(activeLog).size());
+        writer.close();
+        assertTrue(new AuditChainVerifier(activeLog.toString(), null).verify().isValid());
+    }
+}
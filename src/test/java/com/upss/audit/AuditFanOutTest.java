@@ -0,0 +1,213 @@
+package com.upss.audit;
+
+import com.upss.core.LightweightAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AuditFanOut and the bundled audit sinks
+ */
+public class AuditFanOutTest {
+
+    private String testDir;
+    private Path activeLog;
+
+    @Before
+    public void setUp() {
+        testDir = System.getProperty("java.io.tmpdir") + File.separator + "upss_fanout_test_" + System.nanoTime();
+        new File(testDir).mkdirs();
+        activeLog = Paths.get(testDir, "prompts.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(testDir).delete();
+    }
+
+    @Test
+    public void testEveryEntryReachesFileAndRing() throws IOException {
+        RingBufferAuditSink ring = new RingBufferAuditSink(16);
+        LightweightAuditor auditor = new LightweightAuditor(activeLog.toString(),
+                new AuditLogOptions().addSink(ring, 128, BackgroundAuditWriter.OverflowPolicy.BLOCK));
+        for (int i = 0; i < 100; i++) {
+            auditor.logAccess("securityAnalyst", "EXECUTE", "user-" + i, "PASSED");
+        }
+        auditor.flush();
+
+        assertEquals(100, Files.readAllLines(activeLog).size());
+        assertEquals(100, ring.getTotalWritten());
+        List<String> recent = ring.snapshot();
+        assertEquals(16, recent.size());
+        assertTrue(recent.get(0).contains("USER=user-84"));
+        assertTrue(recent.get(15).contains("USER=user-99"));
+
+        List<AuditFanOut.SinkStats> stats = auditor.getSinkStats();
+        assertEquals(2, stats.size());
+        assertEquals("file:prompts.log", stats.get(0).getName());
+        for (AuditFanOut.SinkStats sink : stats) {
+            assertEquals(100, sink.getWritten());
+            assertEquals(0, sink.getLag());
+            assertEquals(0, sink.getDropped());
+        }
+        auditor.close();
+    }
+
+    @Test
+    public void testStalledSinkDropsWithoutSlowingOthers() throws IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingSink stalled = new BlockingSink(release);
+        RingBufferAuditSink ring = new RingBufferAuditSink(1024);
+        AuditFanOut fanOut = new AuditFanOut()
+                .addSink(stalled, 8, 4, BackgroundAuditWriter.OverflowPolicy.DROP)
+                .addSink(ring, 1024, 64, BackgroundAuditWriter.OverflowPolicy.BLOCK);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            fanOut.submit("entry-" + i);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Submitting must not wait for the stalled sink: " + elapsedMillis + "ms", elapsedMillis < 5000);
+
+        AuditFanOut.SinkStats stalledStats = fanOut.getSinkStats().get(0);
+        assertTrue("Stalled sink should drop entries", stalledStats.getDropped() > 0);
+        assertTrue("Stalled sink should report lag", stalledStats.getLag() > 0);
+        assertEquals(1000, stalledStats.getSubmitted() + stalledStats.getDropped());
+
+        release.countDown();
+        fanOut.flush();
+        assertEquals(1000, ring.getTotalWritten());
+        assertEquals(0, fanOut.getSinkStats().get(1).getDropped());
+        fanOut.close();
+        assertEquals(stalledStats.getSubmitted(), stalled.received.size());
+    }
+
+    @Test
+    public void testFailingSinkIsCountedAndIsolated() throws IOException {
+        RingBufferAuditSink ring = new RingBufferAuditSink(64);
+        AuditSink failing = new AuditSink() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public void write(List<String> entries) throws IOException {
+                throw new IOException("collector down");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AuditFanOut fanOut = new AuditFanOut()
+                .addSink(failing, 64, 8, BackgroundAuditWriter.OverflowPolicy.DROP)
+                .addSink(ring, 64, 8, BackgroundAuditWriter.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 20; i++) {
+            fanOut.submit("entry-" + i);
+        }
+        fanOut.flush();
+
+        assertEquals(20, fanOut.getSinkStats().get(0).getFailed());
+        assertEquals(0, fanOut.getSinkStats().get(0).getWritten());
+        assertEquals(20, ring.getTotalWritten());
+        fanOut.close();
+    }
+
+    @Test
+    public void testSyslogSinkSendsFramedMessages() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            List<String> lines = Collections.synchronizedList(new ArrayList<>());
+            Thread collector = new Thread(() -> {
+                try (Socket client = server.accept();
+                     BufferedReader reader = new BufferedReader(
+                             new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    // Test assertions report missing lines
+                }
+            });
+            collector.start();
+
+            LightweightAuditor auditor = new LightweightAuditor(activeLog.toString(), new AuditLogOptions()
+                    .addSink(new SyslogAuditSink("127.0.0.1", server.getLocalPort()), 64,
+                            BackgroundAuditWriter.OverflowPolicy.DROP));
+            auditor.logAccess("securityAnalyst", "EXECUTE", "alice", "PASSED");
+            auditor.logSecurityEvent("INJECTION_ATTEMPT", "securityAnalyst", "blocked");
+            auditor.close();
+            collector.join(5000);
+
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0), lines.get(0).startsWith("<110>1 "));
+            assertTrue(lines.get(0).endsWith("STATUS=PASSED"));
+            assertTrue(lines.get(1), lines.get(1).startsWith("<108>1 "));
+            assertTrue(lines.get(1).contains(" upss - - - ["));
+        }
+    }
+
+    @Test
+    public void testSyslogSinkFailsWhenCollectorIsDown() throws IOException {
+        int port;
+        try (ServerSocket server = new ServerSocket(0)) {
+            port = server.getLocalPort();
+        }
+        SyslogAuditSink sink = new SyslogAuditSink("127.0.0.1", port);
+        assertThrows(IOException.class, () -> sink.write(Collections.singletonList("entry")));
+        sink.close();
+    }
+
+    private static final class BlockingSink implements AuditSink {
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+
+        BlockingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return "blocking";
+        }
+
+        @Override
+        public void write(List<String> entries) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            received.addAll(entries);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.upss.audit;
+
+import com.upss.core.LightweightAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AuditQueryEngine over rotated and sealed audit segments
+ */
+public class AuditQueryEngineTest {
+
+    private String testDir;
+    private Path activeLog;
+
+    @Before
+    public void setUp() {
+        testDir = System.getProperty("java.io.tmpdir") + File.separator + "upss_query_test_" + System.nanoTime();
+        new File(testDir).mkdirs();
+        activeLog = Paths.get(testDir, "prompts.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(testDir).delete();
+    }
+
+    private static String entry(String day, int second, String prompt, String user, String status) {
+        return String.format("[%s 10:%02d:%02d] ACTION=EXECUTE | PROMPT=%s | USER=%s | STATUS=%s",
+                day, second / 60, second % 60, prompt, user, status);
+    }
+
+    private Path writeSegment(long sequence, List<String> lines) throws IOException {
+        Path segment = AuditSegments.segmentPath(activeLog, sequence);
+        Files.write(segment, lines, StandardCharsets.UTF_8);
+        return segment;
+    }
+
+    private void writeDays(boolean compress) throws IOException {
+        String[] days = {"2026-02-02", "2026-02-03", "2026-02-04"};
+        for (int d = 0; d < days.length; d++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                lines.add(entry(days[d], i, i % 2 == 0 ? "securityAnalyst" : "metaMentorSystem",
+                        i % 3 == 0 ? "bob" : "alice", i % 7 == 0 ? "FAILED" : "PASSED"));
+            }
+            AuditSegments.seal(writeSegment(d + 1, lines), compress);
+        }
+    }
+
+    private List<String> collect(AuditQueryEngine engine, AuditQuery query, AuditQueryEngine.QueryStats stats) {
+        try (Stream<AuditRecord> records = engine.query(query, stats)) {
+            return records.map(AuditRecord::getLine).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testQuerySkipsSegmentsOutsideTimeRange() throws IOException {
+        writeDays(false);
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+        AuditQuery query = new AuditQuery().promptId("securityAnalyst").user("bob").status("FAILED")
+                .between(AuditRecord.parseTimestamp("2026-02-03"), AuditRecord.parseTimestamp("2026-02-04"));
+        AuditQueryEngine.QueryStats stats = new AuditQueryEngine.QueryStats();
+
+        List<String> lines = collect(engine, query, stats);
+
+        // i % 2 == 0, i % 3 == 0 and i % 7 == 0  =>  i % 42 == 0 for i < 1200
+        assertEquals("Should find every matching record of the requested day", 29, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("[2026-02-03")));
+        assertEquals("Other days should be pruned by their index", 2, stats.getSegmentsSkipped());
+        assertEquals(1, stats.getSegmentsSearched());
+    }
+
+    @Test
+    public void testCompressedSegmentsGiveSameResults() throws IOException {
+        writeDays(true);
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+        AuditQuery query = new AuditQuery().promptId("securityAnalyst").user("bob").status("FAILED")
+                .between(AuditRecord.parseTimestamp("2026-02-03"), AuditRecord.parseTimestamp("2026-02-04"));
+
+        assertEquals(29, collect(engine, query, new AuditQueryEngine.QueryStats()).size());
+        assertTrue("Compressed segment should exist",
+                Files.exists(Paths.get(testDir, "prompts.log.000001.gz")));
+        assertFalse("Raw segment should be replaced by its compressed form",
+                Files.exists(Paths.get(testDir, "prompts.log.000001")));
+    }
+
+    @Test
+    public void testUnknownValueSkipsEverySegment() throws IOException {
+        writeDays(true);
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+        AuditQueryEngine.QueryStats stats = new AuditQueryEngine.QueryStats();
+
+        assertTrue(collect(engine, new AuditQuery().user("mallory"), stats).isEmpty());
+        assertEquals(3, stats.getSegmentsSkipped());
+        assertEquals("No block should be read", 0, stats.getBlocksRead());
+    }
+
+    @Test
+    public void testBitmapsSeekToMatchingBlock() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            lines.add(entry("2026-02-02", i, "userSummarization", i == 2500 ? "rare-user" : "alice", "PASSED"));
+        }
+        AuditSegments.seal(writeSegment(1, lines), false);
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+        AuditQueryEngine.QueryStats stats = new AuditQueryEngine.QueryStats();
+
+        List<String> found = collect(engine, new AuditQuery().user("rare-user"), stats);
+
+        assertEquals(1, found.size());
+        assertEquals(lines.get(2500), found.get(0));
+        assertEquals("Only the block holding the record should be read", 1, stats.getBlocksRead());
+    }
+
+    @Test
+    public void testUnsealedSegmentAndActiveLogAreScanned() throws IOException {
+        writeSegment(1, List.of(entry("2026-02-02", 1, "p1", "alice", "FAILED")));
+        Files.write(activeLog, List.of(entry("2026-02-02", 2, "p1", "alice", "FAILED")), StandardCharsets.UTF_8);
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+
+        assertEquals(2, engine.count(new AuditQuery().status("FAILED")));
+    }
+
+    @Test
+    public void testAuditorRotatesIntoQueryableSegments() throws Exception {
+        LightweightAuditor auditor = new LightweightAuditor(activeLog.toString(), 1024, true);
+        for (int i = 0; i < 100; i++) {
+            auditor.logAccess("securityAnalyst", "EXECUTE", "user-" + (i % 4), i % 5 == 0 ? "FAILED" : "PASSED");
+        }
+        auditor.close();
+
+        assertTrue("Log should have rotated", AuditSegments.listSequences(activeLog).size() > 1);
+        assertTrue("Rotated segments should be sealed", AuditSegments.isSealed(activeLog, 1));
+
+        AuditQueryEngine engine = new AuditQueryEngine(activeLog.toString());
+        assertEquals(100, engine.count(new AuditQuery()));
+        assertEquals(20, engine.count(new AuditQuery().status("FAILED")));
+        assertEquals(25, engine.count(new AuditQuery().user("user-1")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.upss.audit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AuditRecord
+ */
+public class AuditRecordTest {
+
+    @Test
+    public void testParseAccessEntry() {
+        AuditRecord record = AuditRecord.parse(
+                "[2026-02-07 16:43:23] ACTION=EXECUTE | PROMPT=metaMentorSystem | USER=system-admin | STATUS=PASSED");
+
+        assertNotNull("Access entry should parse", record);
+        assertEquals("EXECUTE", record.getAction());
+        assertEquals("metaMentorSystem", record.getPromptId());
+        assertEquals("system-admin", record.getUser());
+        assertEquals("PASSED", record.getStatus());
+        assertEquals(AuditRecord.parseTimestamp("2026-02-07 16:43:23"), record.getTimestamp());
+    }
+
+    @Test
+    public void testParseModificationEntry() {
+        AuditRecord record = AuditRecord.parse(
+                "[2026-02-07 16:43:23] MODIFICATION | PROMPT=p1 | VERSION=1.1.0 | MODIFIED_BY=alice | REASON=typo");
+
+        assertNotNull("Modification entry should parse", record);
+        assertEquals("MODIFICATION", record.getAction());
+        assertEquals("alice", record.getUser());
+        assertNull("Modifications have no status", record.getStatus());
+        assertEquals("1.1.0", record.getField("VERSION"));
+    }
+
+    @Test
+    public void testParseSecurityEventWithPipeInDetails() {
+        AuditRecord record = AuditRecord.parse(
+                "[2026-02-07 16:43:23] SECURITY_EVENT=SECURITY_CHECK_FAILED | PROMPT=p1 | DETAILS=a | b");
+
+        assertNotNull("Security event should parse", record);
+        assertEquals("SECURITY_EVENT", record.getAction());
+        assertEquals("SECURITY_CHECK_FAILED", record.getField("SECURITY_EVENT"));
+        assertEquals("Free text should keep its separator", "a | b", record.getField("DETAILS"));
+    }
+
+    @Test
+    public void testRejectMalformedLines() {
+        assertNull(AuditRecord.parse(null));
+        assertNull(AuditRecord.parse(""));
+        assertNull(AuditRecord.parse("not an audit line at all"));
+        assertNull(AuditRecord.parse("[2026-99-99 16:43:23] ACTION=EXECUTE"));
+    }
+
+    @Test
+    public void testParseDateOnlyTimestamp() {
+        assertEquals(AuditRecord.parseTimestamp("2026-02-07 00:00:00"), AuditRecord.parseTimestamp("2026-02-07"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.upss.audit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AuditRollup
+ */
+public class AuditRollupTest {
+
+    @Test
+    public void testCountsPerPromptAndUser() {
+        Map<String, AtomicLong> emitted = new ConcurrentHashMap<>();
+        AuditRollup rollup = new AuditRollup(60_000, (promptId, user, windowStart, windowMillis, count) ->
+                emitted.computeIfAbsent(promptId + "/" + user, k -> new AtomicLong()).addAndGet(count));
+
+        for (int i = 0; i < 30; i++) {
+            rollup.record("p1", i % 3 == 0 ? "alice" : "bob");
+        }
+        rollup.record("p2", "alice");
+        assertTrue("Nothing should be emitted before the window closes", emitted.isEmpty());
+
+        rollup.close();
+
+        assertEquals(10, emitted.get("p1/alice").get());
+        assertEquals(20, emitted.get("p1/bob").get());
+        assertEquals(1, emitted.get("p2/alice").get());
+        assertEquals(0, rollup.getPendingKeys());
+    }
+
+    @Test
+    public void testNoCountsLostUnderConcurrentFlushes() throws InterruptedException {
+        AtomicLong total = new AtomicLong();
+        AuditRollup rollup = new AuditRollup(5, (promptId, user, windowStart, windowMillis, count) ->
+                total.addAndGet(count));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String user = "user-" + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    rollup.record("prompt", user);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        rollup.close();
+
+        assertEquals(160_000, total.get());
+    }
+
+    @Test
+    public void testRecordRefusedAfterClose() {
+        AuditRollup rollup = new AuditRollup(60_000, (promptId, user, windowStart, windowMillis, count) -> { });
+        rollup.close();
+
+        assertFalse("Closed rollup should hand executions back to the caller", rollup.record("p1", "alice"));
+    }
+
+    @Test
+    public void testPolicyParsing() {
+        assertEquals(AuditPolicy.Mode.FULL, AuditPolicy.parse("full").getMode());
+        assertEquals(0.25, AuditPolicy.parse("sampled:0.25").getSampleRate(), 0.0);
+        assertEquals(30_000, AuditPolicy.parse("aggregated:30").getWindowMillis());
+        assertEquals(AuditPolicy.DEFAULT_ROLLUP_WINDOW_MILLIS, AuditPolicy.parse("AGGREGATED").getWindowMillis());
+        assertThrows(IllegalArgumentException.class, () -> AuditPolicy.sampled(1.5));
+        assertThrows(IllegalArgumentException.class, () -> AuditPolicy.parse("verbose"));
+    }
+}
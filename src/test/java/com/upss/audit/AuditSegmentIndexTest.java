@@ -0,0 +1,95 @@
+package com.upss.audit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AuditSegmentIndex
+ */
+public class AuditSegmentIndexTest {
+
+    private String testDir;
+
+    @Before
+    public void setUp() {
+        testDir = System.getProperty("java.io.tmpdir") + File.separator + "upss_index_test_" + System.nanoTime();
+        new File(testDir).mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(testDir).delete();
+    }
+
+    private AuditSegmentIndex twoBlockIndex() {
+        AuditSegmentIndex.Builder builder = new AuditSegmentIndex.Builder("prompts.log.000001", false);
+        builder.add(AuditRecord.parse("[2026-02-02 10:00:00] ACTION=EXECUTE | PROMPT=p1 | USER=alice | STATUS=PASSED"));
+        builder.add(null);
+        builder.endBlock(0, 100);
+        builder.add(AuditRecord.parse("[2026-02-03 10:00:00] ACTION=EXECUTE | PROMPT=p2 | USER=bob | STATUS=FAILED"));
+        builder.endBlock(100, 80);
+        return builder.build();
+    }
+
+    @Test
+    public void testCandidateBlocksByValue() {
+        AuditSegmentIndex index = twoBlockIndex();
+
+        assertEquals(3, index.getRecordCount());
+        assertEquals(2, index.getBlockCount());
+        assertEquals(bits(0), index.candidateBlocks(new AuditQuery().user("alice")));
+        assertEquals(bits(1), index.candidateBlocks(new AuditQuery().promptId("p2").status("FAILED")));
+        assertTrue(index.candidateBlocks(new AuditQuery().user("alice").status("FAILED")).isEmpty());
+        assertTrue(index.candidateBlocks(new AuditQuery().user("nobody")).isEmpty());
+    }
+
+    @Test
+    public void testCandidateBlocksByTime() {
+        AuditSegmentIndex index = twoBlockIndex();
+        long day3 = AuditRecord.parseTimestamp("2026-02-03");
+
+        assertEquals(bits(1), index.candidateBlocks(new AuditQuery().between(day3, Long.MAX_VALUE)));
+        assertEquals(bits(0), index.candidateBlocks(new AuditQuery().between(Long.MIN_VALUE, day3)));
+        assertTrue(index.candidateBlocks(new AuditQuery().between(0, 1000)).isEmpty());
+    }
+
+    @Test
+    public void testWriteAndReadRoundTrip() throws IOException {
+        AuditSegmentIndex index = twoBlockIndex();
+        Path path = Paths.get(testDir, "prompts.log.000001.idx");
+
+        index.write(path);
+        AuditSegmentIndex read = AuditSegmentIndex.read(path);
+
+        assertEquals(index.getSegmentFileName(), read.getSegmentFileName());
+        assertEquals(index.getRecordCount(), read.getRecordCount());
+        assertEquals(index.getMinTimestamp(), read.getMinTimestamp());
+        assertEquals(index.getMaxTimestamp(), read.getMaxTimestamp());
+        assertEquals(100, read.getBlockOffset(1));
+        assertEquals(80, read.getBlockLength(1));
+        assertEquals(bits(1), read.candidateBlocks(new AuditQuery().user("bob")));
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int i : indices) {
+            bits.set(i);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,169 @@
+package com.upss.audit;
+
+import com.upss.core.LightweightAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for per-process audit streams, their merged view and AuditCompactor
+ */
+public class AuditStreamsTest {
+
+    private String testDir;
+    private Path activeLog;
+
+    @Before
+    public void setUp() {
+        testDir = System.getProperty("java.io.tmpdir") + File.separator + "upss_streams_test_" + System.nanoTime();
+        new File(testDir).mkdirs();
+        activeLog = Paths.get(testDir, "prompts.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(testDir).delete();
+    }
+
+    private static String entry(int second, String user) {
+        return String.format("[2026-02-07 16:%02d:%02d] ACTION=EXECUTE | PROMPT=p | USER=%s | STATUS=PASSED",
+                second / 60, second % 60, user);
+    }
+
+    private void writeStream(String writerId, int firstSecond, int step, int count) throws IOException {
+        try (SegmentedAuditLog log = new SegmentedAuditLog(AuditStreams.streamPath(activeLog, writerId), 1024, false)) {
+            for (int i = 0; i < count; i++) {
+                log.append(entry(firstSecond + i * step, writerId));
+            }
+        }
+    }
+
+    private List<AuditRecord> readAll(String path) {
+        try (Stream<AuditRecord> records = new AuditQueryEngine(path).query(new AuditQuery())) {
+            return records.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testStreamsAreMergedInTimeOrder() throws IOException {
+        writeStream("jvm-a", 0, 2, 300);
+        writeStream("jvm-b", 1, 2, 300);
+        Files.write(activeLog, Arrays.asList(entry(3, "legacy"), entry(700, "legacy")));
+
+        List<AuditRecord> records = readAll(activeLog.toString());
+
+        assertEquals(602, records.size());
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue("Merged view must be time-ordered at " + i,
+                    records.get(i - 1).getTimestamp() <= records.get(i).getTimestamp());
+        }
+        assertEquals("jvm-a", records.get(0).getUser());
+        assertEquals("jvm-b", records.get(1).getUser());
+        assertEquals("legacy", records.get(records.size() - 1).getUser());
+    }
+
+    @Test
+    public void testQueriesPruneEachStream() throws IOException {
+        writeStream("jvm-a", 0, 1, 600);
+        writeStream("jvm-b", 0, 1, 600);
+
+        AuditQueryEngine.QueryStats stats = new AuditQueryEngine.QueryStats();
+        long count;
+        try (Stream<AuditRecord> records = new AuditQueryEngine(activeLog.toString())
+                .query(new AuditQuery().user("jvm-b"), stats)) {
+            count = records.count();
+        }
+
+        assertEquals(600, count);
+        assertTrue("Segments of the other stream should be skipped: " + stats, stats.getSegmentsSkipped() > 0);
+    }
+
+    @Test
+    public void testAuditorsInOneDirectoryGetSeparateStreams() throws IOException {
+        LightweightAuditor first = new LightweightAuditor(activeLog.toString(),
+                new AuditLogOptions().processStream("host-1"));
+        LightweightAuditor second = new LightweightAuditor(activeLog.toString(),
+                new AuditLogOptions().processStream("host-1"));
+        assertEquals("host-1", first.getWriterId());
+        assertEquals("host-1-1", second.getWriterId());
+
+        for (int i = 0; i < 50; i++) {
+            first.logAccess("p", "EXECUTE", "first", "PASSED");
+            second.logAccess("p", "EXECUTE", "second", "PASSED");
+        }
+        first.close();
+        second.close();
+
+        assertEquals(0, Files.size(activeLog));
+        assertEquals(50, Files.readAllLines(AuditStreams.streamPath(activeLog, "host-1")).size());
+        assertEquals(50, Files.readAllLines(AuditStreams.streamPath(activeLog, "host-1-1")).size());
+        assertEquals(100, readAll(activeLog.toString()).size());
+        assertEquals(3, AuditStreams.listStreams(activeLog).size());
+    }
+
+    @Test
+    public void testReleasedStreamIsReused() throws IOException {
+        AuditLogOptions options = new AuditLogOptions().processStream("host-1");
+        new LightweightAuditor(activeLog.toString(), options).close();
+        LightweightAuditor reopened = new LightweightAuditor(activeLog.toString(), options);
+
+        assertEquals("host-1", reopened.getWriterId());
+        reopened.close();
+    }
+
+    @Test
+    public void testChainedStreamsVerify() throws IOException {
+        LightweightAuditor first = new LightweightAuditor(activeLog.toString(),
+                new AuditLogOptions().processStream("a").hashChain(true).segmentBytes(2048));
+        LightweightAuditor second = new LightweightAuditor(activeLog.toString(),
+                new AuditLogOptions().processStream("b").hashChain(true).segmentBytes(2048));
+        for (int i = 0; i < 100; i++) {
+            first.logAccess("p", "EXECUTE", "first", "PASSED");
+            second.logAccess("p", "EXECUTE", "second", "PASSED");
+        }
+        first.close();
+        second.close();
+
+        AuditChainVerifier.Report report = new AuditChainVerifier(activeLog.toString(), null).verify();
+        assertTrue("Every stream should verify: " + report.getFailures(), report.isValid());
+        assertEquals(200, report.getRecords());
+    }
+
+    @Test
+    public void testCompactorWritesMergedLog() throws IOException {
+        writeStream("jvm-a", 0, 2, 300);
+        writeStream("jvm-b", 1, 2, 300);
+        Path merged = Paths.get(testDir, "merged.log");
+
+        long written = new AuditCompactor(activeLog.toString())
+                .compactTo(merged, new AuditLogOptions().segmentBytes(4096).hashChain(true));
+
+        assertEquals(600, written);
+        List<AuditRecord> records = readAll(merged.toString());
+        assertEquals(600, records.size());
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(records.get(i - 1).getTimestamp() <= records.get(i).getTimestamp());
+        }
+        assertTrue(new AuditChainVerifier(merged.toString(), null).verify().isValid());
+        assertThrows(IOException.class, () -> new AuditCompactor(activeLog.toString())
+                .compactTo(merged, new AuditLogOptions()));
+    }
+}
@@ -0,0 +1,167 @@
+package com.upss.audit;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BackgroundAuditWriter
+ */
+public class BackgroundAuditWriterTest {
+
+    @Test
+    public void testAbandonedWriterStopsBeforeSinkIsClosed() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean writeAfterClose = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        AuditSink slow = new TestSink() {
+            @Override
+            public void write(List<String> entries) throws IOException {
+                writeAfterClose.compareAndSet(false, closed.get());
+                writes.incrementAndGet();
+                started.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("write interrupted");
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        BackgroundAuditWriter writer = new BackgroundAuditWriter(slow, 64, 4,
+                BackgroundAuditWriter.OverflowPolicy.DROP, 200);
+        for (int i = 0; i < 20; i++) {
+            writer.submit("entry-" + i);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        writer.close();
+
+        assertTrue("Sink should be closed once the writer has stopped", closed.get());
+        assertEquals("Queued entries must not be written after giving up", 1, writes.get());
+        assertFalse(writeAfterClose.get());
+    }
+
+    @Test
+    public void testSinkStuckInWriteIsLeftOpen() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        AuditSink stuck = new TestSink() {
+            @Override
+            public void write(List<String> entries) {
+                started.countDown();
+                // Ignores interrupts, like a write blocked in the kernel
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // keep waiting
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        BackgroundAuditWriter writer = new BackgroundAuditWriter(stuck, 8, 1,
+                BackgroundAuditWriter.OverflowPolicy.DROP, 100);
+        writer.submit("entry");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        writer.close();
+        assertFalse("A sink still inside write() must not be closed", closed.get());
+        release.countDown();
+    }
+
+    @Test
+    public void testFailingSinkBacksOff() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        AuditSink failing = new TestSink() {
+            @Override
+            public void write(List<String> entries) throws IOException {
+                attempts.incrementAndGet();
+                throw new IOException("collector down");
+            }
+        };
+        BackgroundAuditWriter writer = new BackgroundAuditWriter(failing, 256, 1,
+                BackgroundAuditWriter.OverflowPolicy.DROP);
+        for (int i = 0; i < 200; i++) {
+            writer.submit("entry-" + i);
+        }
+        Thread.sleep(500);
+        int retried = attempts.get();
+        assertTrue("Failed writes should not be retried in a tight loop: " + retried, retried <= 5);
+
+        long start = System.nanoTime();
+        writer.close();
+        assertTrue("Closing must not wait out the backoff",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertEquals(200, writer.getFailedCount());
+    }
+
+    @Test
+    public void testEntriesAcceptedDuringCloseAreWritten() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AtomicInteger received = new AtomicInteger();
+            AuditSink counting = new TestSink() {
+                @Override
+                public void write(List<String> entries) {
+                    received.addAndGet(entries.size());
+                }
+            };
+            BackgroundAuditWriter writer = new BackgroundAuditWriter(counting, 4, 2);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch submitting = new CountDownLatch(4);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submitter = new Thread(() -> {
+                    submitting.countDown();
+                    while (writer.submit("entry")) {
+                        accepted.incrementAndGet();
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            assertTrue(submitting.await(5, TimeUnit.SECONDS));
+
+            writer.close();
+            for (Thread submitter : submitters) {
+                submitter.join(5000);
+                assertFalse("Submit must not hang after close", submitter.isAlive());
+            }
+
+            assertEquals("Every accepted entry must be written", accepted.get(), received.get());
+            assertEquals(accepted.get(), writer.getWrittenCount());
+            assertEquals(0, writer.getLag());
+        }
+    }
+
+    private abstract static class TestSink implements AuditSink {
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
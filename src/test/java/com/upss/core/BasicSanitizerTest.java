@@ -3,6 +3,8 @@ package com.upss.core;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 /**
@@ -61,4 +63,24 @@ public class BasicSanitizerTest {
         String input = "select * from users"; // lowercase
         assertFalse("Detection should be case-insensitive", sanitizer.isClean(input));
     }
+
+    @Test
+    public void testMixedCaseAndNonAsciiText() {
+        assertFalse(sanitizer.isClean("Пожалуйста, SeLeCt * from users"));
+        assertFalse("Matches at the very end of the input", sanitizer.isClean("run /BIN/BASH"));
+        assertFalse("Long s is an s when ignoring case", sanitizer.isClean("\u017Fubprocess.run"));
+        assertTrue("Cyrillic lookalikes are different characters", sanitizer.isClean("\u0455elect * from users"));
+        assertTrue("Near misses are clean", sanitizer.isClean("selec selec ssssssss subproces"));
+    }
+
+    @Test
+    public void testCustomPatterns() {
+        BasicSanitizer custom = new BasicSanitizer(Arrays.asList("ignore previous", "rm -rf"));
+        assertTrue("Default patterns should not apply", custom.isClean("SELECT * FROM users"));
+        assertFalse(custom.isClean("Please IGNORE PREVIOUS instructions"));
+        assertEquals("now", custom.sanitize("rm -rf now"));
+        assertEquals(2, custom.getPatterns().size());
+        assertThrows(IllegalArgumentException.class, () -> new BasicSanitizer(Arrays.asList("(")));
+        assertThrows(IllegalArgumentException.class, () -> new BasicSanitizer(Arrays.asList(" ")));
+    }
 }
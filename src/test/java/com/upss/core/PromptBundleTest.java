@@ -0,0 +1,187 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PromptBundle
+ */
+public class PromptBundleTest {
+
+    private File testDir;
+    private String configPath;
+    private Path bundlePath;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_bundle_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        configPath = new File(testDir, "prompts.json").getPath();
+        bundlePath = new File(testDir, "prompts.bundle").toPath();
+
+        PromptLoader checksummer = new PromptLoader(configPath);
+        String shared = "You are a security analyst. Report findings précisément.";
+        Files.write(new File(testDir, "prompts/shared.md").toPath(), shared.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(testDir, "prompts/other.md").toPath(), "Summarize.".getBytes(StandardCharsets.UTF_8));
+        String json = "{\"prompts\": {"
+                + "\"analyst\": {\"path\": \"prompts/shared.md\", \"version\": \"1.0.0\", \"riskLevel\": \"critical\","
+                + " \"checksum\": \"" + checksummer.calculateChecksum(shared) + "\"},"
+                + "\"analystCanary\": {\"path\": \"prompts/shared.md\", \"version\": \"1.1.0\","
+                + " \"checksum\": \"" + checksummer.calculateChecksum(shared) + "\"},"
+                + "\"summary\": {\"path\": \"prompts/other.md\", \"version\": \"2.0.1\", \"riskLevel\": \"low\"}}}";
+        Files.write(new File(configPath).toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        PromptBundle.build(configPath, bundlePath);
+        PromptBundle bundle = PromptBundle.open(bundlePath);
+
+        assertEquals(3, bundle.size());
+        assertEquals("Identical files should be stored once", 2, bundle.getContentCount());
+        assertEquals(Arrays.asList("analyst", "analystCanary", "summary"), bundle.getPromptIds());
+
+        Prompt analyst = bundle.load("analyst", true);
+        assertEquals("You are a security analyst. Report findings précisément.", analyst.getContent());
+        assertEquals("1.0.0", analyst.getVersion());
+        assertTrue(analyst.isCritical());
+        assertEquals("medium", bundle.load("analystCanary", true).getRiskLevel());
+        assertSame(analyst, bundle.load("analyst", true));
+        assertSame("Shared content should decode to one string",
+                analyst.getContent(), bundle.load("analystCanary", false).getContent());
+        assertEquals("2.0.1", bundle.getVersion("summary"));
+        assertNull(bundle.load("missing", true));
+    }
+
+    @Test
+    public void testLoaderServesFromBundle() throws Exception {
+        PromptBundle.build(configPath, bundlePath);
+        PromptLoader loader = PromptLoader.fromBundle(bundlePath.toString(), true);
+
+        assertEquals("Summarize.", loader.loadPrompt("summary").getContent());
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("missing"));
+        PromptLoader.PreloadReport report = loader.preload(2);
+        assertTrue(report.isSuccessful());
+        assertEquals(3, report.getLoadedCount());
+        assertEquals("Bundle mode never reads prompt files", 0, loader.getCacheStats().getLoads());
+    }
+
+    @Test
+    public void testSignedBundleIsVerifiedAgainstTrustedKeys() throws Exception {
+        KeyPair approver = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        Path keys = trust(approver, "trusted-keys");
+        Path otherKeys = trust(KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), "other-keys");
+        PromptSignatureVerifier.sign(new File(testDir, "prompts/shared.md").toPath(), approver.getPrivate());
+        PromptSignatureVerifier.sign(new File(testDir, "prompts/other.md").toPath(), approver.getPrivate());
+        String json = "{\"prompts\": {"
+                + "\"analyst\": {\"path\": \"prompts/shared.md\", \"version\": \"1.0.0\", \"approvedBy\": \"officer\"},"
+                + "\"summary\": {\"path\": \"prompts/other.md\", \"version\": \"2.0.1\", \"approvedBy\": \"officer\"}},"
+                + " \"security\": {\"signatureRequired\": true}}";
+        Files.write(new File(configPath).toPath(), json.getBytes(StandardCharsets.UTF_8));
+        PromptBundle.build(configPath, bundlePath);
+
+        assertTrue(PromptBundle.open(bundlePath).isSignatureRequired());
+        assertEquals("officer", PromptBundle.open(bundlePath).getApprovedBy("summary"));
+        assertThrows("Signed bundles need trusted keys", IOException.class,
+                () -> PromptLoader.fromBundle(bundlePath.toString(), false));
+
+        PromptLoader loader = PromptLoader.fromBundle(bundlePath.toString(), false, keys.toString());
+        assertEquals("Summarize.", loader.loadPrompt("summary").getContent());
+        assertTrue(loader.preload(2).isSuccessful());
+        assertEquals(2, loader.getSignatureStats().getVerifications());
+
+        PromptLoader untrusted = PromptLoader.fromBundle(bundlePath.toString(), false, otherKeys.toString());
+        PromptLoader.PromptLoadException rejected = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> untrusted.loadPrompt("summary"));
+        assertTrue(rejected.getMessage().contains("Signature verification failed"));
+    }
+
+    @Test
+    public void testUnsignedPromptIsRejectedWhenVerifyingSignatures() throws Exception {
+        PromptBundle.build(configPath, bundlePath);
+        Path keys = trust(KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), "trusted-keys");
+
+        assertFalse(PromptBundle.open(bundlePath).isSignatureRequired());
+        PromptLoader loader = PromptLoader.fromBundle(bundlePath.toString(), true, keys.toString());
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("summary"));
+    }
+
+    private Path trust(KeyPair pair, String directory) throws IOException {
+        Path keys = new File(testDir, directory).toPath();
+        Files.createDirectories(keys);
+        Files.write(keys.resolve("officer.pub"), TrustedKeyStore.toPem(pair.getPublic()).getBytes(StandardCharsets.US_ASCII));
+        return keys;
+    }
+
+    @Test
+    public void testCorruptedContentFailsVerification() throws Exception {
+        PromptBundle.build(configPath, bundlePath);
+        byte[] bytes = Files.readAllBytes(bundlePath);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(bundlePath, bytes);
+        PromptBundle bundle = PromptBundle.open(bundlePath);
+
+        assertThrows(PromptLoader.PromptLoadException.class, () -> bundle.load("summary", true));
+        assertNotNull("Unverified loads skip the check", bundle.load("summary", false));
+        assertNotNull(bundle.load("analyst", true));
+    }
+
+    @Test
+    public void testBuildFailsOnUnverifiedCatalog() throws Exception {
+        Files.write(new File(testDir, "prompts/shared.md").toPath(), "tampered".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(PromptLoader.PromptLoadException.class, () -> PromptBundle.build(configPath, bundlePath));
+        assertFalse(Files.exists(bundlePath));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Files.write(bundlePath, "{\"prompts\": {}}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> PromptBundle.open(bundlePath));
+    }
+
+    @Test
+    public void testLargeBundleLookups() throws IOException, PromptLoader.PromptLoadException {
+        List<Prompt> prompts = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            prompts.add(new Prompt("p" + i, "content " + (i % 100), "1.0." + i, "low"));
+        }
+        PromptBundle.write(bundlePath, prompts);
+        PromptBundle bundle = PromptBundle.open(bundlePath);
+
+        assertEquals(100, bundle.getContentCount());
+        for (int i = 0; i < 5000; i += 7) {
+            assertEquals("content " + (i % 100), bundle.load("p" + i, true).getContent());
+        }
+    }
+}
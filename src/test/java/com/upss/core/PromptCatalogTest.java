@@ -0,0 +1,111 @@
+package com.upss.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the streaming PromptCatalog index
+ */
+public class PromptCatalogTest {
+
+    private static final String CHECKSUM = "sha256:ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private static String syntheticCatalog(int count) {
+        StringBuilder json = new StringBuilder("{\"version\": \"1.0.0\", \"metadata\": {\"author\": \"upss\"}, \"prompts\": {");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("\"prompt").append(i).append("\": {")
+                    .append("\"path\": \"prompts/p").append(i).append(".md\", ")
+                    .append("\"version\": \"1.").append(i % 5).append(".0\", ")
+                    .append("\"category\": \"system\", ")
+                    .append("\"riskLevel\": \"").append(i % 3 == 0 ? "critical" : "low").append("\", ")
+                    .append("\"checksum\": \"sha256:").append(String.format("%064x", i + 1)).append("\", ")
+                    .append("\"tags\": [\"a\", \"b\"], \"owner\": {\"team\": \"x\"}}");
+        }
+        return json.append("}, \"settings\": {\"maxPromptSize\": 4096, \"allowHotReload\": false},")
+                .append(" \"security\": {\"signatureRequired\": true}}").toString();
+    }
+
+    @Test
+    public void testMatchesTreeParse() throws IOException {
+        String json = syntheticCatalog(2000);
+        PromptCatalog catalog = PromptCatalog.parse(new StringReader(json));
+        JsonObject tree = JsonParser.parseString(json).getAsJsonObject().getAsJsonObject("prompts");
+
+        assertEquals(2000, catalog.size());
+        for (String id : tree.keySet()) {
+            JsonObject expected = tree.getAsJsonObject(id);
+            PromptCatalog.Entry entry = catalog.get(id);
+            assertEquals(expected.get("path").getAsString(), entry.getPath());
+            assertEquals(expected.get("version").getAsString(), entry.getVersion());
+            assertEquals(expected.get("riskLevel").getAsString(), entry.getRiskLevel());
+            assertEquals(expected.get("checksum").getAsString(), entry.getChecksum());
+        }
+        assertEquals(4096, catalog.getLongSetting("maxPromptSize", 0));
+        assertTrue(catalog.getBooleanSecuritySetting("signatureRequired", false));
+    }
+
+    @Test
+    public void testEntriesAreMaterializedOnce() throws IOException {
+        PromptCatalog catalog = PromptCatalog.parse(new StringReader(syntheticCatalog(10)));
+
+        assertSame(catalog.get("prompt3"), catalog.get("prompt3"));
+        assertSame("Versions should be shared between entries",
+                catalog.get("prompt1").getVersion(), catalog.get("prompt6").getVersion());
+        assertNull(catalog.get("prompt10"));
+    }
+
+    @Test
+    public void testDefaultsAndIrregularValues() throws IOException {
+        String json = "{\"prompts\": {"
+                + "\"a\": {\"path\": \"a.md\", \"version\": \"1.0.0\", \"checksum\": \"sha256:abc123def456789\"},"
+                + "\"b\": {\"path\": \"b.md\", \"version\": \"1.0.0\", \"riskLevel\": null, \"checksum\": \"" + CHECKSUM.toUpperCase() + "\"},"
+                + "\"a\": {\"path\": \"a2.md\", \"version\": \"2.0.0\"}}}";
+        PromptCatalog catalog = PromptCatalog.parse(new StringReader(json));
+
+        assertEquals(2, catalog.size());
+        assertEquals("Later duplicates win, as with a JSON tree", "a2.md", catalog.get("a").getPath());
+        assertNull(catalog.get("a").getChecksum());
+        assertEquals("medium", catalog.get("b").getRiskLevel());
+        assertEquals(CHECKSUM.toUpperCase(), catalog.get("b").getChecksum());
+
+        PromptCatalog malformed = PromptCatalog.parse(new StringReader(
+                "{\"prompts\": {\"a\": {\"path\": \"a.md\", \"version\": \"1\", \"checksum\": \"sha256:abc123def456789\"}}}"));
+        assertEquals("Malformed checksums are kept verbatim", "sha256:abc123def456789", malformed.get("a").getChecksum());
+    }
+
+    @Test
+    public void testPromptIdsKeepDeclarationOrder() throws IOException {
+        List<String> ids = PromptCatalog.parse(new StringReader(syntheticCatalog(5))).getPromptIds();
+
+        assertEquals(5, ids.size());
+        assertEquals("prompt0", ids.get(0));
+        assertEquals("prompt4", ids.get(4));
+    }
+
+    @Test
+    public void testCatalogWithoutPrompts() throws IOException {
+        PromptCatalog catalog = PromptCatalog.parse(new StringReader("{\"settings\": {}}"));
+
+        assertFalse(catalog.hasPrompts());
+        assertNull(catalog.get("anything"));
+        assertEquals(0, catalog.size());
+    }
+
+    @Test
+    public void testLargeCatalog() throws IOException {
+        PromptCatalog catalog = PromptCatalog.parse(new StringReader(syntheticCatalog(100_000)));
+
+        assertEquals(100_000, catalog.size());
+        for (int i = 0; i < 100_000; i += 997) {
+            assertEquals("prompts/p" + i + ".md", catalog.get("prompt" + i).getPath());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for hot reload of the prompt catalog
+ */
+public class PromptCatalogWatcherTest {
+
+    private File testDir;
+    private Path promptFile;
+    private String configPath;
+    private PromptLoader loader;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_reload_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        promptFile = new File(testDir, "prompts/system.md").toPath();
+        configPath = new File(testDir, "prompts.json").getPath();
+        Files.write(promptFile, "Version one.".getBytes(StandardCharsets.UTF_8));
+        writeConfig("1.0.0", false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (loader != null) {
+            loader.close();
+        }
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    private void writeConfig(String version, boolean allowHotReload) throws IOException {
+        String json = "{\"prompts\": {\"system\": {\"path\": \"prompts/system.md\", \"version\": \"" + version + "\"}},"
+                + " \"settings\": {\"allowHotReload\": " + allowHotReload + "}}";
+        Files.write(new File(configPath).toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void awaitGeneration(long generation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (loader.getCatalogGeneration() < generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue("Catalog should have been reloaded", loader.getCatalogGeneration() >= generation);
+    }
+
+    @Test
+    public void testSettingEnablesHotReload() throws Exception {
+        writeConfig("1.0.0", true);
+        loader = new PromptLoader(configPath, true, false);
+
+        assertTrue(loader.isHotReloadEnabled());
+        assertEquals(1, loader.getCatalogGeneration());
+    }
+
+    @Test
+    public void testPromptFileChangeIsPublished() throws Exception {
+        loader = new PromptLoader(configPath, true, false);
+        loader.enableHotReload(50);
+        assertEquals("Version one.", loader.loadPrompt("system").getContent());
+        long generation = loader.getCatalogGeneration();
+
+        Files.write(promptFile, "Version two, longer.".getBytes(StandardCharsets.UTF_8));
+        awaitGeneration(generation + 1);
+
+        assertEquals("Version two, longer.", loader.loadPrompt("system").getContent());
+    }
+
+    @Test
+    public void testConfigChangeIsPublished() throws Exception {
+        loader = new PromptLoader(configPath, true, false);
+        loader.enableHotReload(50);
+        long generation = loader.getCatalogGeneration();
+
+        writeConfig("2.0.0", false);
+        awaitGeneration(generation + 1);
+
+        assertEquals("2.0.0", loader.loadPrompt("system").getVersion());
+    }
+
+    @Test
+    public void testInvalidConfigKeepsCurrentCatalog() throws Exception {
+        loader = new PromptLoader(configPath, true, false);
+        loader.enableHotReload(60_000);
+        long generation = loader.getCatalogGeneration();
+
+        Files.write(new File(configPath).toPath(), "{\"prompts\": {".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(loader.reload());
+        assertEquals(generation, loader.getCatalogGeneration());
+        assertEquals("Version one.", loader.loadPrompt("system").getContent());
+    }
+
+    @Test
+    public void testFailedPromptIsReportedAfterReload() throws Exception {
+        loader = new PromptLoader(configPath, true, false);
+        loader.enableHotReload(60_000);
+        Files.delete(promptFile);
+
+        assertTrue(loader.reload());
+        PromptLoader.PromptLoadException e = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> loader.loadPrompt("system"));
+        assertTrue(e.getMessage().startsWith("Prompt file not found"));
+    }
+
+    @Test
+    public void testReadersNeverSeeMixedSnapshots() throws Exception {
+        loader = new PromptLoader(configPath, true, false);
+        loader.enableHotReload(60_000);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> problem = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                try {
+                    Prompt prompt = loader.loadPrompt("system");
+                    String expected = prompt.getVersion().equals("1.0.0") ? "Version one." : "Version " + prompt.getVersion();
+                    if (!expected.equals(prompt.getContent()) && !prompt.getVersion().equals("1.0.0")) {
+                        problem.compareAndSet(null, prompt.getVersion() + " served " + prompt.getContent());
+                    }
+                } catch (PromptLoader.PromptLoadException e) {
+                    problem.compareAndSet(null, e.getMessage());
+                }
+            }
+        });
+        reader.start();
+        for (int i = 2; i < 30; i++) {
+            Files.write(promptFile, ("Version " + i + ".0.0").getBytes(StandardCharsets.UTF_8));
+            writeConfig(i + ".0.0", false);
+            loader.reload();
+        }
+        stop.set(true);
+        reader.join();
+
+        assertNull(problem.get());
+        assertEquals("29.0.0", loader.loadPrompt("system").getVersion());
+    }
+}
@@ -0,0 +1,102 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PromptContentStore and content sharing in PromptLoader
+ */
+public class PromptContentStoreTest {
+
+    private File testDir;
+    private String configPath;
+
+    @Before
+    public void setUp() {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_store_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        configPath = new File(testDir, "prompts.json").getPath();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testIdenticalFilesShareOneString() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("You are a careful assistant. ");
+        }
+        StringBuilder json = new StringBuilder("{\"prompts\": {");
+        for (int i = 0; i < 20; i++) {
+            // Canary copies of one prompt, as separate files, plus one that really differs
+            String text = i == 19 ? content + "v2" : content.toString();
+            Files.write(new File(testDir, "prompts/v" + i + ".md").toPath(), text.getBytes(StandardCharsets.UTF_8));
+            json.append(i == 0 ? "" : ",").append("\"assistant-v").append(i).append("\": {\"path\": \"prompts/v")
+                    .append(i).append(".md\", \"version\": \"1.").append(i).append(".0\"}");
+        }
+        json.append("}}");
+        Files.write(new File(configPath).toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        assertTrue(loader.preload(4).isSuccessful());
+
+        Prompt first = loader.loadPrompt("assistant-v0");
+        for (int i = 1; i < 19; i++) {
+            assertSame(first.getContent(), loader.loadPrompt("assistant-v" + i).getContent());
+        }
+        assertNotSame(first.getContent(), loader.loadPrompt("assistant-v19").getContent());
+        PromptContentStore store = loader.getContentStore();
+        assertEquals(2, store.size());
+        assertEquals(18, store.getSharedCount());
+        assertEquals(18L * 2 * content.length(), store.getBytesSaved());
+    }
+
+    @Test
+    public void testInternReturnsFirstStoredCopy() {
+        PromptContentStore store = new PromptContentStore();
+        byte[] hash = PromptDigests.newSha256().digest("same".getBytes(StandardCharsets.UTF_8));
+        String original = new String("same".toCharArray());
+        String copy = new String("same".toCharArray());
+
+        assertSame(original, store.intern(hash, original));
+        assertSame(original, store.intern(hash, copy));
+        assertSame("Interning the stored copy is not a saving", original, store.intern(hash, original));
+        assertEquals(1, store.getSharedCount());
+        assertEquals(3, store.getLookups());
+    }
+
+    @Test
+    public void testUnusedContentIsReleased() throws InterruptedException {
+        PromptContentStore store = new PromptContentStore();
+        byte[] hash = PromptDigests.newSha256().digest("transient".getBytes(StandardCharsets.UTF_8));
+        store.intern(hash, new String("transient".toCharArray()));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (store.size() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PromptDigests
+ */
+public class PromptDigestsTest {
+
+    private static final String ABC = "sha256:ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("upss_digest_", ".md").toPath();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testKnownVector() throws IOException {
+        Files.write(file, "abc".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(ABC, PromptDigests.format(PromptDigests.sha256(file)));
+        assertTrue(PromptDigests.matches(PromptDigests.sha256(file), ABC));
+        assertTrue("Hex case should not matter", PromptDigests.matches(PromptDigests.sha256(file), ABC.toUpperCase()
+                .replace("SHA256:", "sha256:")));
+    }
+
+    @Test
+    public void testStreamingMatchesInMemoryDigest() throws IOException {
+        byte[] data = new byte[300 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        Files.write(file, data);
+
+        assertArrayEquals(PromptDigests.newSha256().digest(data), PromptDigests.sha256(file));
+    }
+
+    @Test
+    public void testFileChecksumMatchesContentChecksum() throws IOException {
+        String content = "Analyse événements, 特殊文字 and 🔒 safely.";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        PromptLoader loader = new PromptLoader(file.getParent().resolve("missing.json").toString());
+
+        String checksum = loader.calculateChecksum(content);
+        assertTrue(loader.verifyChecksum(file, checksum));
+        assertFalse(loader.verifyChecksum(file, loader.calculateChecksum(content + " ")));
+    }
+
+    @Test
+    public void testMalformedChecksumsNeverMatch() throws IOException {
+        Files.write(file, "abc".getBytes(StandardCharsets.US_ASCII));
+        byte[] hash = PromptDigests.sha256(file);
+
+        assertFalse(PromptDigests.matches(hash, null));
+        assertFalse(PromptDigests.matches(hash, "sha256:abc123def456789"));
+        assertFalse(PromptDigests.matches(hash, ABC.replace("sha256:", "md5:")));
+        assertFalse(PromptDigests.matches(hash, ABC.substring(0, ABC.length() - 1) + "g"));
+        assertNull(PromptDigests.parse(ABC + "00"));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        assertEquals("sha256:e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                PromptDigests.format(PromptDigests.sha256(file)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PromptFiles and the maxPromptSize limit
+ */
+public class PromptFilesTest {
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_files_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = new File(testDir, "prompts").listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        new File(testDir, "prompts").delete();
+        File[] rest = testDir.listFiles();
+        if (rest != null) {
+            for (File f : rest) {
+                f.delete();
+            }
+        }
+        testDir.delete();
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = new File(testDir, "prompts/" + name).toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testDecodesUtf8RegardlessOfPlatformCharset() throws IOException {
+        String content = "Analyse événements, 特殊文字 and 🔒 safely.";
+        Path file = write("utf8.md", content);
+
+        assertEquals(content, PromptFiles.readUtf8(file, 0));
+        assertEquals(content, PromptFiles.readUtf8(file, 0, null, 1));
+    }
+
+    @Test
+    public void testLargeFileIsMapped() throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 200 * 1024) {
+            content.append("You are a security analyst. Respond with évidence.\n");
+        }
+        Path file = write("large.md", content.toString());
+
+        assertEquals(content.toString(), PromptFiles.readUtf8(file, 0, null, 64 * 1024));
+    }
+
+    @Test
+    public void testOversizedFileIsRejected() throws IOException {
+        Path file = write("big.md", "0123456789");
+
+        PromptFiles.PromptTooLargeException e = assertThrows(PromptFiles.PromptTooLargeException.class,
+                () -> PromptFiles.readUtf8(file, 9));
+        assertEquals(10, e.getSize());
+        assertEquals("0123456789", PromptFiles.readUtf8(file, 10));
+    }
+
+    @Test
+    public void testLoaderEnforcesMaxPromptSize() throws Exception {
+        write("small.md", "short");
+        write("big.md", "this prompt is longer than the limit");
+        String json = "{\"prompts\": {"
+                + "\"small\": {\"path\": \"prompts/small.md\", \"version\": \"1.0.0\"},"
+                + "\"big\": {\"path\": \"prompts/big.md\", \"version\": \"1.0.0\"}},"
+                + " \"settings\": {\"maxPromptSize\": 16}}";
+        File config = new File(testDir, "prompts.json");
+        Files.write(config.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        PromptLoader loader = new PromptLoader(config.getPath(), true, false);
+
+        assertEquals("short", loader.loadPrompt("small").getContent());
+        PromptLoader.PromptLoadException e = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> loader.loadPrompt("big"));
+        assertTrue(e.getCause() instanceof PromptFiles.PromptTooLargeException);
+    }
+}
@@ -0,0 +1,119 @@
+package com.upss.core;
+
+import com.upss.audit.AuditWriteEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the JFR events of PromptLoader and LightweightAuditor
+ */
+public class PromptLoadEventTest {
+
+    private static final String CONTENT = "You are a careful assistant.";
+
+    private File testDir;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_jfr_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        Files.write(new File(testDir, "prompts/greeting.md").toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        String checksum = new PromptLoader(new File(testDir, "none.json").getPath()).calculateChecksum(CONTENT);
+        String json = "{\"prompts\": {\"greeting\": {\"path\": \"prompts/greeting.md\", \"version\": \"1.2.0\", "
+                + "\"checksum\": \"" + checksum + "\"}}}";
+        Files.write(new File(testDir, "prompts.json").toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    private List<RecordedEvent> record(String eventName, Action action) throws Exception {
+        Path file = new File(testDir, "recording.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    @Test
+    public void testLoadEventsReportFileReadThenCacheHit() throws Exception {
+        PromptLoader loader = new PromptLoader(new File(testDir, "prompts.json").getPath());
+
+        List<RecordedEvent> events = record(PromptLoadEvent.NAME, () -> {
+            loader.loadPrompt("greeting");
+            loader.loadPrompt("greeting", "^1.0.0");
+            assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("missing"));
+        });
+
+        assertEquals(3, events.size());
+        RecordedEvent miss = events.get(0);
+        assertEquals("greeting", miss.getString("promptId"));
+        assertEquals("1.2.0", miss.getString("version"));
+        assertEquals(PromptLoadEvent.FILE, miss.getString("source"));
+        assertFalse(miss.getBoolean("cacheHit"));
+        assertEquals(CONTENT.length(), miss.getLong("bytesRead"));
+
+        RecordedEvent hit = events.get(1);
+        assertEquals("^1.0.0", hit.getString("versionSpec"));
+        assertEquals(PromptLoadEvent.CACHE, hit.getString("source"));
+        assertTrue(hit.getBoolean("cacheHit"));
+        assertEquals(0, hit.getLong("bytesRead"));
+
+        assertEquals("missing", events.get(2).getString("promptId"));
+        assertNull("A failed load has no version", events.get(2).getString("version"));
+    }
+
+    @Test
+    public void testAuditWritesRecordedPerEntry() throws Exception {
+        LightweightAuditor auditor = new LightweightAuditor(new File(testDir, "audit/prompts.log").getPath());
+
+        List<RecordedEvent> events = record(AuditWriteEvent.NAME, () -> {
+            auditor.logAccess("greeting", "EXECUTE", "alice", "PASSED");
+            auditor.logSecurityEvent("INJECTION", "greeting", "blocked");
+        });
+        auditor.close();
+
+        assertEquals(2, events.size());
+        for (RecordedEvent event : events) {
+            assertEquals("file:prompts.log", event.getString("sink"));
+            assertEquals(1, event.getInt("batchSize"));
+            assertTrue(event.getBoolean("succeeded"));
+        }
+    }
+}
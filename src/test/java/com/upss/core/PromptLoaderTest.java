@@ -7,6 +7,9 @@ import org.junit.Test;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -220,4 +223,73 @@ public class PromptLoaderTest {
         thread.start();
         thread.join();
     }
+
+    private void writeCatalog(int count, int... corrupted) throws IOException {
+        new File(testDir, "prompts").mkdirs();
+        PromptLoader checksummer = new PromptLoader(testConfigPath);
+        StringBuilder json = new StringBuilder("{\"prompts\": {");
+        for (int i = 0; i < count; i++) {
+            String content = "Prompt number " + i + " for the preload test.";
+            Files.write(new File(testDir, "prompts/p" + i + ".md").toPath(), content.getBytes(StandardCharsets.UTF_8));
+            String checksum = checksummer.calculateChecksum(content);
+            for (int bad : corrupted) {
+                if (bad == i) {
+                    checksum = checksummer.calculateChecksum("tampered");
+                }
+            }
+            json.append(i == 0 ? "" : ",").append("\"p").append(i).append("\": {\"path\": \"prompts/p").append(i)
+                    .append(".md\", \"version\": \"1.0.0\", \"checksum\": \"").append(checksum).append("\"}");
+        }
+        json.append("}}");
+        Files.write(new File(testConfigPath).toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPreloadWarmsEveryPrompt() throws Exception {
+        writeCatalog(200);
+        loader = new PromptLoader(testConfigPath);
+
+        PromptLoader.PreloadReport report = loader.preload(4);
+
+        assertTrue(report.isSuccessful());
+        assertEquals(200, report.getLoadedCount());
+        assertEquals(200, loader.getCacheStats().getLoads());
+        Prompt first = loader.loadPrompt("p17");
+        assertSame("Preloaded prompts should be served from memory", first, loader.loadPrompt("p17"));
+        assertEquals(200, loader.getCacheStats().getLoads());
+    }
+
+    @Test
+    public void testPreloadReportsAllFailures() throws Exception {
+        writeCatalog(50, 3, 20, 41);
+        loader = new PromptLoader(testConfigPath);
+
+        PromptLoader.PreloadReport report = loader.preload(4);
+
+        assertFalse(report.isSuccessful());
+        assertEquals(47, report.getLoadedCount());
+        assertEquals(3, report.getFailures().size());
+        assertTrue(report.getFailures().keySet().containsAll(Arrays.asList("p3", "p20", "p41")));
+        PromptLoader.PromptLoadException e = assertThrows(PromptLoader.PromptLoadException.class, report::throwIfFailed);
+        assertTrue(e.getMessage().startsWith("3 prompt(s) failed to load"));
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("p20"));
+        assertNotNull(loader.loadPrompt("p21"));
+    }
+
+    @Test
+    public void testFailedPromptIsRetriedAfterPreload() throws Exception {
+        writeCatalog(5);
+        File prompt = new File(testDir, "prompts/p2.md");
+        byte[] content = Files.readAllBytes(prompt.toPath());
+        Files.write(prompt.toPath(), "tampered".getBytes(StandardCharsets.UTF_8));
+        loader = new PromptLoader(testConfigPath);
+        assertFalse(loader.preload(2).isSuccessful());
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("p2"));
+
+        Files.write(prompt.toPath(), content);
+        Prompt fixed = loader.loadPrompt("p2");
+
+        assertEquals(new String(content, StandardCharsets.UTF_8), fixed.getContent());
+        assertSame("A recovered prompt should be served from memory", fixed, loader.loadPrompt("p2"));
+    }
 }
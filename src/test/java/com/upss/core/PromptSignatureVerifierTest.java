@@ -0,0 +1,188 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PromptSignatureVerifier, TrustedKeyStore and signature
+ * enforcement in PromptLoader
+ */
+public class PromptSignatureVerifierTest {
+
+    private static final String APPROVER = "security-officer@example.com";
+
+    private File testDir;
+    private String configPath;
+    private KeyPair keyPair;
+
+    @Before
+    public void setUp() throws Exception {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_signature_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        configPath = new File(testDir, "prompts.json").getPath();
+        keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        trust(APPROVER, keyPair);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    private void trust(String keyId, KeyPair pair) throws IOException {
+        Path keys = new File(testDir, "trusted-keys").toPath();
+        Files.createDirectories(keys);
+        Files.write(keys.resolve(keyId + ".pub"), TrustedKeyStore.toPem(pair.getPublic()).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Path writePrompt(String name, String content, boolean sign) throws IOException, GeneralSecurityException {
+        Path file = new File(testDir, "prompts/" + name + ".md").toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        if (sign) {
+            PromptSignatureVerifier.sign(file, keyPair.getPrivate());
+        }
+        return file;
+    }
+
+    private void writeConfig(int count, String approver) throws IOException {
+        StringBuilder json = new StringBuilder("{\"prompts\": {");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ", ").append("\"p").append(i).append("\": {\"path\": \"prompts/p").append(i)
+                    .append(".md\", \"version\": \"1.0.0\", \"approvedBy\": \"").append(approver).append("\"}");
+        }
+        json.append("}, \"security\": {\"signatureRequired\": true}}");
+        Files.write(new File(configPath).toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSignedPromptIsVerifiedOncePerContent() throws Exception {
+        writePrompt("p0", "Signed prompt", true);
+        writeConfig(1, APPROVER);
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        assertEquals("Signed prompt", loader.loadPrompt("p0").getContent());
+        loader.loadPrompt("p0");
+        assertEquals("Cached loads should not verify again", 1, loader.getSignatureStats().getVerifications());
+
+        loader.clearCache();
+        loader.loadPrompt("p0");
+        assertEquals("Unchanged content should reuse the verdict", 1, loader.getSignatureStats().getVerifications());
+        assertEquals(1, loader.getSignatureStats().getCacheHits());
+    }
+
+    @Test
+    public void testTamperedOrUnsignedPromptIsRejected() throws Exception {
+        Path file = writePrompt("p0", "Signed prompt", true);
+        writePrompt("p1", "Unsigned prompt", false);
+        writeConfig(2, APPROVER);
+        Files.write(file, "Tampered prompt".getBytes(StandardCharsets.UTF_8));
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        PromptLoader.PromptLoadException tampered = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> loader.loadPrompt("p0"));
+        assertTrue(tampered.getMessage().contains("Signature verification failed"));
+        PromptLoader.PromptLoadException unsigned = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> loader.loadPrompt("p1"));
+        assertTrue(unsigned.getMessage().contains("Signature file not found"));
+    }
+
+    @Test
+    public void testUntrustedApproverIsRejected() throws Exception {
+        writePrompt("p0", "Signed prompt", true);
+        writeConfig(1, "someone-else@example.com");
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("p0"));
+        assertEquals(0, loader.getSignatureStats().getVerifications());
+    }
+
+    @Test
+    public void testPreloadVerifiesInParallelAndReloadPicksUpNewKeys() throws Exception {
+        for (int i = 0; i < 32; i++) {
+            writePrompt("p" + i, "Prompt number " + i, true);
+        }
+        writeConfig(32, APPROVER);
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        PromptLoader.PreloadReport report = loader.preload(4);
+        assertTrue(report.getFailures().toString(), report.isSuccessful());
+        assertEquals(32, loader.getSignatureStats().getVerifications());
+
+        assertTrue(loader.reload());
+        assertEquals("Reload with unchanged keys should not verify again", 32,
+                loader.getSignatureStats().getVerifications());
+
+        trust(APPROVER, KeyPairGenerator.getInstance("Ed25519").generateKeyPair());
+        assertTrue(loader.reload());
+        assertThrows("Prompts signed with a rotated-out key should be rejected",
+                PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("p0"));
+    }
+
+    @Test
+    public void testReloadEnablingSignaturesRejectsCachedPrompt() throws Exception {
+        // No trusted keys either, so the key store does not change on reload
+        deleteDirectory(new File(testDir, "trusted-keys"));
+        writePrompt("p0", "Unsigned prompt", false);
+        Files.write(new File(configPath).toPath(), ("{\"prompts\": {\"p0\": {\"path\": \"prompts/p0.md\","
+                + " \"version\": \"1.0.0\"}}}").getBytes(StandardCharsets.UTF_8));
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+        assertEquals("Unsigned prompt", loader.loadPrompt("p0").getContent());
+
+        writeConfig(1, APPROVER);
+        assertTrue(loader.reload());
+
+        PromptLoader.PromptLoadException e = assertThrows(PromptLoader.PromptLoadException.class,
+                () -> loader.loadPrompt("p0"));
+        assertTrue(e.getMessage().contains("Signature file not found"));
+    }
+
+    @Test
+    public void testChangedApproverRejectsCachedPrompt() throws Exception {
+        writePrompt("p0", "Signed prompt", true);
+        writeConfig(1, APPROVER);
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+        assertEquals("Signed prompt", loader.loadPrompt("p0").getContent());
+
+        writeConfig(1, "someone-else@example.com");
+        assertTrue(loader.reload());
+
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("p0"));
+    }
+
+    @Test
+    public void testVerifierSupportsEcKeys() throws Exception {
+        KeyPair ec = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        trust("ec-signer", ec);
+        Path file = writePrompt("p0", "EC signed", false);
+        PromptSignatureVerifier.sign(file, ec.getPrivate());
+
+        TrustedKeyStore keys = TrustedKeyStore.load(new File(testDir, "trusted-keys").toPath());
+        assertEquals(2, keys.size());
+        PromptSignatureVerifier verifier = new PromptSignatureVerifier(keys);
+        byte[] signature = PromptSignatureVerifier.readSignature(PromptSignatureVerifier.signaturePath(file));
+        assertTrue(verifier.verify(PromptDigests.sha256(file), signature, "ec-signer"));
+        assertFalse(verifier.verify(PromptDigests.sha256(file), signature, APPROVER));
+    }
+}
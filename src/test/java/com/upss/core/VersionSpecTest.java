@@ -0,0 +1,182 @@
+package com.upss.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for VersionSpec and versioned loading in PromptLoader
+ */
+public class VersionSpecTest {
+
+    private static final List<String> VERSIONS = Arrays.asList("0.9.0", "1.0.0", "1.2.0", "1.2.5", "1.10.0",
+            "2.0.0-beta.1", "2.0.0-beta.2");
+
+    private File testDir;
+    private String configPath;
+
+    @Before
+    public void setUp() {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_version_test_" + System.nanoTime());
+        new File(testDir, "prompts").mkdirs();
+        configPath = new File(testDir, "prompts.json").getPath();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(testDir);
+    }
+
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteDirectory(f);
+            }
+        }
+        dir.delete();
+    }
+
+    private String select(String spec) {
+        return VersionSpec.parse(spec).select(VERSIONS, Function.identity());
+    }
+
+    @Test
+    public void testLatestSkipsPreReleases() {
+        assertEquals("1.10.0", select("latest"));
+        assertEquals("1.10.0", select(null));
+        assertEquals("2.0.0-beta.2",
+                VersionSpec.latest().select(Arrays.asList("2.0.0-beta.1", "2.0.0-beta.2"), Function.identity()));
+    }
+
+    @Test
+    public void testExactVersion() {
+        assertEquals("1.2.0", select("1.2.0"));
+        assertEquals("2.0.0-beta.1", select("2.0.0-beta.1"));
+        assertNull(select("1.3.0"));
+    }
+
+    @Test
+    public void testRanges() {
+        assertEquals("1.10.0", select("^1.0.0"));
+        assertEquals("1.2.5", select("~1.2.0"));
+        assertEquals("1.2.5", select("1.2.x"));
+        assertEquals("1.10.0", select("1.*"));
+        assertEquals("0.9.0", select("^0.9"));
+        assertEquals("1.2.5", select(">=1.0.0 <1.10.0"));
+        assertEquals("1.2.0", select("<1.2.5 >1.0.0"));
+        assertEquals("0.9.0", select("^0.9.0 || ^3.0.0"));
+        assertNull(select("^3.0.0"));
+    }
+
+    @Test
+    public void testPrecedence() {
+        assertTrue(VersionSpec.compare("1.10.0", "1.9.0") > 0);
+        assertTrue(VersionSpec.compare("2.0.0-beta.2", "2.0.0-beta.10") < 0);
+        assertTrue(VersionSpec.compare("2.0.0-beta", "2.0.0") < 0);
+        assertTrue(VersionSpec.compare("2.0.0-alpha", "2.0.0-1") > 0);
+        assertTrue("Non-semver versions sort below semver ones", VersionSpec.compare("draft", "0.0.1") < 0);
+    }
+
+    @Test
+    public void testInvalidSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> VersionSpec.parse("^abc"));
+        assertThrows(IllegalArgumentException.class, () -> VersionSpec.parse("1.x.2.3"));
+        assertThrows(IllegalArgumentException.class, () -> VersionSpec.parse(">=one"));
+    }
+
+    private void writeVersionedCatalog(int count, String settings) throws IOException {
+        StringBuilder versions = new StringBuilder();
+        for (int minor = 0; minor < count; minor++) {
+            String file = "prompts/system-1." + minor + ".md";
+            Files.write(new File(testDir, file).toPath(),
+                    ("System prompt 1." + minor).getBytes(StandardCharsets.UTF_8));
+            versions.append(minor == 0 ? "" : ", ").append("\"1.").append(minor).append(".0\": {\"path\": \"")
+                    .append(file).append("\"}");
+        }
+        Files.write(new File(testDir, "prompts/system.md").toPath(), "System prompt 2.0".getBytes(StandardCharsets.UTF_8));
+        String json = "{\"prompts\": {\"system\": {\"path\": \"prompts/system.md\", \"version\": \"2.0.0\","
+                + " \"riskLevel\": \"critical\", \"versions\": {" + versions + "}}},"
+                + " \"settings\": {" + settings + "}}";
+        Files.write(new File(configPath).toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLoaderResolvesVersionSpecs() throws Exception {
+        writeVersionedCatalog(3, "");
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        assertEquals("2.0.0", loader.loadPrompt("system").getVersion());
+        assertEquals("2.0.0", loader.loadPrompt("system", "latest").getVersion());
+        Prompt old = loader.loadPrompt("system", "~1.1");
+        assertEquals("1.1.0", old.getVersion());
+        assertEquals("System prompt 1.1", old.getContent());
+        assertEquals("Versions inherit the prompt's risk level", "critical", old.getRiskLevel());
+        assertEquals("1.2.0", loader.loadPrompt("system", "^1.0.0").getVersion());
+        assertEquals(Arrays.asList("1.0.0", "1.1.0", "1.2.0", "2.0.0"), loader.getAvailableVersions("system"));
+
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("system", "^3.0.0"));
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("system", "^bad"));
+        assertThrows(PromptLoader.PromptLoadException.class, () -> loader.loadPrompt("missing", "latest"));
+    }
+
+    @Test
+    public void testResidentVersionsAreBoundedAndReloaded() throws Exception {
+        writeVersionedCatalog(5, "\"maxResidentVersions\": 2");
+        PromptLoader loader = new PromptLoader(configPath, true, false);
+
+        loader.loadPrompt("system", "1.0.0");
+        loader.loadPrompt("system", "1.1.0");
+        loader.loadPrompt("system", "1.0.0");
+        loader.loadPrompt("system", "1.2.0");
+
+        PromptCache.Stats stats = loader.getCacheStats();
+        assertEquals(2, stats.getSize());
+        assertEquals("The least recently served version should be evicted", 1, stats.getEvictions());
+
+        Prompt reloaded = loader.loadPrompt("system", "1.1.0");
+        assertEquals("System prompt 1.1", reloaded.getContent());
+        assertEquals(4, loader.getCacheStats().getLoads());
+        assertEquals(2, loader.getCacheStats().getSize());
+
+        loader.setMaxResidentVersions(0);
+        for (String version : Arrays.asList("1.0.0", "1.1.0", "1.2.0", "1.3.0", "1.4.0")) {
+            loader.loadPrompt("system", version);
+        }
+        assertEquals(5, loader.getCacheStats().getSize());
+    }
+
+    @Test
+    public void testCacheKeepsMostRecentlyServedVersions() {
+        PromptCache cache = new PromptCache();
+        cache.setMaxResidentVersions(2);
+        PromptCache.FileStamp stamp = new PromptCache.FileStamp(1, 1);
+        File file = new File(testDir, "missing.md");
+
+        cache.put(new Prompt("p", "a", "1.0.0", "low"), stamp, null);
+        cache.put(new Prompt("p", "b", "1.1.0", "low"), stamp, null);
+        cache.put(new Prompt("q", "c", "1.0.0", "low"), stamp, null);
+        cache.setRevalidateMillis(60_000);
+        assertNotNull(cache.get("p", "1.0.0", file.toPath(), null));
+        cache.put(new Prompt("p", "d", "1.2.0", "low"), stamp, null);
+
+        assertEquals(new TreeSet<>(Arrays.asList("1.0.0", "1.2.0")), cache.getResidentVersions("p"));
+        assertEquals(Collections.singleton("1.0.0"), cache.getResidentVersions("q"));
+        cache.retain(Collections.singleton(PromptCache.key("p", "1.2.0")));
+        Set<String> left = cache.getResidentVersions("p");
+        assertEquals(Collections.singleton("1.2.0"), left);
+    }
+}
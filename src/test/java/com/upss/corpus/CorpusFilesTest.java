@@ -0,0 +1,110 @@
+package com.upss.corpus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CorpusFiles
+ */
+public class CorpusFilesTest {
+
+    private Path testDir;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = Files.createTempDirectory("upss_corpus_test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(testDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        assertRoundTrip(testDir.resolve("corpus.jsonl"));
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        assertRoundTrip(testDir.resolve("corpus.jsonl.gz"));
+    }
+
+    @Test
+    public void testOneEntryPerLineAndUnknownFieldsSkipped() throws IOException {
+        Path file = testDir.resolve("corpus.jsonl");
+        CorpusFiles.write(file, Stream.of(
+                new CorpusEntry(1, CorpusGenerator.Category.CLEAN, "prose", false, null, "line one\nline two"),
+                new CorpusEntry(2, CorpusGenerator.Category.OBFUSCATED, "plain", true, "eval", "eval(x)")));
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertFalse(lines.get(0).contains("signature"));
+
+        Files.write(file, List.of("{\"id\":3,\"category\":\"CLEAN\",\"source\":{\"recorded\":true},\"text\":\"hi\"}"),
+                StandardCharsets.UTF_8);
+        try (Stream<CorpusEntry> entries = CorpusFiles.read(file)) {
+            CorpusEntry entry = entries.findFirst().orElseThrow();
+            assertEquals(3, entry.getId());
+            assertEquals("hi", entry.getText());
+            assertNull(entry.getTechnique());
+        }
+    }
+
+    @Test
+    public void testPlainTextIsReadAsRecordedInputs() throws IOException {
+        Path file = testDir.resolve("recorded.txt");
+        Files.write(file, List.of("# captured 2026-10-01", "first input", "", "second input"), StandardCharsets.UTF_8);
+
+        try (Stream<CorpusEntry> entries = CorpusFiles.read(file)) {
+            List<CorpusEntry> recorded = entries.collect(Collectors.toList());
+            assertEquals(2, recorded.size());
+            assertEquals("second input", recorded.get(1).getText());
+            assertEquals(1, recorded.get(1).getId());
+            assertEquals(CorpusGenerator.Category.RECORDED, recorded.get(1).getCategory());
+            assertFalse(recorded.get(1).isMalicious());
+        }
+    }
+
+    @Test
+    public void testCorpusFileNames() {
+        assertTrue(CorpusFiles.isCorpusFile(testDir.resolve("inputs.jsonl")));
+        assertTrue(CorpusFiles.isCorpusFile(testDir.resolve("inputs.jsonl.gz")));
+        assertFalse(CorpusFiles.isCorpusFile(testDir.resolve("inputs.txt")));
+    }
+
+    private static void assertRoundTrip(Path file) throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(21).withScaledSizes(2048);
+        assertEquals(500, CorpusFiles.write(file, generator.stream(500)));
+
+        List<CorpusEntry> expected = generator.stream(500).collect(Collectors.toList());
+        List<CorpusEntry> actual;
+        try (Stream<CorpusEntry> entries = CorpusFiles.read(file)) {
+            actual = entries.collect(Collectors.toList());
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CorpusEntry want = expected.get(i);
+            CorpusEntry got = actual.get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getCategory(), got.getCategory());
+            assertEquals(want.getTechnique(), got.getTechnique());
+            assertEquals(want.isMalicious(), got.isMalicious());
+            assertEquals(want.getSignature(), got.getSignature());
+            assertEquals(want.getText(), got.getText());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.upss.corpus;
+
+import com.upss.core.BasicSanitizer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CorpusGenerator
+ */
+public class CorpusGeneratorTest {
+
+    private static final int COUNT = 2000;
+
+    @Test
+    public void testSameSeedGivesSameCorpus() {
+        List<String> first = texts(new CorpusGenerator(7));
+        List<String> second = texts(new CorpusGenerator(7));
+        List<String> other = texts(new CorpusGenerator(8));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testEntryDependsOnlyOnItsId() {
+        CorpusGenerator generator = new CorpusGenerator(7).withWeight(CorpusGenerator.Category.SCALED, 0);
+        List<CorpusEntry> entries = generator.stream(100).collect(Collectors.toList());
+
+        assertEquals(entries.get(63).getText(), generator.entry(63).getText());
+        assertEquals(63, generator.entry(63).getId());
+    }
+
+    @Test
+    public void testCoversEveryCategory() {
+        Map<CorpusGenerator.Category, Set<String>> techniques = new EnumMap<>(CorpusGenerator.Category.class);
+        new CorpusGenerator(1).withScaledSizes(1024).stream(COUNT).forEach(entry ->
+                techniques.computeIfAbsent(entry.getCategory(), c -> new HashSet<>()).add(entry.getTechnique()));
+
+        assertEquals(Set.of("prose", "multilingual", "benign-keyword"), techniques.get(CorpusGenerator.Category.CLEAN));
+        assertEquals(10, techniques.get(CorpusGenerator.Category.OBFUSCATED).size());
+        assertEquals(6, techniques.get(CorpusGenerator.Category.PATHOLOGICAL).size());
+        assertNotNull(techniques.get(CorpusGenerator.Category.SCALED));
+    }
+
+    @Test
+    public void testCleanTextPassesAndPlainInjectionsAreCaught() {
+        BasicSanitizer sanitizer = new BasicSanitizer();
+        new CorpusGenerator(3).withScaledSizes(1024).stream(COUNT).forEach(entry -> {
+            String technique = entry.getTechnique();
+            if (technique.equals("prose") || technique.equals("multilingual") || technique.equals("document")) {
+                assertTrue("Clean entry flagged: " + entry.getText(), sanitizer.isClean(entry.getText()));
+                assertFalse(entry.isMalicious());
+            } else if (technique.equals("benign-keyword")) {
+                assertFalse(entry.isMalicious());
+            } else if (technique.equals("plain") || technique.equals("split-boundary")
+                    || technique.equals("document-with-injection")) {
+                assertTrue(entry.isMalicious());
+                assertFalse("Injection missed: " + entry, sanitizer.isClean(entry.getText()));
+            } else if (entry.getCategory() == CorpusGenerator.Category.PATHOLOGICAL) {
+                assertEquals(entry.toString(), !sanitizer.isClean(entry.getText()), entry.isMalicious());
+            }
+        });
+    }
+
+    @Test
+    public void testObfuscationHidesTheSignature() {
+        new CorpusGenerator(5).withWeight(CorpusGenerator.Category.CLEAN, 0)
+                .withWeight(CorpusGenerator.Category.PATHOLOGICAL, 0)
+                .withWeight(CorpusGenerator.Category.SCALED, 0)
+                .stream(500).forEach(entry -> {
+                    assertTrue(entry.isMalicious());
+                    String technique = entry.getTechnique();
+                    if (!technique.equals("plain") && !technique.equals("case-mix")
+                            && !technique.equals("split-boundary")) {
+                        assertFalse("Signature left intact: " + entry.getText(),
+                                entry.getText().contains(entry.getSignature()));
+                    }
+                });
+    }
+
+    @Test
+    public void testSplitBoundaryStraddlesAChunk() {
+        CorpusGenerator generator = new CorpusGenerator(11).withWeight(CorpusGenerator.Category.CLEAN, 0)
+                .withWeight(CorpusGenerator.Category.PATHOLOGICAL, 0)
+                .withWeight(CorpusGenerator.Category.SCALED, 0);
+        int checked = 0;
+        for (long id = 0; id < 500; id++) {
+            CorpusEntry entry = generator.entry(id);
+            if (!entry.getTechnique().equals("split-boundary")) {
+                continue;
+            }
+            int start = entry.getText().indexOf(entry.getSignature());
+            int end = start + entry.getSignature().length();
+            // Every chunk size is a multiple of 1 KB
+            assertNotEquals(entry.toString(), start / 1024, (end - 1) / 1024);
+            checked++;
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void testScaledDocumentsReachTheirSize() {
+        new CorpusGenerator(9).withWeight(CorpusGenerator.Category.CLEAN, 0)
+                .withWeight(CorpusGenerator.Category.OBFUSCATED, 0)
+                .withWeight(CorpusGenerator.Category.PATHOLOGICAL, 0)
+                .withWeight(CorpusGenerator.Category.SCALED, 1)
+                .withScaledSizes(4096, 65536)
+                .stream(20).forEach(entry -> {
+                    int bytes = entry.getText().getBytes(StandardCharsets.UTF_8).length;
+                    assertTrue(entry.toString(), bytes >= 4096 && bytes < 65536 + 4096);
+                });
+    }
+
+    @Test
+    public void testCustomSignatures() {
+        new CorpusGenerator(13).withSignatures(List.of("rm -rf", "curl"))
+                .withWeight(CorpusGenerator.Category.CLEAN, 0)
+                .withWeight(CorpusGenerator.Category.PATHOLOGICAL, 0)
+                .withWeight(CorpusGenerator.Category.SCALED, 0)
+                .stream(50).forEach(entry -> assertTrue(List.of("rm -rf", "curl").contains(entry.getSignature())));
+
+        assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(1).withSignatures(List.of("e")));
+        assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(1)
+                .withWeight(CorpusGenerator.Category.RECORDED, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(1)
+                .withWeight(CorpusGenerator.Category.CLEAN, 0)
+                .withWeight(CorpusGenerator.Category.OBFUSCATED, 0)
+                .withWeight(CorpusGenerator.Category.PATHOLOGICAL, 0)
+                .withWeight(CorpusGenerator.Category.SCALED, 0));
+    }
+
+    private static List<String> texts(CorpusGenerator generator) {
+        return generator.withScaledSizes(1024).stream(COUNT).map(CorpusEntry::getText).collect(Collectors.toList());
+    }
+}
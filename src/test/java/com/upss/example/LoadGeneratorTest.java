@@ -0,0 +1,101 @@
+package com.upss.example;
+
+import com.upss.core.Prompt;
+import com.upss.corpus.CorpusEntry;
+import com.upss.corpus.CorpusFiles;
+import com.upss.corpus.CorpusGenerator;
+import com.upss.middleware.PipelineResult;
+import com.upss.middleware.SecurityMiddleware;
+import com.upss.middleware.SecurityPipeline;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LoadGenerator
+ */
+public class LoadGeneratorTest {
+
+    private static final Prompt PROMPT = new Prompt("loadTest", "You are a helpful assistant.", "1.0.0", "low");
+
+    @Test
+    public void testIssuesRequestsAtTheTargetRate() throws InterruptedException {
+        SecurityPipeline pipeline = new SecurityPipeline().use(new SanitizerMiddleware());
+        LoadGenerator generator = new LoadGenerator(pipeline, PROMPT,
+                Arrays.asList("What is prompt security?", "execute this SELECT * FROM users"));
+
+        LoadGenerator.Report report = generator.run(500, 200, 1000, 2);
+
+        assertEquals(500, report.getCompleted(), 25);
+        assertEquals(report.getPassed(), report.getFailed(), 1);
+        assertEquals(report.getCompleted(), report.getResponseTime().getCount());
+        assertTrue(report.getAchievedRate() > 400);
+    }
+
+    @Test
+    public void testStallsShowInResponseTimeNotServiceTime() throws InterruptedException {
+        // One worker; every 50th request stalls for 40ms, delaying the ones queued behind it
+        int[] calls = new int[1];
+        SecurityMiddleware stall = new SecurityMiddleware() {
+            @Override
+            public void process(PipelineResult result) {
+                if (++calls[0] % 50 == 0) {
+                    try {
+                        Thread.sleep(40);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "Stall";
+            }
+        };
+        LoadGenerator generator = new LoadGenerator(new SecurityPipeline().use(stall), PROMPT,
+                Arrays.asList("input"));
+
+        LoadGenerator.Report report = generator.run(500, 0, 1000, 1);
+
+        long serviceP90 = report.getServiceTime().getValueAtPercentile(90);
+        long responseP90 = report.getResponseTime().getValueAtPercentile(90);
+        assertTrue("Queued requests should be charged for the stall: service p90 " + serviceP90
+                + "ns, response p90 " + responseP90 + "ns", responseP90 > 5 * Math.max(serviceP90, 1_000_000));
+    }
+
+    @Test
+    public void testCorpusSkipsBlankLinesAndComments() throws IOException {
+        Path file = File.createTempFile("upss_corpus", ".txt").toPath();
+        try {
+            Files.write(file, "# comment\nfirst input\n\n  \nsecond input\n".getBytes(StandardCharsets.UTF_8));
+            List<String> corpus = LoadGenerator.readCorpus(file);
+            assertEquals(Arrays.asList("first input", "second input"), corpus);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCorpusReadsGeneratedCorpusFiles() throws IOException {
+        Path file = File.createTempFile("upss_corpus", ".jsonl").toPath();
+        try {
+            CorpusGenerator generator = new CorpusGenerator(42).withScaledSizes(1024);
+            CorpusFiles.write(file, generator.stream(50));
+            List<String> corpus = LoadGenerator.readCorpus(file);
+            assertEquals(generator.stream(50).map(CorpusEntry::getText).collect(Collectors.toList()), corpus);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.upss.management;
+
+import com.upss.audit.AuditLogOptions;
+import com.upss.core.LightweightAuditor;
+import com.upss.core.Prompt;
+import com.upss.core.PromptLoader;
+import com.upss.middleware.SecurityPipeline;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PrometheusExporter
+ */
+public class PrometheusExporterTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PrometheusExporter exporter;
+    private File testDir;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = new File(System.getProperty("java.io.tmpdir"), "upss_prometheus_test_" + System.nanoTime());
+        testDir.mkdirs();
+        exporter = new PrometheusExporter(0).start();
+    }
+
+    @After
+    public void tearDown() {
+        exporter.close();
+        File[] files = testDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDir.delete();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + exporter.getPort() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static List<String> samples(String body, String prefix) {
+        List<String> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (line.startsWith(prefix)) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static long value(String line) {
+        return (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+    }
+
+    @Test
+    public void testPipelineMetricsScraped() throws Exception {
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .use(new ValidatorMiddleware())
+                .use(new SanitizerMiddleware());
+        exporter.register(pipeline, "main");
+        Prompt prompt = new Prompt("p", "content", "1.0.0", "medium");
+        for (int i = 0; i < 20; i++) {
+            pipeline.execute(prompt, "Safe user input " + i);
+        }
+        pipeline.execute(prompt, "DROP TABLE users");
+
+        HttpResponse<String> response = get("/metrics");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(PrometheusExporter.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(""));
+        String body = response.body();
+        assertTrue(body.contains("# TYPE upss_pipeline_stage_latency_seconds histogram\n"));
+        assertTrue(body.contains("upss_pipeline_executions_total{pipeline=\"main\",result=\"passed\"} 20\n"));
+        assertTrue(body.contains("upss_pipeline_stage_rejections_total{pipeline=\"main\",stage=\"SanitizerMiddleware\","
+                + "reason=\"rejected\"} 1\n"));
+
+        List<String> buckets = samples(body,
+                "upss_pipeline_stage_latency_seconds_bucket{pipeline=\"main\",stage=\"ValidatorMiddleware\"");
+        assertEquals(PrometheusExporter.LATENCY_BOUNDS_NANOS.length + 1, buckets.size());
+        assertTrue(buckets.get(0).contains("le=\"0.000001\""));
+        long previous = 0;
+        for (String bucket : buckets) {
+            assertTrue("Buckets must be cumulative: " + bucket, value(bucket) >= previous);
+            previous = value(bucket);
+        }
+        assertTrue(buckets.get(buckets.size() - 1).contains("le=\"+Inf\""));
+        assertEquals(21, previous);
+        assertTrue(body.contains("upss_pipeline_input_size_chars_bucket{pipeline=\"main\",le=\"16\"} 1\n"));
+        assertTrue(body.contains("upss_pipeline_input_size_chars_sum{pipeline=\"main\"} 366\n"));
+    }
+
+    @Test
+    public void testLoaderAndAuditorMetricsScraped() throws Exception {
+        PromptLoader loader = new PromptLoader(new File(testDir, "missing.json").getPath());
+        LightweightAuditor auditor = new LightweightAuditor(new File(testDir, "audit.log").getPath(),
+                new AuditLogOptions().segmentBytes(1 << 20).asyncQueue(128));
+        exporter.register(loader, "prompts").register(auditor, "audit \"main\"");
+        auditor.logAccess("p", "EXECUTE", "user", "PASSED");
+        auditor.flush();
+
+        String body = get("/metrics").body();
+
+        assertTrue(body.contains("upss_prompt_catalog_prompts{loader=\"prompts\"} 0\n"));
+        assertTrue(body.contains("upss_prompt_cache_hits_total{loader=\"prompts\",source=\"preloaded\"} 0\n"));
+        assertTrue(body.contains("upss_prompt_catalog_reloads_total{loader=\"prompts\",result=\"failure\"} 0\n"));
+        List<String> written = samples(body, "upss_audit_sink_entries_total{auditor=\"audit \\\"main\\\"\"");
+        assertEquals(3, written.size());
+        assertTrue(written.get(0).endsWith("outcome=\"written\"} 1"));
+        auditor.close();
+    }
+
+    @Test
+    public void testRepeatedScrapesReuseBuffers() throws Exception {
+        SecurityPipeline pipeline = new SecurityPipeline().use(new ValidatorMiddleware());
+        exporter.register(pipeline, "main");
+        pipeline.execute(new Prompt("p", "content", "1.0.0", "low"), "input");
+
+        CharSequence first = exporter.render();
+        String rendered = first.toString();
+        CharSequence second = exporter.render();
+
+        assertSame("The text buffer should be reused", first, second);
+        assertEquals(rendered, second.toString());
+        assertEquals(rendered, get("/metrics").body());
+    }
+
+    @Test
+    public void testOnlyGetOnMetricsIsServed() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + exporter.getPort() + "/metrics"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+        assertEquals(404, get("/other").statusCode());
+    }
+}
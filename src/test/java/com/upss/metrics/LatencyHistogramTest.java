@@ -0,0 +1,143 @@
+package com.upss.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LatencyHistogram
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMin());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertWithin(50_000_000, snapshot.getValueAtPercentile(50));
+        assertWithin(99_000_000, snapshot.getValueAtPercentile(99));
+        assertWithin(99_900_000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(100_000_000, snapshot.getValueAtPercentile(100));
+        assertEquals(50_000_500, snapshot.getMean(), 1.0);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 1000);
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (int digits = 1; digits <= 3; digits++) {
+            LatencyHistogram histogram = new LatencyHistogram(LatencyHistogram.DEFAULT_HIGHEST_TRACKABLE, digits);
+            for (long value : new long[]{0, 1, 127, 128, 255, 256, 1023, 1024, 2047, 2048, 2049, 4096, 1L << 40}) {
+                int index = histogram.indexOf(value);
+                assertTrue(value + " below its bucket", histogram.lowestValueAt(index) <= value);
+                assertTrue(value + " above its bucket", histogram.highestValueAt(index) >= value);
+                assertTrue("Bucket of " + value + " too wide for " + digits + " digits",
+                        histogram.highestValueAt(index) - histogram.lowestValueAt(index) <= value / Math.pow(10, digits));
+            }
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.indexOf(2047) + 1, histogram.indexOf(2048));
+    }
+
+    @Test
+    public void testFewerDigitsUseLessPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(60_000_000_000L, 2);
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        long p50 = histogram.snapshot().getValueAtPercentile(50);
+        assertTrue("p50 " + p50 + " should be within 1%", Math.abs(p50 - 5_000_000) <= 50_000);
+    }
+
+    @Test
+    public void testCumulativeCountsMatchSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram(TimeUnit.MINUTES.toNanos(1), 2);
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            histogram.record((long) Math.exp(random.nextDouble() * 20));
+        }
+        long[] bounds = {-1, 0, 1_000, 25_000, 1_000_000, 250_000_000, Long.MAX_VALUE};
+        long[] cumulative = new long[bounds.length];
+
+        long total = histogram.getCumulativeCounts(bounds, cumulative);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(snapshot.getCount(), total);
+        for (int i = 0; i < bounds.length; i++) {
+            assertEquals("Bound " + bounds[i], snapshot.getCountAtOrBelow(bounds[i]), cumulative[i]);
+        }
+        assertEquals(total, cumulative[bounds.length - 1]);
+        assertEquals(snapshot.getSum(), histogram.getSum());
+    }
+
+    @Test
+    public void testCoordinatedOmissionCorrection() {
+        LatencyHistogram raw = new LatencyHistogram();
+        LatencyHistogram corrected = new LatencyHistogram();
+        // 99 fast requests at a 1ms interval, then one that stalls for 100ms
+        for (int i = 0; i < 99; i++) {
+            raw.record(100_000);
+            corrected.recordCorrected(100_000, 1_000_000);
+        }
+        raw.record(100_000_000);
+        corrected.recordCorrected(100_000_000, 1_000_000);
+
+        assertEquals(100, raw.getCount());
+        assertEquals(199, corrected.getCount());
+        assertTrue("Raw p90 hides the stall", raw.snapshot().getValueAtPercentile(90) < 1_000_000);
+        assertTrue("Corrected p90 shows it", corrected.snapshot().getValueAtPercentile(90) > 50_000_000);
+    }
+
+    @Test
+    public void testClampingCountsAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram(10_000);
+        histogram.record(5);
+        histogram.record(1_000_000);
+        histogram.record(-1);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.getMax());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(2, snapshot.getCountAtOrBelow(5));
+        assertEquals(3, snapshot.getCountAtOrBelow(Long.MAX_VALUE));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.snapshot().getCount());
+        assertEquals(8 * 10_000L * 10_001 / 2, histogram.snapshot().getSum());
+    }
+}
@@ -0,0 +1,95 @@
+package com.upss.middleware;
+
+import com.upss.core.Prompt;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MiddlewareEvent
+ */
+public class MiddlewareEventTest {
+
+    private Path recordingFile;
+
+    @Before
+    public void setUp() throws IOException {
+        recordingFile = Files.createTempFile("upss_middleware_events", ".jfr");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(recordingFile);
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(MiddlewareEvent.NAME);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        return RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().equals(MiddlewareEvent.NAME))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOneEventPerStageInvocation() throws IOException {
+        Prompt prompt = new Prompt("testPrompt", "Test content", "1.0.0", "medium");
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .use(new ValidatorMiddleware())
+                .use(new SanitizerMiddleware())
+                .use(new SecurityMiddleware() {
+                    @Override
+                    public void process(PipelineResult result) {
+                        throw new IllegalStateException("boom");
+                    }
+
+                    @Override
+                    public String getName() {
+                        return "Exploding";
+                    }
+                });
+
+        List<RecordedEvent> events = record(() -> pipeline.execute(prompt, "Safe user input"));
+
+        assertEquals(3, events.size());
+        assertEquals(new ValidatorMiddleware().getName(), events.get(0).getString("stage"));
+        assertEquals(MiddlewareEvent.PASSED, events.get(0).getString("outcome"));
+        assertEquals("testPrompt", events.get(0).getString("promptId"));
+        assertEquals("Safe user input".length(), events.get(0).getInt("inputLength"));
+        assertEquals("Exploding", events.get(2).getString("stage"));
+        assertEquals(MiddlewareEvent.EXCEPTION, events.get(2).getString("outcome"));
+    }
+
+    @Test
+    public void testNothingRecordedWhenDisabled() throws IOException {
+        SecurityPipeline pipeline = new SecurityPipeline().use(new ValidatorMiddleware());
+        pipeline.execute(new Prompt("p", "c", "1.0", "low"), "input");
+
+        try (Recording recording = new Recording()) {
+            recording.disable(MiddlewareEvent.NAME);
+            recording.start();
+            pipeline.execute(new Prompt("p", "c", "1.0", "low"), "input");
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        assertTrue(RecordingFile.readAllEvents(recordingFile).stream()
+                .noneMatch(event -> event.getEventType().getName().equals(MiddlewareEvent.NAME)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.upss.middleware;
+
+import com.upss.core.Prompt;
+import com.upss.middleware.impl.SanitizerMiddleware;
+import com.upss.middleware.impl.ValidatorMiddleware;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PipelineMetrics
+ */
+public class PipelineMetricsTest {
+
+    private Prompt testPrompt;
+
+    @Before
+    public void setUp() {
+        testPrompt = new Prompt("testPrompt", "Test content", "1.0.0", "medium");
+    }
+
+    private static SecurityMiddleware middleware(String name, Runnable action) {
+        return new SecurityMiddleware() {
+            @Override
+            public void process(PipelineResult result) {
+                action.run();
+                if (result.getUserInput().contains("reject-" + name)) {
+                    result.fail("rejected by " + name);
+                }
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    @Test
+    public void testStagesRecordedInPipelineOrder() {
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .use(new ValidatorMiddleware())
+                .use(new SanitizerMiddleware());
+
+        pipeline.execute(testPrompt, "Safe user input");
+        pipeline.execute(testPrompt, "Another safe input");
+
+        PipelineMetrics.Snapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(2, snapshot.getStages().size());
+        assertEquals(new ValidatorMiddleware().getName(), snapshot.getStages().get(0).getName());
+        assertEquals(new SanitizerMiddleware().getName(), snapshot.getStages().get(1).getName());
+        for (PipelineMetrics.StageSnapshot stage : snapshot.getStages()) {
+            assertEquals(2, stage.getInvocations());
+            assertEquals(0, stage.getFailures());
+            assertEquals(0, stage.getExceptions());
+        }
+        assertEquals(2, snapshot.getExecutions());
+        assertEquals(2, snapshot.getPassed());
+        assertEquals(15, snapshot.getInputSizes().getMin());
+        assertEquals(18, snapshot.getInputSizes().getMax());
+    }
+
+    @Test
+    public void testFailuresAndExceptionsCountedOnTheirStage() {
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .use(middleware("first", () -> { }))
+                .use(middleware("second", () -> { }))
+                .use(middleware("third", () -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        pipeline.execute(testPrompt, "reject-first");
+        pipeline.execute(testPrompt, "reject-second");
+        pipeline.execute(testPrompt, "reaches third");
+
+        List<PipelineMetrics.StageSnapshot> stages = pipeline.getMetrics().snapshot().getStages();
+        assertEquals(3, stages.get(0).getInvocations());
+        assertEquals(1, stages.get(0).getFailures());
+        assertEquals(2, stages.get(1).getInvocations());
+        assertEquals(1, stages.get(1).getFailures());
+        assertEquals("A stage after a rejection must not run", 1, stages.get(2).getInvocations());
+        assertEquals(1, stages.get(2).getExceptions());
+        assertEquals(0, stages.get(2).getFailures());
+        assertEquals(3, pipeline.getMetrics().snapshot().getFailed());
+    }
+
+    @Test
+    public void testLatencyAttributedToSlowStage() {
+        SecurityPipeline pipeline = new SecurityPipeline()
+                .use(middleware("fast", () -> { }))
+                .use(middleware("slow", () -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.execute(testPrompt, "input");
+        }
+
+        PipelineMetrics.Snapshot snapshot = pipeline.getMetrics().snapshot();
+        long slowMin = snapshot.getStages().get(1).getLatency().getMin();
+        assertTrue("Slow stage should record the sleep: " + slowMin, slowMin >= 4_000_000);
+        assertTrue(snapshot.getStages().get(0).getLatency().getMax() < slowMin);
+        assertTrue(snapshot.getLatency().getMin() >= slowMin);
+        assertTrue(snapshot.toString().indexOf("slow") < snapshot.toString().indexOf("fast"));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        SecurityPipeline pipeline = new SecurityPipeline().use(new ValidatorMiddleware());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    pipeline.execute(testPrompt, "Safe user input " + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        PipelineMetrics.Snapshot snapshot = pipeline.getMetrics().snapshot();
+        assertEquals(8_000, snapshot.getExecutions());
+        assertEquals(8_000, snapshot.getStages().get(0).getInvocations());
+        assertEquals(8_000, snapshot.getLatency().getCount());
+
+        pipeline.getMetrics().reset();
+        assertEquals(0, pipeline.getMetrics().snapshot().getStages().get(0).getInvocations());
+    }
+}
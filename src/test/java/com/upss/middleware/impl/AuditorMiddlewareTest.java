@@ -1,5 +1,6 @@
 package com.upss.middleware.impl;
 
+import com.upss.audit.AuditPolicy;
 import com.upss.core.LightweightAuditor;
 import com.upss.core.Prompt;
 import com.upss.middleware.PipelineResult;
@@ -317,4 +318,85 @@ public class AuditorMiddlewareTest {
         List<String> lines = Files.readAllLines(securityLogFile.toPath());
         assertEquals("Should have only one security event", 1, lines.size());
     }
+
+    private static long rollupCount(List<String> lines) {
+        long total = 0;
+        for (String line : lines) {
+            if (line.contains("ROLLUP")) {
+                total += Long.parseLong(line.substring(line.indexOf("COUNT=") + 6));
+            }
+        }
+        return total;
+    }
+
+    @Test
+    public void testSampledPolicySkipsPassedButKeepsFailures() throws Exception {
+        String logPath = testAuditDir + "/sampled.log";
+        LightweightAuditor fileAuditor = new LightweightAuditor(logPath);
+        AuditorMiddleware sampling = new AuditorMiddleware(fileAuditor, AuditPolicy.sampled(0.0));
+
+        for (int i = 0; i < 10; i++) {
+            sampling.process(new PipelineResult(testPrompt, "input " + i));
+        }
+        PipelineResult failed = new PipelineResult(testPrompt, "bad input");
+        failed.fail("Security violation");
+        sampling.process(failed);
+
+        List<String> lines = Files.readAllLines(Paths.get(logPath));
+        assertEquals("Only the failure and its security event should be written", 2, lines.size());
+        assertTrue(lines.get(0).contains("STATUS=FAILED"));
+        assertEquals(10, sampling.getSampledOutCount());
+    }
+
+    @Test
+    public void testSampledPolicyMarksSampledEntries() throws Exception {
+        String logPath = testAuditDir + "/sampled-all.log";
+        AuditorMiddleware sampling = new AuditorMiddleware(new LightweightAuditor(logPath), AuditPolicy.sampled(1.0));
+
+        for (int i = 0; i < 5; i++) {
+            sampling.process(new PipelineResult(testPrompt, "input " + i));
+        }
+
+        List<String> lines = Files.readAllLines(Paths.get(logPath));
+        assertEquals(5, lines.size());
+        assertTrue("Sampled entries should carry their rate", lines.get(0).endsWith("SAMPLE_RATE=1.0"));
+    }
+
+    @Test
+    public void testAggregatedPolicyWritesRollupsOnClose() throws Exception {
+        String logPath = testAuditDir + "/aggregated.log";
+        AuditorMiddleware aggregating = new AuditorMiddleware(new LightweightAuditor(logPath), AuditPolicy.aggregated());
+
+        for (int i = 0; i < 100; i++) {
+            PipelineResult passed = new PipelineResult(testPrompt, "input " + i);
+            passed.addContext("user", i % 2 == 0 ? "alice" : "bob");
+            aggregating.process(passed);
+        }
+        PipelineResult failed = new PipelineResult(testPrompt, "bad input");
+        failed.fail("Security violation");
+        aggregating.process(failed);
+
+        List<String> before = Files.readAllLines(Paths.get(logPath));
+        assertEquals("Passed executions should not be written individually", 2, before.size());
+
+        aggregating.close();
+
+        List<String> after = Files.readAllLines(Paths.get(logPath));
+        assertEquals("Every passed execution should be counted", 100, rollupCount(after));
+        assertTrue(after.stream().anyMatch(line -> line.contains("USER=alice") && line.contains("ROLLUP")));
+    }
+
+    @Test
+    public void testRollupsFlushedWhenAuditorCloses() throws Exception {
+        String logPath = testAuditDir + "/aggregated-close.log";
+        LightweightAuditor fileAuditor = new LightweightAuditor(logPath);
+        AuditorMiddleware aggregating = new AuditorMiddleware(fileAuditor, AuditPolicy.aggregated());
+
+        for (int i = 0; i < 7; i++) {
+            aggregating.process(new PipelineResult(testPrompt, "input " + i));
+        }
+        fileAuditor.close();
+
+        assertEquals(7, rollupCount(Files.readAllLines(Paths.get(logPath))));
+    }
 }